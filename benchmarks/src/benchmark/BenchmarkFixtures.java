@@ -0,0 +1,131 @@
+package benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import dataClasses.diploma.AbstractDiploma;
+import dataClasses.diploma.Diploma;
+import dataClasses.diploma.TrainingDiploma;
+import dataClasses.sentence.AbstractSentence;
+import dataClasses.sentence.TrainingSentence;
+import helpers.ReaderWriter;
+import preprocessing.Preprocessor;
+
+/**
+ * Stellt die Fixture-Urkunden sowie die Konfigurationsdateien bereit, auf denen alle Benchmarks arbeiten.
+ * Die Pfade sind relativ zum Projektordner angegeben, d.h. die Benchmarks mssen aus diesem heraus gestartet werden.
+ * @author Alina Ostrowski
+ *
+ */
+public class BenchmarkFixtures {
+
+	static final String trainingPath = "benchmarks/fixtures/trainingData";
+	static final String inputPath = "benchmarks/fixtures/inputData";
+
+	static final String resolverPath = "src/config/txts/editorialSignsResolvers.txt";
+	static final String indicatorPath = "src/config/txts/diplomaticIndicators.txt";
+	static final String abbreviationPath = "src/config/txts/abbreviations.txt";
+	static final String capitalLetterPath = "src/config/txts/capitalLetterWords.txt";
+	static final String paranthesisPath = "src/config/txts/paranthesisAnnotations.txt";
+
+	private BenchmarkFixtures(){
+	}
+
+	static Preprocessor newPreprocessor(){
+		return new Preprocessor(resolverPath, abbreviationPath, capitalLetterPath, paranthesisPath);
+	}
+
+	/**
+	 * Liest alle Trainingsurkunden des Fixture-Ordners ein. Die Reihenfolge entspricht der alphabetischen Reihenfolge der Dateinamen.
+	 * @param pp Der Preprocessor, mit dem die Stze vorbereitet werden sollen.
+	 * @return Alle nutzbaren Trainingsurkunden.
+	 */
+	static List<TrainingDiploma> loadTrainingDiplomas(Preprocessor pp){
+		List<TrainingDiploma> diplomas = new ArrayList<>();
+		for(File file : listCharters(trainingPath)){
+			TrainingDiploma dipl = new TrainingDiploma(file.getName(), file, pp);
+			if(dipl.useDiploma()) diplomas.add(dipl);
+		}
+		checkNotEmpty(diplomas, trainingPath);
+		return diplomas;
+	}
+
+	/**
+	 * Liest alle zu klassifizierenden Urkunden des Fixture-Ordners ein.
+	 * @param pp Der Preprocessor, mit dem die Stze vorbereitet werden sollen.
+	 * @return Alle nutzbaren Urkunden.
+	 */
+	static List<Diploma> loadInputDiplomas(Preprocessor pp){
+		List<Diploma> diplomas = new ArrayList<>();
+		for(File file : listCharters(inputPath)){
+			Diploma dipl = new Diploma(file.getName(), file, pp);
+			if(dipl.useDiploma()) diplomas.add(dipl);
+		}
+		checkNotEmpty(diplomas, inputPath);
+		return diplomas;
+	}
+
+	/**
+	 * @param diplomas Die Urkunden, deren Stze gesammelt werden sollen.
+	 * @return Alle Stze der bergebenen Urkunden in Urkunden- und Satzreihenfolge.
+	 */
+	static List<AbstractSentence> sentencesOf(List<? extends AbstractDiploma<?>> diplomas){
+		List<AbstractSentence> sentences = new ArrayList<>();
+		for(AbstractDiploma<?> dipl : diplomas){
+			sentences.addAll(dipl.getSentences());
+		}
+		return sentences;
+	}
+
+	/**
+	 * Gibt die unnormalisierten Satztexte der Trainingsurkunden zurck. Die Stze werden dafr zurckgesetzt und
+	 * anschlieend erneut durch den Preprocessor vorbereitet, so dass die Urkunden danach wieder nutzbar sind.
+	 * @param diplomas Die Trainingsurkunden.
+	 * @param pp Der Preprocessor, mit dem die Stze erneut vorbereitet werden.
+	 * @return Die Rohtexte aller Stze.
+	 */
+	static List<String> rawTexts(List<TrainingDiploma> diplomas, Preprocessor pp){
+		List<String> texts = new ArrayList<>();
+		for(TrainingDiploma dipl : diplomas){
+			for(TrainingSentence sent : dipl.getSentences()){
+				sent.reset();
+				texts.add(sent.getText());
+				pp.prepareSentence(sent);
+			}
+		}
+		return texts;
+	}
+
+	/**
+	 * Liest die Indikator-Strings aus der Indikatordatei und normalisiert sie so, wie es auch der DiplomaticClassifier tut.
+	 * @return Die normalisierten Indikator-Strings.
+	 */
+	static List<String> normalizedIndicators(){
+		List<String> indicators = new ArrayList<>();
+		for(String[] indicatorArray : ReaderWriter.readCSV(new File(indicatorPath), true, ",", 4)){
+			indicators.add(Preprocessor.normalizeLatinText(indicatorArray[0]));
+		}
+		return indicators;
+	}
+
+	static List<File> listCharters(String path){
+		List<File> charters = new ArrayList<>();
+		File[] files = new File(path).listFiles();
+		if(files == null){
+			throw new IllegalStateException("The fixture directory "+path+" doesn't exist. The benchmarks must be started from the project directory.");
+		}
+		Arrays.sort(files);
+		for(File file : files){
+			if(file.getName().endsWith(".cei.xml")) charters.add(file);
+		}
+		return charters;
+	}
+
+	private static void checkNotEmpty(List<?> diplomas, String path){
+		if(diplomas.isEmpty()){
+			throw new IllegalStateException("No usable fixture diplomas found in "+path+".");
+		}
+	}
+}
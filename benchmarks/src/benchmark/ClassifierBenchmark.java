@@ -0,0 +1,76 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import classification.DiplomaticClassifier;
+import classification.ProbabilisticClassifier;
+import config.ClassificationConfig;
+import config.Milestones;
+import dataClasses.diploma.TrainingDiploma;
+import dataClasses.sentence.AbstractSentence;
+import preprocessing.Preprocessor;
+
+/**
+ * Benchmarks fr die indikatorbasierte Zuweisung des DiplomaticClassifiers sowie fr die probabilistische
+ * Klassifikation des ProbabilisticClassifiers. Beide Classifier werden mit der Standard-ClassificationConfig auf den
+ * Fixture-Trainingsurkunden trainiert, klassifiziert werden alle Stze der Fixture-Eingabeurkunden.
+ * @author Alina Ostrowski
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassifierBenchmark {
+
+	private DiplomaticClassifier dc;
+	private ProbabilisticClassifier pc;
+	private List<AbstractSentence> sentences;
+	private double[][] initialLabelProbabilities;
+
+	@Setup
+	public void setUp(){
+		ClassificationConfig cc = new ClassificationConfig();
+		Preprocessor pp = BenchmarkFixtures.newPreprocessor();
+		List<TrainingDiploma> trainingData = BenchmarkFixtures.loadTrainingDiplomas(pp);
+		pc = new ProbabilisticClassifier(pp, trainingData, cc.getUseBigramsInsteadOfTokens(), cc.getVectorType());
+		dc = new DiplomaticClassifier(BenchmarkFixtures.indicatorPath, new Milestones(trainingData, cc.getSequProbsTolerance()));
+
+		sentences = BenchmarkFixtures.sentencesOf(BenchmarkFixtures.loadInputDiplomas(pp));
+		initialLabelProbabilities = new double[sentences.size()][];
+		for(int i = 0; i < sentences.size(); i++){
+			initialLabelProbabilities[i] = sentences.get(i).getLabelProbabilities().clone();
+		}
+	}
+
+	@Benchmark
+	public List<AbstractSentence> assignByIndicators(){
+		return dc.assignByIndicators(sentences);
+	}
+
+	@Benchmark
+	public List<AbstractSentence> classify(){
+		// Die Label-Wahrscheinlichkeiten werden von classify() multipliziert und mssen darum vor jedem Durchlauf
+		// zurckgesetzt werden, da sie sonst gegen 0 gehen
+		for(int i = 0; i < sentences.size(); i++){
+			double[] probs = sentences.get(i).getLabelProbabilities();
+			System.arraycopy(initialLabelProbabilities[i], 0, probs, 0, probs.length);
+		}
+		pc.classify(sentences);
+		return sentences;
+	}
+}
@@ -0,0 +1,156 @@
+package benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import classification.SimilarityCalculator;
+import dataClasses.sentence.AbstractSentence;
+import preprocessing.Preprocessor;
+
+/**
+ * Prft, ob der Token-Vergleich des SimilarityCalculators, der mit einem Vorfilter (mayBeNWsimilar()) und einer auf ein Band
+ * der Matrix beschrnkten Berechnung (reachesNWThreshold()) arbeitet, fr alle Token-Paare dasselbe Ergebnis liefert wie die
+ * vollstndige Needleman-Wunsch-Berechnung der Referenzimplementierung needlemanWunschSimilarity(). Verglichen werden die
+ * Tokens der Indikatoren mit den Tokens der Eingabe-Fixtures sowie mit zufllig abgewandelten Indikator-Tokens, die besonders
+ * hufig knapp an der Schwelle liegen. Bei einer Abweichung endet das Programm mit dem Exit-Code 1.<br>
+ * Start aus dem Projektordner: java -cp target/benchmarks.jar benchmark.NeedlemanWunschCheck
+ * @author Alina Ostrowski
+ *
+ */
+public class NeedlemanWunschCheck {
+
+	private static final int VARIANTS_PER_TOKEN = 20;
+	private static final String ALPHABET = "abcdefghilmnopqrstuvx";
+
+	public static void main(String[] args) {
+		Set<String> indicatorTokens = new TreeSet<>();
+		for(String indicator : BenchmarkFixtures.normalizedIndicators()){
+			Collections.addAll(indicatorTokens, indicator.trim().split("\\s+"));
+		}
+		Set<String> textTokens = new TreeSet<>();
+		Preprocessor pp = BenchmarkFixtures.newPreprocessor();
+		for(AbstractSentence sent : BenchmarkFixtures.sentencesOf(BenchmarkFixtures.loadInputDiplomas(pp))){
+			textTokens.addAll(sent.getTokens());
+		}
+		Random random = new Random(42);
+		for(String token : indicatorTokens){
+			for(int i = 0; i < VARIANTS_PER_TOKEN; i++){
+				textTokens.add(mutate(token, random));
+			}
+		}
+		indicatorTokens.remove("");
+		textTokens.remove("");
+
+		// ohne Cache und ohne FuzzyMatchClosure, damit jedes Paar berechnet wird
+		SimilarityCalculator sc = new SimilarityCalculator(0);
+		long pairs = 0;
+		long similar = 0;
+		int mismatches = 0;
+		for(String indicatorToken : indicatorTokens){
+			List<String> compareTokens = Collections.singletonList(indicatorToken);
+			for(String textToken : textTokens){
+				boolean expected = needlemanWunschSimilarity(indicatorToken, textToken) >= indicatorToken.length() + textToken.length();
+				boolean actual = sc.containsAllTokens(compareTokens, textToken);
+				pairs++;
+				if(expected) similar++;
+				if(expected != actual){
+					if(mismatches < 20){
+						System.out.println("'"+indicatorToken+"' / '"+textToken+"': expected "+expected+", but was "+actual+".");
+					}
+					mismatches++;
+				}
+			}
+		}
+
+		System.out.println("Compared "+pairs+" token pairs ("+similar+" similar, "+sc.getPrefilterRejections()
+			+" rejected by the prefilter), "+mismatches+" mismatches.");
+		if(mismatches > 0){
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * @return Das bergebene Token mit ein bis drei zufllig gelschten, eingefgten oder ersetzten Zeichen.
+	 */
+	private static String mutate(String token, Random random) {
+		StringBuilder variant = new StringBuilder(token);
+		int edits = 1 + random.nextInt(3);
+		for(int i = 0; i < edits; i++){
+			int position = random.nextInt(variant.length() + 1);
+			char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+			switch(random.nextInt(3)){
+			case 0:
+				if(position < variant.length()) variant.deleteCharAt(position);
+				break;
+			case 1:
+				variant.insert(position, c);
+				break;
+			default:
+				if(position < variant.length()) variant.setCharAt(position, c);
+			}
+		}
+		return variant.toString();
+	}
+
+	/**Referenzimplementierung, deren Ergebnis SimilarityCalculator.reachesNWThreshold() ohne Aufbau der vollstndigen Matrix nachbildet.<br>
+	 * Diese Methode sowie die von ihr genutzten Methoden compare(char a, char b) und max(int a, int b, int c) sind bernommen aus dem GitHub-Repository des Forschungsprojektes
+	 * "Qualifikationsentwicklungsforschung" des Instituts fr Digital Humanities der Universitt zu Kln (siehe Link unten, zuletzt abgerufen
+	 * am 28.07.2019). Die Methoden sind unverndert mit der Ausnahme, dass sie statisch sind und der im dortigen Projekt als Feldvariable
+	 * existierende <br>
+	 * <code>int gap = -1</code> <br>
+	 * direkt in die Methode eingefgt wurde.<br>
+	 * Die Methode berechnet die Needleman-Wunsch-hnlichkeit der zwei bergebenen Strings.
+	 * @param s1
+	 * @param s2
+	 * @return needleman-wunsch-similarity
+	 * {@link} https://github.com/spinfo/quenfo/blob/master/src/main/java/quenfo/de/uni_koeln/spinfo/categorization/workflow/SimilarityCalculator.java
+	 */
+	private static int needlemanWunschSimilarity(String s1, String s2){
+
+			// eingefgte Methodenvariable [AO]:
+			int gap = -1;
+
+			char[] a = s1.toCharArray();
+			char[] b = s2.toCharArray();
+
+			int n = a.length;
+			int m = b.length;
+
+			int[][] d = new int[n + 1][m + 1];
+
+			d[0][0] = 0;
+			for (int i = 0; i <= n; i++) {
+				d[i][0] = -i;
+			}
+			for (int j = 0; j <= m; j++) {
+				d[0][j] = -j;
+			}
+
+			for (int i = 1; i <= n; i++) {
+				for (int j = 1; j <= m; j++) {
+					d[i][j] = max(d[i - 1][j - 1] + compare(a[i - 1], b[j - 1]), d[i][j - 1] + gap, d[i - 1][j] + gap);
+				}
+			}
+			return d[n][m];
+	}
+	private static int max(int a, int b, int c) {
+		int max = 0;
+		if (a > max)
+			max = a;
+		if (b > max)
+			max = b;
+		if (c > max)
+			max = c;
+		return max;
+	}
+	private static int compare(char a, char b) {
+		int match = 3;
+		int mismatch = 0;
+		if (a == b)
+			return match;
+		return mismatch;
+	}
+}
@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dataClasses.sentence.Sentence;
+import preprocessing.Preprocessor;
+
+/**
+ * Benchmarks fr die Normalisierung und Satzvorbereitung des Preprocessors.
+ * Eine Operation entspricht jeweils der Verarbeitung aller Satztexte der Fixture-Trainingsurkunden.
+ * @author Alina Ostrowski
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreprocessorBenchmark {
+
+	private Preprocessor pp;
+	private List<String> rawTexts;
+
+	@Setup
+	public void setUp(){
+		pp = BenchmarkFixtures.newPreprocessor();
+		rawTexts = BenchmarkFixtures.rawTexts(BenchmarkFixtures.loadTrainingDiplomas(pp), pp);
+	}
+
+	@Benchmark
+	public void normalizeLatinText(Blackhole bh){
+		for(String text : rawTexts){
+			bh.consume(Preprocessor.normalizeLatinText(text));
+		}
+	}
+
+	@Benchmark
+	public void prepareSentence(Blackhole bh){
+		for(String text : rawTexts){
+			Sentence sent = new Sentence(null, text);
+			pp.prepareSentence(sent);
+			bh.consume(sent.getTokens());
+		}
+	}
+}
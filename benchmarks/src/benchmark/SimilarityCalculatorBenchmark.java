@@ -0,0 +1,69 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import classification.SimilarityCalculator;
+import dataClasses.sentence.AbstractSentence;
+import preprocessing.Preprocessor;
+
+/**
+ * Benchmarks fr die Substring-Vergleiche des SimilarityCalculators. Eine Operation entspricht dem Abgleich
+ * aller Indikatoren aus diplomaticIndicators.txt mit allen Stzen der Fixture-Eingabeurkunden.
+ * @author Alina Ostrowski
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimilarityCalculatorBenchmark {
+
+	private SimilarityCalculator sc;
+	private List<String> indicators;
+	private List<String> texts;
+
+	@Setup
+	public void setUp(){
+		Preprocessor pp = BenchmarkFixtures.newPreprocessor();
+		sc = new SimilarityCalculator();
+		indicators = BenchmarkFixtures.normalizedIndicators();
+		texts = new ArrayList<>();
+		for(AbstractSentence sent : BenchmarkFixtures.sentencesOf(BenchmarkFixtures.loadInputDiplomas(pp))){
+			texts.add(sent.getText());
+		}
+	}
+
+	@Benchmark
+	public void similarityOfSubstring(Blackhole bh){
+		for(String text : texts){
+			for(String indicator : indicators){
+				bh.consume(sc.similarityOfSubstring(indicator, text));
+			}
+		}
+	}
+
+	@Benchmark
+	public void containsSimilarTokenSubstring(Blackhole bh){
+		for(String text : texts){
+			for(String indicator : indicators){
+				bh.consume(sc.containsSimilarTokenSubstring(indicator, text));
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import helpers.ReaderWriter;
+
+/**
+ * Prft, ob ReaderWriter.parseElements() fr die Elemente, die TrainingDiploma einliest, dieselben Knoten erzeugt wie
+ * ReaderWriter.parseFile(), d.h. ob der StAX-Parser Text, CDATA-Abschnitte, Kommentare und Verarbeitungsanweisungen genauso
+ * abbildet wie der DocumentBuilder. Geprft werden die Trainingsurkunden der Fixtures sowie die synthetische Urkunde
+ * benchmarks/fixtures/parserChecks/cdata.cei.xml. Bei einer Abweichung endet das Programm mit dem Exit-Code 1.<br>
+ * Start aus dem Projektordner: java -cp target/benchmarks.jar benchmark.StreamParserCheck
+ * @author Alina Ostrowski
+ *
+ */
+public class StreamParserCheck {
+
+	static final String parserCheckPath = "benchmarks/fixtures/parserChecks";
+
+	private static final String[] ELEMENT_NAMES = {"cei:lang_MOM", "cei:tenor"};
+
+	public static void main(String[] args) {
+		List<File> files = new ArrayList<>(BenchmarkFixtures.listCharters(BenchmarkFixtures.trainingPath));
+		files.addAll(BenchmarkFixtures.listCharters(parserCheckPath));
+
+		int mismatches = 0;
+		for(File file : files){
+			Document dom = ReaderWriter.parseFile(file);
+			Document streamed = ReaderWriter.parseElements(file, ELEMENT_NAMES);
+			if(dom == null || streamed == null){
+				System.out.println(file.getName()+": couldn't be parsed.");
+				mismatches++;
+				continue;
+			}
+			for(String name : ELEMENT_NAMES){
+				Node expected = dom.getElementsByTagName(name).item(0);
+				Node actual = streamed.getElementsByTagName(name).item(0);
+				if(expected == null ? actual != null : actual == null || !expected.isEqualNode(actual)){
+					System.out.println(file.getName()+": the element "+name+" differs:");
+					System.out.println("\tparseFile:     "+describe(expected));
+					System.out.println("\tparseElements: "+describe(actual));
+					mismatches++;
+				}
+			}
+		}
+
+		System.out.println("Compared "+files.size()+" files, "+mismatches+" mismatches.");
+		if(mismatches > 0){
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * @return Die Namen der Knoten im Teilbaum des bergebenen Knotens in Dokumentreihenfolge, Textknoten mit ihrem Inhalt.
+	 */
+	private static String describe(Node node) {
+		if(node == null){
+			return "null";
+		}
+		StringBuilder description = new StringBuilder(node.getNodeName());
+		if(node.getNodeType() != Node.ELEMENT_NODE){
+			description.append("[").append(node.getNodeValue()).append("]");
+		}
+		NodeList children = node.getChildNodes();
+		if(children.getLength() > 0){
+			description.append("(");
+			for(int i = 0; i < children.getLength(); i++){
+				if(i > 0) description.append(", ");
+				description.append(describe(children.item(i)));
+			}
+			description.append(")");
+		}
+		return description.toString();
+	}
+}
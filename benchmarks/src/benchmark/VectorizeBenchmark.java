@@ -0,0 +1,75 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dataClasses.diploma.TrainingDiploma;
+import dataClasses.sentence.AbstractSentence;
+import dataClasses.sentence.TrainingSentence;
+import preprocessing.LongIntHashMap;
+import preprocessing.Preprocessor;
+import preprocessing.VectorType;
+import preprocessing.Vocabulary;
+
+/**
+ * Benchmark fr Preprocessor.vectorize() mit allen Vektor-Typen, jeweils mit Tokens und mit Bigrammen.
+ * Das Vokabular wird aus den Fixture-Trainingsurkunden erzeugt, vektorisiert werden die Stze der Fixture-Eingabeurkunden.
+ * @author Alina Ostrowski
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VectorizeBenchmark {
+
+	@Param({"tfIdf", "count", "binary"})
+	public VectorType vectorType;
+
+	@Param({"false", "true"})
+	public boolean useBigrams;
+
+	private Preprocessor pp;
+	private List<AbstractSentence> sentences;
+	private Vocabulary vocabulary;
+
+	@Setup
+	public void setUp(){
+		pp = BenchmarkFixtures.newPreprocessor();
+
+		List<TrainingSentence> trainingSentences = new ArrayList<>();
+		for(TrainingDiploma dipl : BenchmarkFixtures.loadTrainingDiplomas(pp)){
+			trainingSentences.addAll(dipl.getSentences());
+		}
+		List<AbstractSentence> abstractTraining = new ArrayList<AbstractSentence>(trainingSentences);
+		pp.lemmaTokenizeSentences(abstractTraining);
+		pp.lemmatizedTokensToBigrams(abstractTraining);
+		LongIntHashMap totalTypeFrequencies = pp.createTypeFrequenciesMap(trainingSentences, useBigrams);
+		vocabulary = new Vocabulary(totalTypeFrequencies, trainingSentences.size());
+
+		sentences = BenchmarkFixtures.sentencesOf(BenchmarkFixtures.loadInputDiplomas(pp));
+		pp.lemmaTokenizeSentences(sentences);
+		pp.lemmatizedTokensToBigrams(sentences);
+	}
+
+	@Benchmark
+	public List<AbstractSentence> vectorize(){
+		pp.vectorize(sentences, useBigrams, vectorType, vocabulary);
+		return sentences;
+	}
+}
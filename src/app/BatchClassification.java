@@ -0,0 +1,265 @@
+package app;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+import classification.SimilarityCalculator;
+import dataClasses.diploma.Diploma;
+
+/**
+ * Batch-Modus des Programms, der ohne Rckfragen ber die Konsole alle bergebenen Eingabepfade klassifiziert, z.B. um
+ * die Klassifikation in automatisierten Ablufen zu starten. Die Pfade und Einstellungen werden als Argumente bergeben:
+ * <ul>
+ * <li>--input &lt;Pfad&gt;: Ein Ordner oder eine Datei, die klassifiziert werden soll. Kann mehrfach angegeben werden.
+ * 		Bei Ordnern wird die Ordnerstruktur unterhalb des Ordners in den Ausgabeordner bernommen.</li>
+ * <li>--output &lt;Ordner&gt;: Der Ordner, in dem die gelabelten XML-Dateien gespeichert werden (Standard: data/outputXMLdocs).</li>
+ * <li>--model &lt;Datei&gt;: Die Modell-Datei des Classifiers (Standard: data/classifierModel.bin). Existiert sie nicht,
+ * 		wird der Classifier mit den Trainingsurkunden trainiert und in dieser Datei gespeichert. Das Modell fr das Memory-Mapping
+ * 		(siehe MappedClassifierModel) liegt daneben in einer Datei, deren Endung durch .mapped ersetzt ist (siehe
+ * 		DiplomaAnalyzerApp.setModelPath()).</li>
+ * <li>--training &lt;Ordner&gt;: Der Ordner mit den Trainingsurkunden (Standard: data/testData). Ein unter --model gespeichertes
+ * 		Modell wird nur genutzt, wenn es aus den Urkunden dieses Ordners trainiert wurde, sonst wird neu trainiert (siehe ModelSources).</li>
+ * <li>--threads &lt;Anzahl&gt;: Die Anzahl der Threads, mit denen die Urkunden eingelesen werden, und zugleich die Anzahl der Threads,
+ * 		auf die der Abgleich der Indikatoren bei der Klassifikation verteilt wird (Standard: ein Thread pro Prozessorkern).</li>
+ * <li>--batch-size &lt;Anzahl&gt;: Die Anzahl der Urkunden, die gemeinsam klassifiziert werden (Standard: 64, siehe DiplomaStream).</li>
+ * <li>--skip-existing: Dateien, fr die im Ausgabeordner bereits eine gelabelte XML-Datei existiert, werden nicht erneut klassifiziert.</li>
+ * </ul>
+ * Der Classifier wird einmal geladen und fr alle Eingabepfade genutzt. Am Ende wird eine bersicht ber die Anzahl der
+ * klassifizierten Urkunden und Stze sowie die Laufzeit der einzelnen Schritte ausgegeben.
+ * @author Alina Ostrowski
+ *
+ */
+public class BatchClassification {
+
+	private List<String> inputPaths = new ArrayList<>();
+	private String outputPath = "data/outputXMLdocs";
+	private int batchSize = Math.max(1, Integer.getInteger("classifier.batchSize", 64));
+	private int threads = 0;
+	private boolean skipExisting = false;
+
+	// Statistik fr die abschlieende bersicht
+	private int diplomaCount;
+	private int sentenceCount;
+	private int skippedCount;
+	private int unusableCount;
+	private long modelTime;
+	private long loadingTime;
+	private long classificationTime;
+	private long writingTime;
+
+	public static void main(String[] args) {
+		BatchClassification batch = new BatchClassification();
+		if(!batch.parseArguments(args)){
+			printUsage();
+			System.exit(1);
+		}
+		if(!batch.run()){
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Liest die bergebenen Argumente ein.
+	 * @return false, wenn die Argumente ungltig sind; sonst true.
+	 */
+	private boolean parseArguments(String[] args) {
+		for(int i = 0; i < args.length; i++){
+			String arg = args[i];
+			if(arg.equals("--skip-existing")){
+				skipExisting = true;
+				continue;
+			}
+			if(i + 1 >= args.length){
+				System.err.println("Missing value for argument '"+arg+"'.");
+				return false;
+			}
+			String value = args[++i];
+			switch(arg){
+			case "--input":
+				inputPaths.add(value);
+				break;
+			case "--output":
+				outputPath = value;
+				break;
+			case "--model":
+				DiplomaAnalyzerApp.setModelPath(value);
+				break;
+			case "--training":
+				if(!new File(value).isDirectory()){
+					System.err.println("The training directory "+value+" doesn't exist.");
+					return false;
+				}
+				DiplomaAnalyzerApp.trainingPath = value;
+				break;
+			case "--threads":
+				threads = parsePositiveInt(arg, value);
+				if(threads == 0) return false;
+				break;
+			case "--batch-size":
+				batchSize = parsePositiveInt(arg, value);
+				if(batchSize == 0) return false;
+				break;
+			default:
+				System.err.println("Unknown argument '"+arg+"'.");
+				return false;
+			}
+		}
+		if(inputPaths.isEmpty()){
+			System.err.println("At least one input path must be given.");
+			return false;
+		}
+		return true;
+	}
+
+	private static int parsePositiveInt(String arg, String value) {
+		try {
+			int number = Integer.parseInt(value);
+			if(number > 0) return number;
+		} catch (NumberFormatException e) {
+			// wird unten gemeldet
+		}
+		System.err.println("The value of argument '"+arg+"' must be a positive number, but was '"+value+"'.");
+		return 0;
+	}
+
+	private static void printUsage() {
+		System.err.println("Usage: java app.BatchClassification --input <dir|file> [--input <dir|file> ...] [--output <dir>] [--model <file>]");
+		System.err.println("\t[--training <dir>] [--threads <n>] [--batch-size <n>] [--skip-existing]");
+		System.err.println("--threads sets the number of threads for reading the diplomas and for matching the diplomatic indicators.");
+	}
+
+	/**
+	 * Ldt den Classifier und klassifiziert alle Eingabepfade.
+	 * @return false, wenn ein Eingabepfad nicht existiert oder der Ausgabeordner nicht angelegt werden kann; sonst true.
+	 */
+	private boolean run() {
+		File outputDir = new File(outputPath);
+		if(!outputDir.isDirectory() && !outputDir.mkdirs()){
+			System.err.println("The output directory "+outputPath+" couldn't be created.");
+			return false;
+		}
+		for(String path : inputPaths){
+			if(!new File(path).exists()){
+				System.err.println("The input path "+path+" doesn't exist.");
+				return false;
+			}
+		}
+		// Der Abgleich der Indikatoren nutzt parallele Streams, die im ForkJoinPool des aufrufenden Threads laufen. Damit
+		// --threads auch fr die Klassifikation gilt, werden die Eingabepfade in einem eigenen Pool dieser Gre klassifiziert.
+		ForkJoinPool classificationPool = null;
+		if(threads > 0){
+			DiplomaAnalyzerApp.setLoaderThreads(threads);
+			classificationPool = new ForkJoinPool(threads);
+		}
+
+		long start = System.nanoTime();
+		System.out.println("***INITIALIZING CLASSIFIER***");
+		DiplomaAnalyzerApp.initializeClassifiers();
+		modelTime = System.nanoTime() - start;
+
+		for(String path : inputPaths){
+			if(classificationPool != null){
+				classificationPool.submit(() -> classifyPath(path)).join();
+			} else {
+				classifyPath(path);
+			}
+		}
+		if(classificationPool != null){
+			classificationPool.shutdown();
+		}
+		long totalTime = System.nanoTime() - start;
+
+		printSummary(totalTime);
+		return true;
+	}
+
+	/**
+	 * Klassifiziert alle Urkunden des bergebenen Pfades und speichert die gelabelten XML-Dateien im Ausgabeordner.
+	 */
+	private void classifyPath(String path) {
+		System.out.println();
+		System.out.println("***CLASSIFYING '"+path+"'***");
+		File input = new File(path);
+		List<File> files = new ArrayList<>();
+		String rootPath = null;
+		if(input.isDirectory()){
+			DiplomaAnalyzerApp.collectFiles(input, files);
+			rootPath = path;
+		} else if(DiplomaAnalyzerApp.correctFileType(input.getName())){
+			files.add(input);
+		}
+
+		if(skipExisting){
+			List<File> remaining = new ArrayList<>();
+			for(File file : files){
+				if(getOutputFile(file, rootPath).exists()){
+					skippedCount++;
+				} else {
+					remaining.add(file);
+				}
+			}
+			System.out.println("Skipped "+(files.size() - remaining.size())+" files that have already been classified.");
+			files = remaining;
+		}
+		System.out.println("Found "+files.size()+" files for classification.");
+		if(files.isEmpty()) return;
+
+		try(DiplomaStream stream = DiplomaAnalyzerApp.streamDiplomas(files, batchSize)){
+			while(stream.hasNext()){
+				List<Diploma> diplomas = stream.next();
+				long start = System.nanoTime();
+				for(Diploma dipl : diplomas){
+					dipl.generateLabeledXML(outputPath, rootPath);
+					sentenceCount += dipl.getSentCount();
+				}
+				writingTime += System.nanoTime() - start;
+				diplomaCount += diplomas.size();
+			}
+			unusableCount += stream.getUnusableCount();
+			loadingTime += stream.getLoadingTime();
+			classificationTime += stream.getClassificationTime();
+		}
+	}
+
+	/**
+	 * Gibt die Datei zurck, unter der Diploma.generateLabeledXML() die gelabelte XML-Datei der bergebenen Datei speichert.
+	 * @param file Die Eingabedatei.
+	 * @param rootPath Der Eingabeordner, dessen Ordnerstruktur bernommen wird, oder null.
+	 */
+	private File getOutputFile(File file, String rootPath) {
+		File dir = new File(outputPath);
+		if(rootPath != null){
+			Path relativeDir = new File(rootPath).toPath().relativize(file.getParentFile().toPath());
+			dir = new File(dir, relativeDir.toString());
+		}
+		return new File(dir, file.getName());
+	}
+
+	private void printSummary(long totalTime) {
+		double seconds = totalTime / 1e9;
+		System.out.println();
+		System.out.println("***SUMMARY***");
+		System.out.println("Classified "+diplomaCount+" diplomas with "+sentenceCount+" sentences in "+format(totalTime)+" s.");
+		System.out.println("Skipped "+skippedCount+" already classified files and "+unusableCount+" unusable files.");
+		System.out.println(String.format(Locale.ROOT, "Throughput: %.1f diplomas/s, %.1f sentences/s", diplomaCount / seconds, sentenceCount / seconds));
+		System.out.println("Wall time per stage (s):");
+		System.out.println("\tloading/training the classifier: "+format(modelTime));
+		System.out.println("\treading diplomas (not overlapping with classification): "+format(loadingTime));
+		System.out.println("\tclassification: "+format(classificationTime));
+		System.out.println("\twriting labeled XML files: "+format(writingTime));
+		SimilarityCalculator sc = DiplomaAnalyzerApp.getDiplomaticClassifier().getSimilarityCalculator();
+		System.out.println("Similarity cache: "+sc.getCache());
+		System.out.println("Token pairs rejected by the similarity prefilter: "+sc.getPrefilterRejections());
+		if(sc.getClosure() != null){
+			System.out.println("Fuzzy match closure: "+sc.getClosure());
+		}
+	}
+
+	private static String format(long nanos) {
+		return String.format(Locale.ROOT, "%.2f", nanos / 1e9);
+	}
+}
@@ -0,0 +1,468 @@
+package app;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.w3c.dom.Document;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import classification.SimilarityCache;
+import classification.SimilarityCalculator;
+import dataClasses.diploma.AbstractDiploma;
+import dataClasses.diploma.Diploma;
+import helpers.ReaderWriter;
+import preprocessing.SymbolTable;
+
+/**
+ * Klassifikations-Service, der den Classifier einmal ldt und dann Urkunden ber HTTP entgegennimmt, so dass nicht fr
+ * jede Klassifikation das Programm gestartet und der Classifier geladen werden muss. Der Service bietet folgende Endpunkte:
+ * <ul>
+ * <li>POST /classify: Erwartet eine CEI-XML-Datei als Body und gibt die gelabelte XML zurck (siehe Diploma.createLabeledXML()).
+ * 		Der Name der Urkunde kann im Header X-File-Name bergeben werden. Mit dem Content-Type multipart/form-data knnen mehrere
+ * 		Urkunden auf einmal bergeben werden, die Antwort enthlt dann als multipart/mixed fr jede Urkunde einen Teil mit der gelabelten
+ * 		XML oder einer Fehlermeldung in derselben Reihenfolge.</li>
+ * <li>GET /health: Gibt den Status des Services zurck.</li>
+ * <li>GET /metrics: Gibt die Anzahl der Anfragen und Urkunden, die Statistik des SimilarityCache, die Gre der SymbolTable sowie ein
+ * 		Histogramm der Antwortzeiten von /classify zurck.</li>
+ * </ul>
+ * Eine vorhandene Modell-Datei wird nur genutzt, wenn sie aus den Trainingsurkunden unter --training (Standard: data/testData) und
+ * der aktuellen Indikatordatei trainiert wurde, sonst wird der Classifier vor dem Start neu trainiert (siehe ModelSources).<br>
+ * Die XML der Anfragen darf keine DOCTYPE-Deklaration enthalten (400), und ein Body darf hchstens MAX_REQUEST_SIZE Bytes gro
+ * sein (413).<br>
+ * Die Anfragen werden von einem Thread-Pool bearbeitet, untersttzt die Java-Laufzeitumgebung virtuelle Threads, wird fr jede
+ * Anfrage ein virtueller Thread genutzt. Einlesen und Ausgeben der Urkunden geschieht parallel, die Klassifikation selbst
+ * jedoch nacheinander (classifierLock), da der Preprocessor die Lemmata aller Anfragen in einer gemeinsamen Map speichert. Gleichzeitige
+ * Anfragen warten also aufeinander, und die Antwortzeit wchst mit der Anzahl der wartenden Anfragen.<br>
+ * Jede Wortform, die in einer Anfrage vorkommt, bleibt fr die gesamte Laufzeit im Speicher: in der SymbolTable, in den lemmaPairs
+ * des Preprocessors und in der FuzzyMatchClosure. Damit Anfragen mit immer neuen Wortformen den Speicher nicht unbegrenzt fllen,
+ * drfen sie hchstens MAX_NEW_WORDFORMS Wortformen und Lemmata zur SymbolTable hinzufgen. Ist diese Grenze erreicht, beantwortet
+ * der Service /classify und /health mit 503 und muss neu gestartet werden. Die FuzzyMatchClosure speichert nur Types bis zu dieser
+ * Grenze, und die neu lemmatisierten Wortformen werden nicht im LemmaCache gespeichert, damit die Cache-Datei nicht mit den
+ * Anfragen wchst.
+ * @author Alina Ostrowski
+ *
+ */
+public class ClassificationService {
+
+	private static final Pattern BOUNDARY = Pattern.compile("boundary=(?:\"([^\"]+)\"|([^;\\s]+))");
+	private static final Pattern FILE_NAME = Pattern.compile("filename=\"([^\"]*)\"");
+
+	/**
+	 * Die maximale Gre eines Request-Bodys in Bytes, berschreibbar ber die System-Property service.maxRequestSize (Standard: 64 MB).
+	 */
+	static final int MAX_REQUEST_SIZE = Integer.getInteger("service.maxRequestSize", 64 * 1024 * 1024);
+
+	/**
+	 * Die Anzahl der Wortformen und Lemmata, die die Anfragen hchstens zur SymbolTable hinzufgen drfen, berschreibbar ber die
+	 * System-Property service.maxNewWordforms (Standard: 1.000.000).
+	 */
+	static final int MAX_NEW_WORDFORMS = Integer.getInteger("service.maxNewWordforms", 1000000);
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Object classifierLock = new Object();
+
+	/**
+	 * Die Gre der SymbolTable, ab der keine Anfragen mehr angenommen werden
+	 */
+	private final int maxSymbols;
+
+	// Statistik fr /health und /metrics
+	private final long startTime = System.currentTimeMillis();
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	private final AtomicLong diplomaCount = new AtomicLong();
+	private final AtomicLong failedDiplomaCount = new AtomicLong();
+
+	public static void main(String[] args) {
+		int port = 8080;
+		int threads = Runtime.getRuntime().availableProcessors();
+		for(int i = 0; i + 1 < args.length; i += 2){
+			switch(args[i]){
+			case "--port":
+				port = Integer.parseInt(args[i + 1]);
+				break;
+			case "--threads":
+				threads = Integer.parseInt(args[i + 1]);
+				break;
+			case "--model":
+				DiplomaAnalyzerApp.setModelPath(args[i + 1]);
+				break;
+			case "--training":
+				if(!new File(args[i + 1]).isDirectory()){
+					System.err.println("The training directory "+args[i + 1]+" doesn't exist.");
+					System.exit(1);
+				}
+				DiplomaAnalyzerApp.trainingPath = args[i + 1];
+				break;
+			default:
+				System.err.println("Unknown argument '"+args[i]+"'.");
+				System.err.println("Usage: java app.ClassificationService [--port <port>] [--threads <n>] [--model <file>] [--training <dir>]");
+				System.exit(1);
+			}
+		}
+
+		System.out.println("***INITIALIZING CLASSIFIER***");
+		DiplomaAnalyzerApp.initializeClassifiers();
+		try {
+			ClassificationService service = new ClassificationService(port, threads);
+			Runtime.getRuntime().addShutdownHook(new Thread(service::stop));
+			service.start();
+			System.out.println("The classification service is listening on port "+port+".");
+		} catch (IOException e) {
+			System.out.println("The classification service couldn't be started on port "+port+".");
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Erstellt den Service. Die Classifier mssen bereits durch DiplomaAnalyzerApp.initializeClassifiers() geladen worden sein.
+	 * Ab hier werden neue Lemmata nicht mehr im LemmaCache gespeichert und die FuzzyMatchClosure auf MAX_NEW_WORDFORMS neue
+	 * Types begrenzt.
+	 * @param port Der Port, auf dem der Service Anfragen entgegennimmt.
+	 * @param threads Die Anzahl der Threads, falls keine virtuellen Threads untersttzt werden.
+	 * @throws IOException Wenn der Port nicht genutzt werden kann.
+	 */
+	public ClassificationService(int port, int threads) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(port), 0);
+		executor = createExecutor(Math.max(1, threads));
+		server.setExecutor(executor);
+		server.createContext("/classify", this::handleClassify);
+		server.createContext("/health", this::handleHealth);
+		server.createContext("/metrics", this::handleMetrics);
+
+		maxSymbols = (int) Math.min(Integer.MAX_VALUE, (long) SymbolTable.getShared().size() + Math.max(0, MAX_NEW_WORDFORMS));
+		DiplomaAnalyzerApp.getPreprocessor().setPersistNewLemmata(false);
+		SimilarityCalculator sc = DiplomaAnalyzerApp.getDiplomaticClassifier().getSimilarityCalculator();
+		if(sc.getClosure() != null){
+			sc.getClosure().setMaxTypes(maxSymbols);
+		}
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	public void stop() {
+		server.stop(1);
+		executor.shutdown();
+	}
+
+	/**
+	 * Erstellt einen Executor, der fr jede Anfrage einen virtuellen Thread startet. Wird das von der Java-Laufzeitumgebung
+	 * nicht untersttzt, wird ein Thread-Pool mit der bergebenen Anzahl an Threads erstellt.
+	 */
+	private static ExecutorService createExecutor(int threads) {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(threads);
+		}
+	}
+
+	private void handleClassify(HttpExchange exchange) throws IOException {
+		long start = System.nanoTime();
+		try {
+			if(!exchange.getRequestMethod().equals("POST")){
+				sendText(exchange, 405, "Only POST requests are supported.");
+				return;
+			}
+			if(isFull()){
+				sendText(exchange, 503, "The service has reached its limit of "+MAX_NEW_WORDFORMS+" new wordforms and must be restarted.");
+				return;
+			}
+			byte[] body = readBody(exchange.getRequestBody(), MAX_REQUEST_SIZE);
+			if(body == null){
+				sendText(exchange, 413, "The request body must not be larger than "+MAX_REQUEST_SIZE+" bytes.");
+				return;
+			}
+			String boundary = getBoundary(exchange.getRequestHeaders().getFirst("Content-Type"));
+
+			// eine einzelne Urkunde
+			if(boundary == null){
+				String name = exchange.getRequestHeaders().getFirst("X-File-Name");
+				ClassifiedDiploma result = classify(Collections.singletonList(new ClassifiedDiploma(name != null ? name : "diploma.cei.xml", body))).get(0);
+				if(result.error != null){
+					sendText(exchange, result.status, result.error);
+				} else {
+					send(exchange, 200, "application/xml", result.xml);
+				}
+				return;
+			}
+
+			// mehrere Urkunden als multipart/form-data
+			List<ClassifiedDiploma> diplomas = parseMultipart(body, boundary);
+			if(diplomas.isEmpty()){
+				sendText(exchange, 400, "The multipart body contains no diplomas.");
+				return;
+			}
+			String responseBoundary = "diploma-"+UUID.randomUUID();
+			send(exchange, 200, "multipart/mixed; boundary="+responseBoundary, toMultipart(classify(diplomas), responseBoundary));
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+			sendText(exchange, 500, "The diplomas couldn't be classified: "+e);
+		} finally {
+			latencies.record(System.nanoTime() - start);
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Liest die bergebenen Urkunden ein, klassifiziert alle nutzbaren Urkunden gemeinsam und erzeugt deren gelabelte XML.
+	 * @param diplomas Die Urkunden mit Namen und XML.
+	 * @return Die bergebenen Objekte, ergnzt um die gelabelte XML oder eine Fehlermeldung.
+	 */
+	private List<ClassifiedDiploma> classify(List<ClassifiedDiploma> diplomas) {
+		List<Diploma> usable = new ArrayList<>();
+		List<ClassifiedDiploma> usableResults = new ArrayList<>();
+		for(ClassifiedDiploma result : diplomas){
+			Document xml = ReaderWriter.parseStream(new ByteArrayInputStream(result.xml), result.name);
+			if(xml == null){
+				result.fail(400, "The diploma "+result.name+" isn't well-formed XML or contains a DOCTYPE declaration, which isn't allowed.");
+				continue;
+			}
+			Diploma dipl = new Diploma(result.name, xml, DiplomaAnalyzerApp.getPreprocessor());
+			if(!dipl.useDiploma()){
+				result.fail(422, "The diploma "+result.name+" can't be classified. It must be written in Latin (cei:lang_MOM) and contain a tenor of at least 500 characters.");
+				continue;
+			}
+			usable.add(dipl);
+			usableResults.add(result);
+		}
+
+		if(!usable.isEmpty()){
+			synchronized(classifierLock){
+				DiplomaAnalyzerApp.classify(new ArrayList<AbstractDiploma>(usable), DiplomaAnalyzerApp.getDiplomaticClassifier(), DiplomaAnalyzerApp.getProbabilisticClassifier());
+			}
+		}
+
+		for(int i = 0; i < usable.size(); i++){
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			if(ReaderWriter.writeXML(usable.get(i).createLabeledXML(), out)){
+				usableResults.get(i).xml = out.toByteArray();
+			} else {
+				usableResults.get(i).fail(500, "The labeled XML of "+usableResults.get(i).name+" couldn't be written.");
+			}
+		}
+		diplomaCount.addAndGet(usable.size());
+		failedDiplomaCount.addAndGet(diplomas.size() - usable.size());
+		return diplomas;
+	}
+
+	private void handleHealth(HttpExchange exchange) throws IOException {
+		try {
+			long uptime = (System.currentTimeMillis() - startTime) / 1000;
+			boolean full = isFull();
+			sendText(exchange, full ? 503 : 200, "status: "+(full ? "FULL" : "UP")+"\nuptime_seconds: "+uptime+"\nclassified_diplomas: "+diplomaCount.get()+"\n");
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void handleMetrics(HttpExchange exchange) throws IOException {
+		try {
+			StringBuilder metrics = new StringBuilder();
+			metrics.append("classify_diplomas_total ").append(diplomaCount.get()).append('\n');
+			metrics.append("classify_failed_diplomas_total ").append(failedDiplomaCount.get()).append('\n');
+			metrics.append("symbol_table_size ").append(SymbolTable.getShared().size()).append('\n');
+			metrics.append("symbol_table_limit ").append(maxSymbols).append('\n');
+			SimilarityCalculator sc = DiplomaAnalyzerApp.getDiplomaticClassifier().getSimilarityCalculator();
+			SimilarityCache cache = sc.getCache();
+			metrics.append("similarity_prefilter_rejections_total ").append(sc.getPrefilterRejections()).append('\n');
+			metrics.append("similarity_cache_hits_total ").append(cache.getHits()).append('\n');
+			metrics.append("similarity_cache_misses_total ").append(cache.getMisses()).append('\n');
+			metrics.append("similarity_cache_evictions_total ").append(cache.getEvictions()).append('\n');
+			metrics.append("similarity_cache_size ").append(cache.size()).append('\n');
+			if(sc.getClosure() != null){
+				metrics.append("fuzzy_closure_types ").append(sc.getClosure().getTypeCount()).append('\n');
+			}
+			latencies.appendTo(metrics, "classify_latency_ms");
+			sendText(exchange, 200, metrics.toString());
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * @return true, wenn die Anfragen bereits MAX_NEW_WORDFORMS Wortformen und Lemmata zur SymbolTable hinzugefgt haben.
+	 */
+	private boolean isFull() {
+		return SymbolTable.getShared().size() >= maxSymbols;
+	}
+
+	/**
+	 * Liest die Urkunden aus einem multipart/form-data-Body aus. Der Name einer Urkunde ist der filename ihres Teils.
+	 */
+	private static List<ClassifiedDiploma> parseMultipart(byte[] body, String boundary) {
+		List<ClassifiedDiploma> diplomas = new ArrayList<>();
+		byte[] delimiter = ("--"+boundary).getBytes(StandardCharsets.ISO_8859_1);
+		int position = indexOf(body, delimiter, 0);
+		while(position >= 0){
+			int partStart = position + delimiter.length;
+			// "--" nach dem Delimiter markiert das Ende des Bodys
+			if(partStart + 1 < body.length && body[partStart] == '-' && body[partStart + 1] == '-') break;
+			int next = indexOf(body, delimiter, partStart);
+			if(next < 0) break;
+			int headerEnd = indexOf(body, "\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1), partStart);
+			if(headerEnd >= 0 && headerEnd < next){
+				String headers = new String(body, partStart, headerEnd - partStart, StandardCharsets.ISO_8859_1);
+				Matcher fileName = FILE_NAME.matcher(headers);
+				String name = fileName.find() ? fileName.group(1) : "diploma"+(diplomas.size() + 1)+".cei.xml";
+				// der Zeilenumbruch vor dem nchsten Delimiter gehrt nicht zum Inhalt
+				int contentEnd = Math.max(headerEnd + 4, next - 2);
+				byte[] content = new byte[contentEnd - headerEnd - 4];
+				System.arraycopy(body, headerEnd + 4, content, 0, content.length);
+				diplomas.add(new ClassifiedDiploma(name, content));
+			}
+			position = next;
+		}
+		return diplomas;
+	}
+
+	private static byte[] toMultipart(List<ClassifiedDiploma> diplomas, String boundary) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for(ClassifiedDiploma dipl : diplomas){
+			StringBuilder headers = new StringBuilder();
+			headers.append("--").append(boundary).append("\r\n");
+			if(dipl.error != null){
+				headers.append("Content-Type: text/plain; charset=UTF-8\r\n");
+				headers.append("X-Status: ").append(dipl.status).append("\r\n");
+			} else {
+				headers.append("Content-Type: application/xml\r\n");
+			}
+			// der Name stammt vom Client und darf den Header weder beenden noch den filename-Wert verlassen
+			String fileName = dipl.name.replaceAll("[\r\n\"]", "");
+			headers.append("Content-Disposition: attachment; filename=\"").append(fileName).append("\"\r\n\r\n");
+			out.write(headers.toString().getBytes(StandardCharsets.UTF_8));
+			out.write(dipl.error != null ? dipl.error.getBytes(StandardCharsets.UTF_8) : dipl.xml);
+			out.write("\r\n".getBytes(StandardCharsets.ISO_8859_1));
+		}
+		out.write(("--"+boundary+"--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+		return out.toByteArray();
+	}
+
+	private static String getBoundary(String contentType) {
+		if(contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) return null;
+		Matcher matcher = BOUNDARY.matcher(contentType);
+		if(!matcher.find()) return null;
+		return matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+	}
+
+	private static int indexOf(byte[] array, byte[] target, int from) {
+		outer: for(int i = from; i <= array.length - target.length; i++){
+			for(int j = 0; j < target.length; j++){
+				if(array[i + j] != target[j]) continue outer;
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Liest den Body einer Anfrage, bricht aber ab, sobald er mehr als maxSize Bytes enthlt.
+	 * @return Den Body oder null, falls er grer als maxSize ist.
+	 */
+	private static byte[] readBody(InputStream in, int maxSize) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while((read = in.read(buffer)) > 0){
+			if(out.size() + read > maxSize){
+				return null;
+			}
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+		send(exchange, status, "text/plain; charset=UTF-8", text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, body.length);
+		try(OutputStream out = exchange.getResponseBody()){
+			out.write(body);
+		}
+	}
+
+	/**
+	 * Eine zu klassifizierende Urkunde einer Anfrage. Nach der Klassifikation enthlt xml die gelabelte XML, falls die
+	 * Urkunde nicht klassifiziert werden konnte, stattdessen error und status eine Fehlermeldung und den HTTP-Status.
+	 */
+	private static class ClassifiedDiploma {
+		private final String name;
+		private byte[] xml;
+		private String error;
+		private int status = 200;
+
+		private ClassifiedDiploma(String name, byte[] xml) {
+			this.name = name;
+			this.xml = xml;
+		}
+
+		private void fail(int status, String error) {
+			this.status = status;
+			this.error = error;
+			this.xml = null;
+		}
+	}
+
+	/**
+	 * Histogramm der Antwortzeiten in Millisekunden mit festen Bucket-Grenzen. Kann von mehreren Threads gleichzeitig
+	 * aktualisiert werden.
+	 */
+	private static class LatencyHistogram {
+		private static final long[] BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+		private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MS.length + 1);
+		private final AtomicLong sumNanos = new AtomicLong();
+
+		private void record(long nanos) {
+			double ms = nanos / 1e6;
+			int bucket = 0;
+			while(bucket < BOUNDS_MS.length && ms > BOUNDS_MS[bucket]){
+				bucket++;
+			}
+			counts.incrementAndGet(bucket);
+			sumNanos.addAndGet(nanos);
+		}
+
+		/**
+		 * Hngt das Histogramm im Textformat von Prometheus an, d.h. mit kumulierten Buckets.
+		 */
+		private void appendTo(StringBuilder out, String name) {
+			long cumulative = 0;
+			for(int i = 0; i < BOUNDS_MS.length; i++){
+				cumulative += counts.get(i);
+				out.append(name).append("_bucket{le=\"").append(BOUNDS_MS[i]).append("\"} ").append(cumulative).append('\n');
+			}
+			cumulative += counts.get(BOUNDS_MS.length);
+			out.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+			out.append(name).append("_count ").append(cumulative).append('\n');
+			out.append(name).append("_sum ").append(String.format(Locale.ROOT, "%.3f", sumNanos.get() / 1e6)).append('\n');
+		}
+	}
+}
@@ -5,13 +5,21 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import classification.ClassifierModel;
 import classification.DiplomaticClassifier;
+import classification.MappedClassifierModel;
 import classification.ProbabilisticClassifier;
 
 import config.ClassificationConfig;
 import config.Milestones;
+import config.ModelSources;
 import preprocessing.Preprocessor;
 
 import dataClasses.diploma.AbstractDiploma;
@@ -39,15 +47,34 @@ public class DiplomaAnalyzerApp {
 	static String abbreviationPath = "src/config/txts/abbreviations.txt";
 	static String capitalLetterPath = "src/config/txts/capitalLetterWords.txt";
 	static String paranthesisPath = "src/config/txts/paranthesisAnnotations.txt";
+	static String lemmaCachePath = "data/lemmaCache.bin";
+	static String modelPath = "data/classifierModel.bin";
+	static String mappedModelPath = "data/classifierModel.mapped";
 	
 	private static ClassificationConfig cc = new ClassificationConfig();
 	private static Preprocessor pp;
 	private static ProbabilisticClassifier pc;
 	private static DiplomaticClassifier dc;
 	private static Evaluation ev;
+	private static ForkJoinPool loaderPool;
+	private static int loaderThreads = Integer.getInteger("loader.threads", Runtime.getRuntime().availableProcessors());
 	
+	/**
+	 * Startet das Programm im interaktiven Modus. Werden Argumente bergeben, wird stattdessen ohne Rckfragen
+	 * die Klassifikation im Batch-Modus gestartet (siehe BatchClassification) bzw. mit dem ersten Argument --serve
+	 * der Klassifikations-Service (siehe ClassificationService).
+	 */
 	public static void main(String[] args) {
 
+		if(args.length > 0 && args[0].equals("--serve")){
+			ClassificationService.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if(args.length > 0){
+			BatchClassification.main(args);
+			return;
+		}
+
 		try(BufferedReader br = new BufferedReader(new InputStreamReader(System.in))){
 			
 			System.out.println("---!WELCOME!---");
@@ -70,16 +97,7 @@ public class DiplomaAnalyzerApp {
 			} else{
 				System.out.println("You chose classification. Please wait while the training data is initialized.");
 				System.out.println();
-				pp = new Preprocessor(resolverPath, abbreviationPath, capitalLetterPath, paranthesisPath);
-				System.out.println("***INITIALIZING TRAINING DIPLOMAS***");
-				List<TrainingDiploma> trainingData = initializeTrainingDiplomas(trainingPath, pp);
-				System.out.println("Found "+trainingData.size()+" diplomas for training.");
-				System.out.println();
-				
-				pc = new ProbabilisticClassifier(pp, trainingData, cc.getUseBigramsInsteadOfTokens(), cc.getVectorType());
-				
-				Milestones ms = new Milestones(trainingData, cc.getSequProbsTolerance());
-				dc = new DiplomaticClassifier(indicatorPath, ms);
+				initializeClassifiers();
 	
 				System.out.println();
 				System.out.println("The classifier is now ready for classification. You may choose between two modes:");
@@ -128,51 +146,201 @@ public class DiplomaAnalyzerApp {
 	}
 
 	/**
-	 * Klassifiziert die Dateien des bergebenen Pfades und erzeugt gelabelte XML-Dateien.
+	 * Erstellt den Preprocessor und ldt die Classifier aus der Modell-Datei bzw. trainiert sie, falls kein passendes
+	 * Modell gespeichert ist.
+	 */
+	static void initializeClassifiers() {
+		pp = new Preprocessor(resolverPath, abbreviationPath, capitalLetterPath, paranthesisPath, lemmaCachePath);
+		if(!loadClassifiers()){
+			trainClassifiers();
+		}
+	}
+
+	/**
+	 * Ldt die Classifier aus der unter modelPath gespeicherten Modell-Datei, sofern diese existiert, mit der aktuellen
+	 * ClassificationConfig trainiert wurde und die Trainingsurkunden unter trainingPath sowie die Indikatordatei seit dem
+	 * Training unverndert sind (siehe ModelSources). Beide Modell-Dateien werden gleich geprft, so dass das gemappte Modell,
+	 * das die Indikatoren aus der Indikatordatei liest, dieselben Indikatoren nutzt wie das in der Modell-Datei gespeicherte.
+	 * @return true, wenn die Classifier geladen wurden, false, wenn sie neu trainiert werden mssen.
+	 */
+	private static boolean loadClassifiers() {
+		if(ProbabilisticClassifier.isWekaCompatibilityModeEnabled()){
+			return false;
+		}
+		ModelSources sources = ModelSources.of(trainingPath, indicatorPath);
+		if(sources.getTrainingFingerprint() == ModelSources.UNKNOWN){
+			System.out.println("The training directory "+trainingPath+" doesn't exist. A saved classifier model is used without checking its training diplomas.");
+		}
+		if(Boolean.getBoolean("classifier.mapped") && loadMappedClassifiers(sources)){
+			return true;
+		}
+		if(!new File(modelPath).exists()){
+			return false;
+		}
+		try {
+			ClassifierModel model = ClassifierModel.load(modelPath, pp);
+			if(!model.isTrainedWith(cc)){
+				System.out.println("The saved classifier model "+modelPath+" was trained with another configuration. The classifier is trained again.");
+				return false;
+			}
+			if(!model.getSources().matches(sources)){
+				System.out.println("The training diplomas in "+trainingPath+" or the indicators in "+indicatorPath+" have changed since the saved classifier model "+modelPath+" was trained. The classifier is trained again.");
+				return false;
+			}
+			pc = model.getProbabilisticClassifier();
+			dc = model.getDiplomaticClassifier();
+			System.out.println("Loaded the trained classifier model from "+modelPath+". Delete this file to train the classifier again.");
+			return true;
+		} catch (IOException e) {
+			System.out.println("The saved classifier model "+modelPath+" couldn't be read. The classifier is trained again.");
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Erstellt die Classifier aus der unter mappedModelPath gespeicherten Modell-Datei, die dafr per Memory-Mapping
+	 * eingebunden wird (siehe MappedClassifierModel). So teilen sich mehrere gleichzeitig laufende Programminstanzen eine
+	 * Kopie des Modells.
+	 * @param sources Die Fingerabdrcke der aktuellen Trainingsurkunden und Indikatordatei.
+	 * @return true, wenn die Classifier erstellt wurden.
+	 */
+	private static boolean loadMappedClassifiers(ModelSources sources) {
+		if(!new File(mappedModelPath).exists()){
+			return false;
+		}
+		try {
+			MappedClassifierModel model = new MappedClassifierModel(mappedModelPath);
+			if(!model.isTrainedWith(cc)){
+				System.out.println("The mapped classifier model "+mappedModelPath+" was trained with another configuration and is not used.");
+				return false;
+			}
+			if(!model.getSources().matches(sources)){
+				System.out.println("The training diplomas or the indicators have changed since the mapped classifier model "+mappedModelPath+" was trained. It is not used.");
+				return false;
+			}
+			pc = model.createProbabilisticClassifier(pp);
+			dc = model.createDiplomaticClassifier(indicatorPath);
+			System.out.println("Mapped the trained classifier model "+mappedModelPath+".");
+			return true;
+		} catch (IOException e) {
+			System.out.println("The mapped classifier model "+mappedModelPath+" couldn't be read and is not used.");
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Trainiert die Classifier mit den Trainingsurkunden und speichert sie als Modell-Dateien unter modelPath und
+	 * mappedModelPath, so dass sie beim nchsten Programmstart nicht erneut trainiert werden mssen.
+	 */
+	private static void trainClassifiers() {
+		System.out.println("***INITIALIZING TRAINING DIPLOMAS***");
+		// vor dem Einlesen, damit whrend des Trainings genderte Dateien beim nchsten Start erkannt werden
+		ModelSources sources = ModelSources.of(trainingPath, indicatorPath);
+		List<TrainingDiploma> trainingData = initializeTrainingDiplomas(trainingPath, pp);
+		System.out.println("Found "+trainingData.size()+" diplomas for training.");
+		System.out.println();
+		
+		pc = new ProbabilisticClassifier(pp, trainingData, cc.getUseBigramsInsteadOfTokens(), cc.getVectorType());
+		
+		Milestones ms = new Milestones(trainingData, cc.getSequProbsTolerance());
+		dc = new DiplomaticClassifier(indicatorPath, ms);
+
+		if(pc.usesWeka()) return;
+		try {
+			ClassifierModel model = new ClassifierModel(pc, dc, cc, sources);
+			model.save(modelPath);
+			MappedClassifierModel.write(mappedModelPath, model);
+			System.out.println("Saved the trained classifier model to "+modelPath+" and "+mappedModelPath+".");
+		} catch (IOException e) {
+			System.out.println("The trained classifier model couldn't be saved to "+modelPath+".");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Klassifiziert die Dateien des bergebenen Pfades und erzeugt gelabelte XML-Dateien. Die Urkunden werden dabei paketweise
+	 * eingelesen, klassifiziert und ausgegeben (siehe DiplomaStream), so dass der Speicherbedarf fr die Urkunden nicht mit der Anzahl
+	 * der Dateien wchst; nur die Daten pro Wortform (SymbolTable, Lemmata, FuzzyMatchClosure) wachsen mit der Anzahl verschiedener
+	 * Wortformen. Die Paketgre kann ber die System-Property classifier.batchSize festgelegt werden.
 	 * @param path Der Pfad, unter dem sich die zu klassifizierende/n Datei/en befindet/n.
 	 * @param usePathAsRootDir Soll bei der Erstellung der neuen XML-Dateien die bergeordnete Ordnerstruktur einer Ursprungsdatei bernommen werden?
 	 */
 	private static void startApp(String path, boolean usePathAsRootDir) {
 		System.out.println("***INITIALIZING CLASSIFICATION DIPLOMAS***");
-		List<Diploma> diplomas = new ArrayList<>();
+		List<File> files = new ArrayList<>();
 		File f = new File(path);
 		if(!f.exists()){
 			System.err.println("The path you entered is invalid!");
 			return;
 		}
 		if(f.isDirectory()){
-			diplomas = initializeDiplomas(path, pp);
+			collectFiles(f, files);
 		} else{
 			String fileName = f.getName();
 			if(!correctFileType(fileName)){
 				return;
 			}
-			Diploma dipl = new Diploma(f.getName(), f, pp);
-			diplomas.add(dipl);
+			files.add(f);
+		}
+		if(files.isEmpty()){
+			checkSuccess(new ArrayList<AbstractDiploma>());
+			return;
 		}
-		if(!checkSuccess(new ArrayList<AbstractDiploma>(diplomas))) return;
-		System.out.println("Found "+diplomas.size()+" diplomas for classification.");
+		System.out.println("Found "+files.size()+" files for classification.");
 		System.out.println();
 
 		System.out.println("***STARTING CLASSIFICATION***");
 		System.out.println();
-		classify(new ArrayList<AbstractDiploma>(diplomas), dc, pc);
-		System.out.println();
-
-		System.out.println("DIPLOMA_ANALYZER_APP: Generating new labeled XML files for classified diplomas...");
-		System.out.println();
 		String rootPath = null;
 		if(usePathAsRootDir){
 			rootPath = path;
 		}
-		for(Diploma dipl : diplomas){
-			dipl.generateLabeledXML(newPath, rootPath);
+		int batchSize = Math.max(1, Integer.getInteger("classifier.batchSize", 64));
+		int diplomaCount = 0;
+		try(DiplomaStream stream = streamDiplomas(files, batchSize)){
+			while(stream.hasNext()){
+				List<Diploma> diplomas = stream.next();
+				System.out.println();
+				System.out.println("DIPLOMA_ANALYZER_APP: Generating new labeled XML files for classified diplomas...");
+				System.out.println();
+				for(Diploma dipl : diplomas){
+					dipl.generateLabeledXML(newPath, rootPath);
+				}
+				diplomaCount += diplomas.size();
+			}
+		}
+		if(diplomaCount == 0){
+			checkSuccess(new ArrayList<AbstractDiploma>());
+			return;
 		}
 		System.out.println();
-		System.out.println("DIPLOMA_ANALYZER_APP: Finished classifying for path '"+path+"'");
+		System.out.println("DIPLOMA_ANALYZER_APP: Finished classifying "+diplomaCount+" diplomas for path '"+path+"'");
 		System.out.println("\tThe output XML files are stored in: "+newPath+" (relative to the src directory of the program code)");
 	}
 
+	/**
+	 * Erstellt einen DiplomaStream, der die Urkunden der bergebenen Dateien paketweise mit den geladenen Classifiern klassifiziert.
+	 * @param files Die Dateien der zu klassifizierenden Urkunden.
+	 * @param batchSize Die maximale Anzahl an Urkunden, die gemeinsam klassifiziert werden.
+	 */
+	static DiplomaStream streamDiplomas(List<File> files, int batchSize) {
+		return new DiplomaStream(files, pp, dc, pc, getLoaderPool(), batchSize);
+	}
+
+	static Preprocessor getPreprocessor() {
+		return pp;
+	}
+
+	static ProbabilisticClassifier getProbabilisticClassifier() {
+		return pc;
+	}
+
+	static DiplomaticClassifier getDiplomaticClassifier() {
+		return dc;
+	}
+
 	/**
 	 * Klassifiziert alle Stze der bergebenen Urkunden mithilfe des DiplomaticClassifiers und ProbabilisticClassifiers.
 	 * @param diplomas Die zu klassifizierenden Urkunden.
@@ -211,7 +379,7 @@ public class DiplomaAnalyzerApp {
 	}
 	
 	/**
-	 * Liest nacheinander alle Dateien aus, die sich im durch den path
+	 * Liest parallel alle Dateien aus, die sich im durch den path
 	 * spezifizierten Ordner befinden und erstellt fr jede Datei ein TrainingDiploma-Objekt.
 	 * @param Der Pfad, aus dem die cei.xml Dateien ausgelesen werden sollen.
 	 * @return Eine Liste mit den ausgelesenen Trainingsdiplomata.
@@ -236,66 +404,93 @@ public class DiplomaAnalyzerApp {
 	}
 	
 	private static List<TrainingDiploma> getTrainingDiplomas(File startFile, Preprocessor pp) {
-		List<TrainingDiploma> diplomas = new ArrayList<>();
-		File[] files = startFile.listFiles();
-		for(File file : files){
-			String fileName = file.getName();
-			if(file.isDirectory()){
-				diplomas.addAll(getTrainingDiplomas(file, pp));
-				continue;
-			}
-			if(!correctFileType(fileName)) continue;
-			
-			TrainingDiploma dipl = new TrainingDiploma(fileName, file, pp);
+		return createDiplomas(startFile, file -> new TrainingDiploma(file.getName(), file, pp));
+	}
+
+	/**
+	 * Erstellt fr alle Dateien im bergebenen Ordner und seinen Unterordnern parallel ein Urkunden-Objekt. Die Urkunden werden
+	 * dafr auf die Threads des loaderPools verteilt, die Reihenfolge der zurckgegebenen Urkunden entspricht aber immer der
+	 * Reihenfolge, in der die Dateien im Ordner gefunden werden.
+	 * @param startFile Der Ordner, aus dem die cei.xml Dateien ausgelesen werden sollen.
+	 * @param constructor Erstellt die Urkunde fr eine Datei.
+	 * @return Eine Liste mit allen nutzbaren Urkunden.
+	 */
+	private static <T extends AbstractDiploma<?>> List<T> createDiplomas(File startFile, Function<File, T> constructor) {
+		List<File> files = new ArrayList<>();
+		collectFiles(startFile, files);
+
+		List<T> created;
+		try {
+			created = getLoaderPool().submit(() -> files.parallelStream().map(constructor).collect(Collectors.toList())).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new ArrayList<>();
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+
+		List<T> diplomas = new ArrayList<>();
+		for(T dipl : created){
 			if(dipl.useDiploma()){
 				diplomas.add(dipl);
 			} else {
-				System.out.println("The file "+fileName+" is not included in further calculations.");
+				System.out.println("The file "+dipl.getFileName()+" is not included in further calculations.");
 			}
-			
 		}
 		return diplomas;
 	}
 
 	/**
-	 * Liest nacheinander alle Dateien aus, die sich im durch den path
-	 * spezifizierten Ordner befinden und erstellt fr jede Datei ein Diploma-Objekt.
-	 * @param Der Pfad, aus dem die cei.xml Dateien ausgelesen werden sollen.
-	 * @return Eine Liste mit den ausgelesenen Diplomata.
+	 * Sammelt rekursiv alle Dateien mit dem richtigen Dateityp aus dem bergebenen Ordner und seinen Unterordnern.
 	 */
-	private static List<Diploma> initializeDiplomas(String path, Preprocessor pp) {	
-
-		File origDataDir = new File(path);
-		List<Diploma> diplomas = new ArrayList<>();
-		if(!checkFilesDir(origDataDir, path)){
-			return diplomas;
-		}
-		
-		diplomas = getDiplomas(origDataDir, pp);
-		
-		return diplomas;
-	}
-	
-	private static List<Diploma> getDiplomas(File startFile, Preprocessor pp) {
-		List<Diploma> diplomas = new ArrayList<>();
-		File[] files = startFile.listFiles();
-		for(File file : files){
-			String fileName = file.getName();
+	static void collectFiles(File startFile, List<File> files) {
+		for(File file : startFile.listFiles()){
 			if(file.isDirectory()){
-				diplomas.addAll(getDiplomas(file, pp));
+				collectFiles(file, files);
 				continue;
 			}
-			if(!correctFileType(fileName)) continue;
-			
-			Diploma dipl = new Diploma(fileName, file, pp);
-			if(dipl.useDiploma()){
-				diplomas.add(dipl);
-			} else {
-				System.out.println("The file "+fileName+" is not included in further calculations.");
-			}
-			
+			if(!correctFileType(file.getName())) continue;
+			files.add(file);
 		}
-		return diplomas;
+	}
+
+	/**
+	 * Gibt den Thread-Pool zurck, mit dem die Urkunden eingelesen werden. Die Anzahl der Threads kann ber die
+	 * System-Property loader.threads oder setLoaderThreads() festgelegt werden, ohne Angabe wird ein Thread pro Prozessorkern genutzt.
+	 */
+	private static synchronized ForkJoinPool getLoaderPool() {
+		if(loaderPool == null){
+			loaderPool = new ForkJoinPool(Math.max(1, loaderThreads));
+		}
+		return loaderPool;
+	}
+
+	/**
+	 * Legt den Pfad der Modell-Datei fest. Das Modell fr das Memory-Mapping liegt daneben in einer Datei mit demselben Namen,
+	 * deren Endung (z.B. .bin) durch .mapped ersetzt ist; hat die Modell-Datei selbst die Endung .mapped, wird .mapped angehngt.
+	 */
+	static void setModelPath(String path) {
+		File file = new File(path);
+		String name = file.getName();
+		int extensionStart = name.lastIndexOf('.');
+		String mappedName = (extensionStart > 0 ? name.substring(0, extensionStart) : name) + ".mapped";
+		if(mappedName.equals(name)){
+			mappedName = name + ".mapped";
+		}
+		modelPath = path;
+		mappedModelPath = new File(file.getParentFile(), mappedName).getPath();
+	}
+
+	/**
+	 * Legt die Anzahl der Threads fest, mit denen die Urkunden eingelesen werden. Muss aufgerufen werden, bevor die
+	 * ersten Urkunden eingelesen werden.
+	 */
+	static synchronized void setLoaderThreads(int threads) {
+		if(loaderPool != null){
+			throw new IllegalStateException("The loader pool has already been started with "+loaderPool.getParallelism()+" threads.");
+		}
+		loaderThreads = threads;
 	}
 
 	private static boolean checkFilesDir(File file, String path){
@@ -307,7 +502,7 @@ public class DiplomaAnalyzerApp {
 		return true;
 	}
 	
-	private static boolean correctFileType(String fileName){
+	static boolean correctFileType(String fileName){
 		if(fileName.endsWith(".cei.xml")){
 			return true;
 		} else {
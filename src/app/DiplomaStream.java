@@ -0,0 +1,186 @@
+package app;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import classification.DiplomaticClassifier;
+import classification.ProbabilisticClassifier;
+import dataClasses.diploma.AbstractDiploma;
+import dataClasses.diploma.Diploma;
+import preprocessing.Preprocessor;
+
+/**
+ * Liest und klassifiziert die Urkunden einer Liste von Dateien paketweise, statt zuerst alle Urkunden einzulesen und dann alle
+ * gemeinsam zu klassifizieren. Jeder Aufruf von next() gibt ein Paket von hchstens batchSize bereits klassifizierten Urkunden
+ * zurck, die dann z.B. mit Diploma.generateLabeledXML() ausgegeben werden knnen. Whrend ein Paket klassifiziert wird, liest
+ * der bergebene Thread-Pool bereits die Urkunden des nchsten Pakets ein. Neben dem zuletzt zurckgegebenen Paket befinden sich
+ * so nur das gerade klassifizierte und das gerade eingelesene Paket im Speicher, unabhngig davon, wie viele Dateien insgesamt
+ * klassifiziert werden.<br>
+ * Nicht begrenzt ist dagegen der Speicherbedarf der Daten, die fr alle Pakete gemeinsam gehalten werden, damit bekannte Wortformen
+ * nicht erneut verarbeitet werden: die SymbolTable, die lemmaPairs des Preprocessors und die Bitmengen der FuzzyMatchClosure. Sie
+ * wachsen mit jeder neuen Wortform (Type), nicht aber mit der Anzahl der Urkunden oder Tokens, und werden erst mit dem Programm
+ * freigegeben.<br>
+ * Die Urkunden werden in der Reihenfolge der Dateien zurckgegeben. Nicht nutzbare Urkunden (siehe AbstractDiploma.useDiploma())
+ * werden bersprungen. Da alle Klassifikationsschritte nur innerhalb einer Urkunde arbeiten, erhalten die Stze dieselben Label,
+ * als wren alle Urkunden gemeinsam klassifiziert worden.
+ * @author Alina Ostrowski
+ *
+ */
+public class DiplomaStream implements Iterator<List<Diploma>>, AutoCloseable {
+
+	private final Iterator<File> files;
+	private final Preprocessor pp;
+	private final DiplomaticClassifier dc;
+	private final ProbabilisticClassifier pc;
+	private final ExecutorService loaderPool;
+	private final int batchSize;
+
+	// Urkunden, die bereits an den loaderPool bergeben, aber noch nicht klassifiziert wurden
+	private final Deque<Future<Diploma>> loading = new ArrayDeque<>();
+	private List<Diploma> nextBatch;
+
+	// Statistik ber die bisher verarbeiteten Urkunden
+	private int unusableCount;
+	private long loadingTime;
+	private long classificationTime;
+
+	/**
+	 * @param files Die Dateien der zu klassifizierenden Urkunden.
+	 * @param pp Der Preprocessor, mit dem die Urkunden eingelesen werden.
+	 * @param dc Der DiplomaticClassifier, der genutzt werden soll.
+	 * @param pc Der ProbabilisticClassifier, der genutzt werden soll.
+	 * @param loaderPool Der Thread-Pool, in dem die Urkunden eingelesen werden.
+	 * @param batchSize Die maximale Anzahl an Urkunden, die gemeinsam klassifiziert werden.
+	 */
+	public DiplomaStream(List<File> files, Preprocessor pp, DiplomaticClassifier dc, ProbabilisticClassifier pc, ExecutorService loaderPool, int batchSize) {
+		if(batchSize < 1){
+			throw new IllegalArgumentException("The batch size must be at least 1, but was "+batchSize+".");
+		}
+		this.files = new ArrayList<>(files).iterator();
+		this.pp = pp;
+		this.dc = dc;
+		this.pc = pc;
+		this.loaderPool = loaderPool;
+		this.batchSize = batchSize;
+		startLoading();
+	}
+
+	@Override
+	public boolean hasNext() {
+		while(nextBatch == null){
+			if(loading.isEmpty()){
+				return false;
+			}
+			long start = System.nanoTime();
+			List<Diploma> batch = takeLoadedBatch();
+			loadingTime += System.nanoTime() - start;
+			if(batch == null){
+				return false;
+			}
+			// Das nchste Paket schon einlesen lassen, whrend dieses klassifiziert wird
+			startLoading();
+			if(!batch.isEmpty()){
+				start = System.nanoTime();
+				DiplomaAnalyzerApp.classify(new ArrayList<AbstractDiploma>(batch), dc, pc);
+				classificationTime += System.nanoTime() - start;
+				nextBatch = batch;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gibt das nchste Paket klassifizierter Urkunden zurck.
+	 * @return Eine nicht leere Liste mit hchstens batchSize Urkunden.
+	 */
+	@Override
+	public List<Diploma> next() {
+		if(!hasNext()){
+			throw new NoSuchElementException();
+		}
+		List<Diploma> batch = nextBatch;
+		nextBatch = null;
+		return batch;
+	}
+
+	/**
+	 * Bricht das Einlesen aller noch nicht zurckgegebenen Urkunden ab.
+	 */
+	@Override
+	public void close() {
+		for(Future<Diploma> future : loading){
+			future.cancel(true);
+		}
+		loading.clear();
+		nextBatch = null;
+	}
+
+	/**
+	 * bergibt dem loaderPool die Dateien des nchsten Pakets.
+	 */
+	private void startLoading() {
+		while(loading.size() < batchSize && files.hasNext()){
+			File file = files.next();
+			loading.add(loaderPool.submit(() -> new Diploma(file.getName(), file, pp)));
+		}
+	}
+
+	/**
+	 * Wartet auf die nchsten batchSize eingelesenen Urkunden und gibt alle nutzbaren davon zurck.
+	 * @return Die nutzbaren Urkunden oder null, falls der Thread beim Warten unterbrochen wurde.
+	 */
+	private List<Diploma> takeLoadedBatch() {
+		List<Diploma> batch = new ArrayList<>();
+		for(int i = 0; i < batchSize && !loading.isEmpty(); i++){
+			Diploma dipl;
+			try {
+				dipl = loading.poll().get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				close();
+				return null;
+			} catch (ExecutionException e) {
+				close();
+				if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+				throw new IllegalStateException(e.getCause());
+			}
+			if(dipl.useDiploma()){
+				batch.add(dipl);
+			} else {
+				System.out.println("The file "+dipl.getFileName()+" is not included in further calculations.");
+				unusableCount++;
+			}
+		}
+		return batch;
+	}
+
+	/**
+	 * @return Die Anzahl der bisher eingelesenen Urkunden, die nicht genutzt werden konnten.
+	 */
+	public int getUnusableCount() {
+		return unusableCount;
+	}
+
+	/**
+	 * @return Die Zeit in Nanosekunden, die bisher auf das Einlesen der Urkunden gewartet wurde. Die Zeit, in der
+	 * 		Urkunden eingelesen wurden, whrend ein anderes Paket klassifiziert wurde, ist nicht enthalten.
+	 */
+	public long getLoadingTime() {
+		return loadingTime;
+	}
+
+	/**
+	 * @return Die Zeit in Nanosekunden, die bisher fr die Klassifikation der Urkunden bentigt wurde.
+	 */
+	public long getClassificationTime() {
+		return classificationTime;
+	}
+}
@@ -44,6 +44,7 @@ public class Evaluation {
 	private String abbreviationPath = DiplomaAnalyzerApp.abbreviationPath;
 	private String capitalLetterPath = DiplomaAnalyzerApp.capitalLetterPath;
 	private String paranthesisPath = DiplomaAnalyzerApp.paranthesisPath;
+	private String lemmaCachePath = DiplomaAnalyzerApp.lemmaCachePath;
 	
 	/**
 	 * Ordner, in dem die Ergebnisse der Evaluation gespeichert werden sollen.
@@ -73,7 +74,7 @@ public class Evaluation {
 		this.labels = Arrays.asList(DiplomaticLabel.values());
 		// Initialisierung aller mglichen Evaluationsszenarien
 		this.initializeConfigList(2);	
-		this.pp = new Preprocessor(resolverPath, abbreviationPath, capitalLetterPath, paranthesisPath);
+		this.pp = new Preprocessor(resolverPath, abbreviationPath, capitalLetterPath, paranthesisPath, lemmaCachePath);
 		this.averageResults = new HashMap<ClassificationConfig, List<Double>>();
 	}
 	
@@ -0,0 +1,400 @@
+package classification;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import config.ClassificationConfig;
+import config.Milestones;
+import config.ModelSources;
+import dataClasses.label.DiplomaticLabel;
+import preprocessing.LongIntHashMap;
+import preprocessing.Preprocessor;
+import preprocessing.SymbolTable;
+import preprocessing.VectorType;
+import preprocessing.Vocabulary;
+
+/**
+ * Ein trainiertes Modell aus ProbabilisticClassifier und DiplomaticClassifier, das in einer Datei gespeichert und wieder
+ * geladen werden kann. So mssen fr die Klassifikation nicht bei jedem Programmstart alle Trainingsurkunden eingelesen,
+ * lemmatisiert und vektorisiert werden.<br>
+ * Aufbau der Datei: 4 Byte Kennung, 4 Byte Versionsnummer, danach die Daten des Modells (ClassificationConfig, Labels,
+ * Fingerabdrcke der Trainingsurkunden und der Indikatordatei (siehe ModelSources), Vokabular mit Dokumentenhufigkeiten, Wahrscheinlichkeiten des NaiveBayes-Classifiers, Milestones, normalisierte
+ * Indikatoren und die Lemma-Paare des Preprocessors) und zuletzt eine CRC32-Prfsumme ber diese Daten. Eine beschdigte
+ * oder unvollstndig geschriebene Datei wird beim Laden erkannt.<br>
+ * Im Weka-Kompatibilittsmodus trainierte oder aus einem MappedClassifierModel erstellte Classifier knnen nicht gespeichert werden.
+ * @author Alina Ostrowski
+ *
+ */
+public class ClassifierModel {
+
+	private static final int MAGIC = 0x44434D44; // "DCMD"
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 8;
+	private static final int CHECKSUM_SIZE = 8;
+
+	private final ProbabilisticClassifier probabilisticClassifier;
+	private final DiplomaticClassifier diplomaticClassifier;
+	private final ClassificationConfig config;
+	private final ModelSources sources;
+
+	/**
+	 * @param pc Der trainierte ProbabilisticClassifier.
+	 * @param dc Der DiplomaticClassifier mit den auf den Trainingsurkunden berechneten Milestones.
+	 * @param config Die Konfiguration, mit der beide Classifier erstellt wurden.
+	 * @param sources Die Fingerabdrcke der Trainingsurkunden und der Indikatordatei, aus denen beide Classifier erstellt wurden.
+	 */
+	public ClassifierModel(ProbabilisticClassifier pc, DiplomaticClassifier dc, ClassificationConfig config, ModelSources sources) {
+		if(pc.usesWeka() || !(pc.getNaiveBayes() instanceof MultinomialNaiveBayes) || !(pc.getVocabulary() instanceof Vocabulary)){
+			throw new IllegalArgumentException("Only a classifier trained without Weka compatibility mode can be saved as model.");
+		}
+		this.probabilisticClassifier = pc;
+		this.diplomaticClassifier = dc;
+		this.config = config;
+		this.sources = sources;
+	}
+
+	/**
+	 * Speichert das Modell unter dem bergebenen Pfad. Die Datei wird zunchst unter einem temporren Namen geschrieben
+	 * und erst danach umbenannt, so dass ein bereits gespeichertes Modell nicht durch einen Abbruch beschdigt wird.
+	 * @param path Der Pfad der Modell-Datei.
+	 * @throws IOException Wenn die Datei nicht geschrieben werden kann.
+	 */
+	public void save(String path) throws IOException {
+		File file = new File(path);
+		if(file.getAbsoluteFile().getParentFile() != null) file.getAbsoluteFile().getParentFile().mkdirs();
+		File tempFile = new File(path+".tmp");
+
+		try(FileOutputStream fileOut = new FileOutputStream(tempFile)){
+			DataOutputStream headerOut = new DataOutputStream(fileOut);
+			headerOut.writeInt(MAGIC);
+			headerOut.writeInt(VERSION);
+
+			CheckedOutputStream checkedOut = new CheckedOutputStream(new BufferedOutputStream(fileOut, 1 << 16), new CRC32());
+			DataOutputStream out = new DataOutputStream(checkedOut);
+			writeConfig(out);
+			out.writeLong(sources.getTrainingFingerprint());
+			out.writeLong(sources.getIndicatorFingerprint());
+			writeVocabulary(out, (Vocabulary) probabilisticClassifier.getVocabulary());
+			writeNaiveBayes(out, (MultinomialNaiveBayes) probabilisticClassifier.getNaiveBayes());
+			writeMilestones(out, diplomaticClassifier.getMilestones());
+			writeIndicators(out, diplomaticClassifier.getIndicators());
+			writeLemmaPairs(out, probabilisticClassifier.getPreprocessor().getLemmaPairs());
+			out.flush();
+
+			// die Prfsumme selbst geht nicht in die Prfsumme ein
+			new DataOutputStream(fileOut).writeLong(checkedOut.getChecksum().getValue());
+			fileOut.getFD().sync();
+		}
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Ldt ein gespeichertes Modell. Die gespeicherten Lemma-Paare werden dem bergebenen Preprocessor hinzugefgt.
+	 * @param path Der Pfad der Modell-Datei.
+	 * @param pp Der Preprocessor, mit dem die zu klassifizierenden Stze vorbereitet werden.
+	 * @return Das Modell mit den einsatzbereiten Classifiern.
+	 * @throws IOException Wenn die Datei nicht gelesen werden kann, ein unbekanntes Format hat oder beschdigt ist.
+	 */
+	public static ClassifierModel load(String path, Preprocessor pp) throws IOException {
+		long dataSize = new File(path).length() - HEADER_SIZE - CHECKSUM_SIZE;
+		try(DataInputStream headerIn = new DataInputStream(new BufferedInputStream(new FileInputStream(path), 1 << 16))){
+			if(headerIn.readInt() != MAGIC){
+				throw new IOException("The file "+path+" is no classifier model.");
+			}
+			int version = headerIn.readInt();
+			if(version != VERSION){
+				throw new IOException("The classifier model "+path+" has the unsupported version "+version+".");
+			}
+
+			CheckedInputStream checkedIn = new CheckedInputStream(headerIn, new CRC32());
+			ModelInputStream in = new ModelInputStream(new CountingInputStream(checkedIn), dataSize);
+			ClassificationConfig config = readConfig(in);
+			ModelSources sources = new ModelSources(in.readLong(), in.readLong());
+			Vocabulary vocabulary = readVocabulary(in);
+			MultinomialNaiveBayes naiveBayes = readNaiveBayes(in, vocabulary.size());
+			Milestones milestones = readMilestones(in);
+			List<String[]> indicators = readIndicators(in);
+			Map<String, String> lemmaPairs = readLemmaPairs(in);
+
+			long checksum = checkedIn.getChecksum().getValue();
+			if(headerIn.readLong() != checksum || headerIn.read() != -1){
+				throw new IOException("The classifier model "+path+" is damaged (wrong checksum).");
+			}
+
+			pp.addLemmaPairs(lemmaPairs);
+			ProbabilisticClassifier pc = new ProbabilisticClassifier(pp, vocabulary, naiveBayes, config.getUseBigramsInsteadOfTokens(), config.getVectorType());
+			DiplomaticClassifier dc = new DiplomaticClassifier(indicators, milestones);
+			return new ClassifierModel(pc, dc, config, sources);
+		} catch(RuntimeException e){
+			// z.B. unbekannte Enum-Werte in einer beschdigten Datei
+			throw new IOException("The classifier model "+path+" is damaged.", e);
+		}
+	}
+
+	/**
+	 * @return true, wenn das Modell mit denselben Einstellungen wie in der bergebenen Konfiguration trainiert wurde.
+	 */
+	public boolean isTrainedWith(ClassificationConfig cc) {
+		return config.getSequProbsTolerance() == cc.getSequProbsTolerance()
+				&& config.getVectorType() == cc.getVectorType()
+				&& config.getUseBigramsInsteadOfTokens() == cc.getUseBigramsInsteadOfTokens();
+	}
+
+	public ProbabilisticClassifier getProbabilisticClassifier() {
+		return probabilisticClassifier;
+	}
+
+	public DiplomaticClassifier getDiplomaticClassifier() {
+		return diplomaticClassifier;
+	}
+
+	public ClassificationConfig getConfig() {
+		return config;
+	}
+
+	/**
+	 * @return Die Fingerabdrcke der Trainingsurkunden und der Indikatordatei, aus denen das Modell trainiert wurde.
+	 */
+	public ModelSources getSources() {
+		return sources;
+	}
+
+	private void writeConfig(DataOutputStream out) throws IOException {
+		out.writeInt(config.getSequProbsTolerance());
+		out.writeUTF(config.getVectorType().name());
+		out.writeBoolean(config.getUseBigramsInsteadOfTokens());
+
+		// die Labels werden mitgespeichert, damit ein Modell nach einer nderung der Labels nicht mehr geladen wird
+		DiplomaticLabel[] labels = DiplomaticLabel.values();
+		out.writeInt(labels.length);
+		for(DiplomaticLabel label : labels){
+			out.writeUTF(label.name());
+		}
+	}
+
+	private static ClassificationConfig readConfig(ModelInputStream in) throws IOException {
+		int tolerance = in.readInt();
+		VectorType vectorType = VectorType.valueOf(in.readUTF());
+		boolean useBigrams = in.readBoolean();
+
+		DiplomaticLabel[] labels = DiplomaticLabel.values();
+		int labelCount = in.readLength(2);
+		boolean sameLabels = labelCount == labels.length;
+		for(int i = 0; i < labelCount; i++){
+			String label = in.readUTF();
+			sameLabels = sameLabels && labels[i].name().equals(label);
+		}
+		if(!sameLabels){
+			throw new IOException("The classifier model was trained with other labels.");
+		}
+		return new ClassificationConfig(tolerance, vectorType, useBigrams);
+	}
+
+	/**
+	 * Die Types werden als Strings gespeichert, da die IDs der SymbolTable bei jedem Programmstart neu vergeben werden.
+	 */
+	private static void writeVocabulary(DataOutputStream out, Vocabulary vocabulary) throws IOException {
+		SymbolTable symbols = SymbolTable.getShared();
+		out.writeInt(vocabulary.getTrainingSentenceCount());
+		out.writeInt(vocabulary.size());
+		for(int i = 0; i < vocabulary.size(); i++){
+			long feature = vocabulary.getFeature(i);
+			out.writeUTF(symbols.symbol(SymbolTable.first(feature)));
+			int second = SymbolTable.second(feature);
+			out.writeBoolean(second != SymbolTable.NONE);
+			if(second != SymbolTable.NONE){
+				out.writeUTF(symbols.symbol(second));
+			}
+			out.writeInt(vocabulary.getDocumentFrequency(i));
+		}
+	}
+
+	private static Vocabulary readVocabulary(ModelInputStream in) throws IOException {
+		SymbolTable symbols = SymbolTable.getShared();
+		int trainingSentenceCount = in.readInt();
+		// jeder Eintrag besteht mindestens aus einem leeren String, einem boolean und einer Hufigkeit
+		int size = in.readLength(7);
+		LongIntHashMap totalTypeFrequencies = new LongIntHashMap(size);
+		for(int i = 0; i < size; i++){
+			int first = symbols.intern(in.readUTF());
+			int second = in.readBoolean() ? symbols.intern(in.readUTF()) : SymbolTable.NONE;
+			totalTypeFrequencies.put(SymbolTable.pack(first, second), in.readInt());
+		}
+		return new Vocabulary(totalTypeFrequencies, trainingSentenceCount);
+	}
+
+	private static void writeNaiveBayes(DataOutputStream out, MultinomialNaiveBayes naiveBayes) throws IOException {
+		writeDoubles(out, naiveBayes.getProbOfLabel());
+		writeDoubles(out, naiveBayes.getLogProbOfTypeGivenLabel());
+	}
+
+	private static MultinomialNaiveBayes readNaiveBayes(ModelInputStream in, int vocabularySize) throws IOException {
+		double[] probOfLabel = readDoubles(in);
+		double[] logProbOfTypeGivenLabel = readDoubles(in);
+		if(probOfLabel.length != DiplomaticLabel.values().length || logProbOfTypeGivenLabel.length != vocabularySize * probOfLabel.length){
+			throw new IOException("The probabilities of the classifier model don't match its vocabulary.");
+		}
+		return new MultinomialNaiveBayes(logProbOfTypeGivenLabel, probOfLabel);
+	}
+
+	private static void writeMilestones(DataOutputStream out, Milestones ms) throws IOException {
+		out.writeDouble(ms.getAverageProtocolEnd());
+		out.writeDouble(ms.getInversedAverageEschatocolStart());
+		writeDoubles(out, ms.getDiplomaPartProbabilities());
+		writeDoubles(out, ms.getProtocolDiplomaPartProbabilities());
+		writeDoubles(out, ms.getContextDiplomaPartProbabilities());
+		writeDoubles(out, ms.getEschatocolDiplomaPartProbabilities());
+	}
+
+	private static Milestones readMilestones(ModelInputStream in) throws IOException {
+		double averageProtocolEnd = in.readDouble();
+		double inversedAverageEschatocolStart = in.readDouble();
+		return new Milestones(averageProtocolEnd, inversedAverageEschatocolStart, readDoubles(in), readDoubles(in), readDoubles(in), readDoubles(in));
+	}
+
+	private static void writeIndicators(DataOutputStream out, List<String[]> indicators) throws IOException {
+		out.writeInt(indicators.size());
+		for(String[] indicator : indicators){
+			out.writeInt(indicator.length);
+			for(String value : indicator){
+				out.writeUTF(value);
+			}
+		}
+	}
+
+	private static List<String[]> readIndicators(ModelInputStream in) throws IOException {
+		int count = in.readLength(4);
+		List<String[]> indicators = new ArrayList<>(count);
+		for(int i = 0; i < count; i++){
+			String[] indicator = new String[in.readLength(2)];
+			for(int j = 0; j < indicator.length; j++){
+				indicator[j] = in.readUTF();
+			}
+			indicators.add(indicator);
+		}
+		return indicators;
+	}
+
+	private static void writeLemmaPairs(DataOutputStream out, Map<String, String> lemmaPairs) throws IOException {
+		out.writeInt(lemmaPairs.size());
+		for(Entry<String, String> pair : lemmaPairs.entrySet()){
+			out.writeUTF(pair.getKey());
+			out.writeUTF(pair.getValue());
+		}
+	}
+
+	private static Map<String, String> readLemmaPairs(ModelInputStream in) throws IOException {
+		int count = in.readLength(4);
+		Map<String, String> lemmaPairs = new HashMap<>(count * 2);
+		for(int i = 0; i < count; i++){
+			lemmaPairs.put(in.readUTF(), in.readUTF());
+		}
+		return lemmaPairs;
+	}
+
+	private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+		out.writeInt(values.length);
+		for(double value : values){
+			out.writeDouble(value);
+		}
+	}
+
+	private static double[] readDoubles(ModelInputStream in) throws IOException {
+		double[] values = new double[in.readLength(8)];
+		for(int i = 0; i < values.length; i++){
+			values[i] = in.readDouble();
+		}
+		return values;
+	}
+
+	/**
+	 * DataInputStream ber den Daten des Modells, der mitzhlt, wie viele Bytes noch folgen. So knnen die in der Datei gespeicherten
+	 * Lngen geprft werden, bevor fr sie Arrays oder Maps angelegt werden, und eine beschdigte Lnge fhrt nicht zu einem
+	 * OutOfMemoryError.
+	 */
+	private static final class ModelInputStream extends DataInputStream {
+
+		private final CountingInputStream counter;
+		private final long size;
+
+		/**
+		 * @param counter Der Stream, aus dem die Daten gelesen werden.
+		 * @param size Die Anzahl der Bytes der Daten bis zur Prfsumme.
+		 */
+		private ModelInputStream(CountingInputStream counter, long size) {
+			super(counter);
+			this.counter = counter;
+			this.size = size;
+		}
+
+		/**
+		 * Liest eine Lnge und prft, ob die Daten noch genug Bytes fr sie enthalten.
+		 * @param minBytesPerElement Die Anzahl der Bytes, die jedes Element mindestens belegt.
+		 * @return Die gelesene Lnge.
+		 * @throws IOException Wenn die Lnge negativ ist oder ihre Elemente nicht mehr in die Daten passen.
+		 */
+		private int readLength(int minBytesPerElement) throws IOException {
+			int length = readInt();
+			if(length < 0 || (long) length * minBytesPerElement > size - counter.count){
+				throw new IOException("The classifier model is damaged (implausible length "+length+").");
+			}
+			return length;
+		}
+	}
+
+	/**
+	 * Zhlt die gelesenen Bytes.
+	 */
+	private static final class CountingInputStream extends FilterInputStream {
+
+		private long count;
+
+		private CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if(b >= 0) count++;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if(read > 0) count += read;
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+}
@@ -3,7 +3,10 @@ package classification;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import config.Milestones;
 import dataClasses.diploma.AbstractDiploma;
@@ -43,6 +46,24 @@ public class DiplomaticClassifier {
 	 * </ol> 
 	 */
 	private List<String[]> indicators;
+
+	// Bitmasken der Positionsklassen, zu denen ein Satz gehren kann (ein Satz kann mehreren Klassen zugleich angehren)
+	private static final int PROTOCOL_MASK = 1;
+	private static final int CONTEXT_MASK = 2;
+	private static final int ESCHATOCOL_MASK = 4;
+
+	/**
+	 * Die aus den indicators kompilierten Regeln, gruppiert nach den Positionsklassen, fr die sie gelten. Der Index entspricht der
+	 * Bitmaske der Positionsklassen eines Satzes (PROTOCOL_MASK, CONTEXT_MASK, ESCHATOCOL_MASK); das Array an diesem Index enthlt alle Regeln ohne
+	 * Positionsbedingung sowie die Regeln dieser Positionsklassen in der Reihenfolge der Indikatordatei, so dass weiterhin die erste
+	 * zutreffende Regel das Label bestimmt.
+	 */
+	private IndicatorRule[][] rulesByPosition;
+
+	/**
+	 * Gleicht alle Regeln mit dem MatchMode SUBSTRING in einem Durchlauf pro Satz ab.
+	 */
+	private SubstringRuleMatcher substringMatcher;
 	
 	private Milestones milestones;
 	private double averageProtocolEnd;
@@ -53,6 +74,18 @@ public class DiplomaticClassifier {
 	public DiplomaticClassifier(String indicatorPath, Milestones ms){
 		initializeIndicators(indicatorPath);
 		sc = new SimilarityCalculator();
+		compileRules();
+		this.setMilestones(ms);
+	}
+
+	/**
+	 * Erstellt den Classifier mit bereits eingelesenen und normalisierten Indikatoren, z.B. beim Laden eines gespeicherten Modells.
+	 * @param indicators Die Indikatoren im Format der Feldvariable indicators.
+	 */
+	DiplomaticClassifier(List<String[]> indicators, Milestones ms){
+		this.indicators = indicators;
+		sc = new SimilarityCalculator();
+		compileRules();
 		this.setMilestones(ms);
 	}
 
@@ -71,6 +104,61 @@ public class DiplomaticClassifier {
 		}
 	}
 	
+	/**
+	 * Kompiliert die indicators einmalig zu IndicatorRules und gruppiert sie nach ihrer Positionsbedingung (siehe rulesByPosition).
+	 * Regeln mit unbekanntem hnlichkeitsgrad werden ausgelassen, da sie nie greifen. Die Tokens aller Regeln werden an die
+	 * FuzzyMatchClosure des SimilarityCalculators bergeben, die Regeln mit dem MatchMode SUBSTRING zustzlich an den substringMatcher.
+	 */
+	private void compileRules() {
+		List<IndicatorRule> rules = new ArrayList<>(indicators.size());
+		List<String> indicatorTokens = new ArrayList<>();
+		for(String[] indicatorArray : indicators){
+			IndicatorRule rule = new IndicatorRule(indicatorArray);
+			if(rule.getMatchMode() != null){
+				rules.add(rule);
+				indicatorTokens.addAll(rule.getTokens());
+			}
+		}
+		sc.precomputeClosure(indicatorTokens);
+		substringMatcher = new SubstringRuleMatcher(rules, sc.getClosure());
+		rulesByPosition = new IndicatorRule[(PROTOCOL_MASK | CONTEXT_MASK | ESCHATOCOL_MASK) + 1][];
+		for(int positionMask = 0; positionMask < rulesByPosition.length; positionMask++){
+			List<IndicatorRule> applicableRules = new ArrayList<>();
+			for(IndicatorRule rule : rules){
+				if(appliesTo(rule.getPosition(), positionMask)){
+					applicableRules.add(rule);
+				}
+			}
+			rulesByPosition[positionMask] = applicableRules.toArray(new IndicatorRule[applicableRules.size()]);
+		}
+	}
+
+	private static boolean appliesTo(IndicatorRule.Position position, int positionMask) {
+		switch(position){
+		case PROTOCOL: return (positionMask & PROTOCOL_MASK) != 0;
+		case CONTEXT: return (positionMask & CONTEXT_MASK) != 0;
+		case ESCHATOCOL: return (positionMask & ESCHATOCOL_MASK) != 0;
+		default: return true;
+		}
+	}
+
+	/**
+	 * Gibt die Bitmaske der Positionsklassen zurck, zu denen der bergebene Satz gem den Milestones gehren kann.
+	 */
+	private int getPositionMask(AbstractSentence sentence) {
+		int positionMask = 0;
+		if(!(sentence.getIndexOfFirstWord() > averageProtocolEnd)){
+			positionMask |= PROTOCOL_MASK;
+		}
+		if(!(sentence.getIndexOfLastWord() < averageProtocolEnd || sentence.getInversedIndexOfFirstWord() < inversedAverageEschatocolStart)){
+			positionMask |= CONTEXT_MASK;
+		}
+		if(!(sentence.getInversedIndexOfLastWord() > inversedAverageEschatocolStart)){
+			positionMask |= ESCHATOCOL_MASK;
+		}
+		return positionMask;
+	}
+
 	/**
 	 * Initialisiert die Milestones dieses Objekts.
 	 * @param ms Das Milestones-Objekt, das fr die Initialisierung genutzt werden soll.
@@ -80,6 +168,21 @@ public class DiplomaticClassifier {
 		this.averageProtocolEnd = ms.getAverageProtocolEnd();
 		this.inversedAverageEschatocolStart = ms.getInversedAverageEschatocolStart();
 	}
+
+	public Milestones getMilestones(){
+		return milestones;
+	}
+
+	/**
+	 * @return Den SimilarityCalculator, mit dem die Indikatoren abgeglichen werden.
+	 */
+	public SimilarityCalculator getSimilarityCalculator(){
+		return sc;
+	}
+
+	List<String[]> getIndicators(){
+		return indicators;
+	}
 	
 
 	/**
@@ -211,94 +314,73 @@ public class DiplomaticClassifier {
 	
 	/**
 	 * Wendet die zuvor fr die Instanz dieser Klasse festgelegten Indikatoren auf die bergebenen Stze an und weist ihnen ein entsprechendes Label zu,
-	 * falls einer der Indikatoren zutrifft.
+	 * falls einer der Indikatoren zutrifft. Da die Stze voneinander unabhngig sind, werden sie parallel abgeglichen. Die bergebene Liste
+	 * wird nicht verndert.
 	 * @param sentences Die Stze, fr die ein Indikator-Labeling geprft werden soll 
-	 * @return Eine Liste mit allen Satzobjekten, denen im Zuge der Indikator-berprfung noch kein Label zugewiesen werden konnte.
+	 * @return Eine neue Liste mit allen Satzobjekten, denen im Zuge der Indikator-berprfung noch kein Label zugewiesen werden konnte
+	 * (in der Reihenfolge der bergebenen Liste).
 	 */
 	public List<AbstractSentence> assignByIndicators(List<AbstractSentence> sentences) {
 
-		List<AbstractSentence> labeledSentences = new ArrayList<>();
-		List<AbstractSentence> unlabeledSentences = sentences;
+		// pro Satz nur die zutreffende Regel (oder null) ermitteln; die Ergebnisse stehen in der Reihenfolge der Stze
+		List<IndicatorRule> matchingRules = sentences.parallelStream()
+				.map(this::findIndicatorRule)
+				.collect(Collectors.toList());
 		
+		List<AbstractSentence> unlabeledSentences = new ArrayList<>();
+		Iterator<IndicatorRule> ruleIterator = matchingRules.iterator();
 		for(AbstractSentence sentence : sentences){
-			
-			String text = sentence.getText();
-			int inversedLastWordIndex = sentence.getInversedIndexOfLastWord();
-			int inversedFirstWordIndex = sentence.getInversedIndexOfFirstWord();
-			int lastWordIndex = sentence.getIndexOfLastWord();
-			int firstWordIndex = sentence.getIndexOfFirstWord();
+			IndicatorRule rule = ruleIterator.next();
+			if(rule == null){
+				unlabeledSentences.add(sentence);
+			} else {
+				sentence.setPartLabel(rule.getLabel());
+			}
+		}
+		return unlabeledSentences;
+	}
+
+	/**
+	 * Sucht die erste Indikatorregel, die auf den bergebenen Satz zutrifft. Die Methode verndert den Satz nicht und kann darum
+	 * fr mehrere Stze gleichzeitig aufgerufen werden.
+	 * @param sentence Der Satz, fr den ein Indikator-Labeling geprft werden soll.
+	 * @return Die erste zutreffende Regel oder null, falls keine Regel zutrifft.
+	 */
+	private IndicatorRule findIndicatorRule(AbstractSentence sentence) {
 		
-			indicatorLoop: for(String[] indicatorPair : indicators){
-				
-				// berprfen, ob die Indikatorregel nur fr Stze mit einer bestimmten Position innerhalb der Urkunde gilt:
-				// 1 = Satz muss innerhalb des Protokolls stehen
-				// 2 = Satz muss innerhalb des Kontextes stehen
-				// 3 = Satz muss innerhalb des Eschatokolls stehen
-				// 0 oder default = der Satz erhlt keine bestimmte Positionsbedingung
-				// Entspricht der aktuelle Satz der Bedingung nicht, so wird die aktuelle Iteration bersprungen
-				// und der nchste Indikator berprft.
-				
-				int position = Integer.valueOf(indicatorPair[3]);
-				if(position != 0){
-					switch (position){
-					case 1: 
-						if(firstWordIndex > averageProtocolEnd){
-							continue indicatorLoop;
-						}
-						break;
-					case 2:
-						if(lastWordIndex < averageProtocolEnd || inversedFirstWordIndex < inversedAverageEschatocolStart){
-							continue indicatorLoop;
-						}
-						break;
-					case 3:
-						if(inversedLastWordIndex > inversedAverageEschatocolStart){
-							continue indicatorLoop;
-						}
-						break;
-					default:
-						break;
-					}
-				}
-			
-				// berprfen, welcher Grad an hnlichkeit vorliegen soll
-				// 1 = Substring: Der Indikatorsatz ist ein Substring des Originalsatzes, d.h. der Originalsatz enthlt alle Wrter des Indikator-Strings in der richtigen Reihenfolge und ohne Unterbrechungen.
-				// 		Bsp.: "Ich esse heute" = "Ich esse heute Fisch" aber != "Fisch esse ich heute" und != "Ich esse" 
-				// 2 = Subset: Der Indikatorsatz ist ein Subset des Originalsatzes, d.h. der Originalsatz enthlt alle Wrter des Indikator-Strings.
-				//		Bsp.: "Ich gehe zum Fisch Essen." = "Mit meiner Freundin gehe ich zum Fisch Essen auf Norderney", aber != "Ich gehe zum Essen"
-				// 3 = Similar: Der Indikatorsatz hnelt einem Substring des Originalsatzes (d.h. Jaccard-Koeffizient >= 0.75).
-				//		Bsp.: "Ich gehe zum Fisch Essen." = "Eine beliebig lange Wortfolge vor dem eigentlichen Substring; Ich gehe mittags Fische Essen, dann eine beliebig lange Wortfolge nach dem eigentlichen Substring."
-				// default = Similar
-				// Trifft der Indikator zu und es wird ein Label gefunden, so sollen die nachfolgenden Indikatoren nicht mehr abgeprft werden,
-				// sondern die Indikator-Schleife wird abgebrochen und der nchste Satz untersucht.
-				
-				int similarity = Integer.valueOf(indicatorPair[2]);
-				switch(similarity){
-				case 1:
-					if(sc.containsSimilarTokenSubstring(indicatorPair[0], text)){
-						sentence.setPartLabel(DiplomaticLabel.valueOf(indicatorPair[1]));
-						labeledSentences.add(sentence);
-						break indicatorLoop;
-					} else break;
-				case 2:
-					if(sc.containsAllTokens(indicatorPair[0], text)){
-						sentence.setPartLabel(DiplomaticLabel.valueOf(indicatorPair[1]));
-						labeledSentences.add(sentence);
-						break indicatorLoop;
-					} else break;
-				case 3:
-					if(sc.similarityOfSubstring(indicatorPair[0], text)>=0.75){
-						sentence.setPartLabel(DiplomaticLabel.valueOf(indicatorPair[1]));
-						labeledSentences.add(sentence);
-						break indicatorLoop;
-					} else break;
-				default: break;
+		// Alle Substring-Regeln werden bei der ersten Substring-Regel in einem Durchlauf ber die Tokens des Satzes abgeglichen
+		// (falls der Satz bereits tokenisiert wurde)
+		int[] tokenIds = sentence.getTokenIds();
+		Set<IndicatorRule> substringMatches = null;
+		
+		// Nur die Regeln prfen, deren Positionsbedingung der Satz erfllt:
+		// 1 = Satz muss innerhalb des Protokolls stehen
+		// 2 = Satz muss innerhalb des Kontextes stehen
+		// 3 = Satz muss innerhalb des Eschatokolls stehen
+		// 0 oder default = der Satz erhlt keine bestimmte Positionsbedingung
+		// berprfen, ob der geforderte Grad an hnlichkeit vorliegt (siehe IndicatorRule.MatchMode)
+		// 1 = Substring: Der Indikatorsatz ist ein Substring des Originalsatzes, d.h. der Originalsatz enthlt alle Wrter des Indikator-Strings in der richtigen Reihenfolge und ohne Unterbrechungen.
+		// 		Bsp.: "Ich esse heute" = "Ich esse heute Fisch" aber != "Fisch esse ich heute" und != "Ich esse" 
+		// 2 = Subset: Der Indikatorsatz ist ein Subset des Originalsatzes, d.h. der Originalsatz enthlt alle Wrter des Indikator-Strings.
+		//		Bsp.: "Ich gehe zum Fisch Essen." = "Mit meiner Freundin gehe ich zum Fisch Essen auf Norderney", aber != "Ich gehe zum Essen"
+		// 3 = Similar: Der Indikatorsatz hnelt einem Substring des Originalsatzes (d.h. Jaccard-Koeffizient >= 0.75).
+		//		Bsp.: "Ich gehe zum Fisch Essen." = "Eine beliebig lange Wortfolge vor dem eigentlichen Substring; Ich gehe mittags Fische Essen, dann eine beliebig lange Wortfolge nach dem eigentlichen Substring."
+		// Trifft der Indikator zu und es wird ein Label gefunden, so sollen die nachfolgenden Indikatoren nicht mehr abgeprft werden.
+		for(IndicatorRule rule : rulesByPosition[getPositionMask(sentence)]){
+			boolean matches;
+			if(tokenIds != null && rule.getMatchMode() == IndicatorRule.MatchMode.SUBSTRING){
+				if(substringMatches == null){
+					substringMatches = substringMatcher.findMatches(tokenIds);
 				}
+				matches = substringMatches.contains(rule);
+			} else {
+				matches = rule.matches(sc, sentence);
+			}
+			if(matches){
+				return rule;
 			}
 		}
-		
-		unlabeledSentences.removeAll(labeledSentences);
-		return unlabeledSentences;
+		return null;
 	}
 
 	/**
@@ -0,0 +1,234 @@
+package classification;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import preprocessing.SymbolTable;
+
+/**
+ * Speichert fr jedes Token der diplomatischen Indikatoren, zu welchen Types des Korpus es gem Needleman-Wunsch hnlich ist.
+ * Die Indikatoren enthalten nur wenige verschiedene Tokens, und die Types des Korpus sind ber die SymbolTable bereits mit
+ * einer ID versehen. Statt dieselben Token-Paare fr jeden Satz erneut zu vergleichen, wird daher jeder Type einmalig mit allen
+ * Indikator-Tokens verglichen und das Ergebnis pro Indikator-Token als Bitmenge ber den IDs der SymbolTable gespeichert. Der
+ * Vergleich eines Indikator-Tokens mit einem Satz-Token ist danach eine Abfrage in dieser Bitmenge.<br>
+ * Ein Type wird verglichen, sobald er zum ersten Mal abgefragt wird. So werden nur die Types berechnet, die tatschlich in den
+ * klassifizierten Stzen vorkommen (und nicht z.B. die Lemmata der SymbolTable), und Types, die im interaktiven Modus mit weiteren
+ * Urkunden hinzukommen, werden automatisch ergnzt. Die Abfragen knnen von mehreren Threads gleichzeitig gestellt werden.<br>
+Damit die Bitmengen nicht mit jeder neuen Wortform unbegrenzt wachsen (z.B. im ClassificationService), kann die Anzahl der
+gespeicherten Types ber setMaxTypes() begrenzt werden. Types mit einer hheren ID werden dann bei jeder Abfrage neu verglichen.
+ * @author Alina Ostrowski
+ *
+ */
+public class FuzzyMatchClosure {
+
+	private final SimilarityCalculator sc;
+	private final SymbolTable symbols;
+
+	/**
+	 * Ordnet jedem Indikator-Token die Zeile der Bitmengen zu, in der seine hnlichen Types verzeichnet sind.
+	 */
+	private final Map<String, Integer> indicatorTokens = new HashMap<>();
+	private final String[] indicatorTokenList;
+	private final long[] indicatorTokenSignatures;
+
+	/**
+	 * Die aktuellen Bitmengen. Werden sie zu klein, so werden sie durch grere Kopien ersetzt.
+	 */
+	private volatile Closure closure;
+
+	/**
+	 * Nur Types mit einer kleineren ID werden in den Bitmengen gespeichert.
+	 */
+	private volatile int maxTypes = Integer.MAX_VALUE;
+
+	/**
+	 * @param indicatorTokens Die Tokens der Indikatoren. Doppelte Tokens werden nur einmal bercksichtigt.
+	 * @param sc Der SimilarityCalculator, mit dem die hnlichkeit der Tokens berechnet wird.
+	 * @param symbols Die SymbolTable, deren IDs die Types des Korpus bezeichnen.
+	 */
+	public FuzzyMatchClosure(Collection<String> indicatorTokens, SimilarityCalculator sc, SymbolTable symbols) {
+		this.sc = sc;
+		this.symbols = symbols;
+		for(String token : indicatorTokens){
+			if(!this.indicatorTokens.containsKey(token)){
+				this.indicatorTokens.put(token, this.indicatorTokens.size());
+			}
+		}
+		indicatorTokenList = new String[this.indicatorTokens.size()];
+		indicatorTokenSignatures = new long[indicatorTokenList.length];
+		for(Map.Entry<String, Integer> entry : this.indicatorTokens.entrySet()){
+			indicatorTokenList[entry.getValue()] = entry.getKey();
+			indicatorTokenSignatures[entry.getValue()] = SimilarityCalculator.bigramSignature(entry.getKey());
+		}
+		closure = new Closure(indicatorTokenList.length, 0);
+	}
+
+	/**
+	 * @return Die Nummer des bergebenen Indikator-Tokens fr isSimilar() oder -1, wenn das Token nicht zu den Indikatoren gehrt.
+	 */
+	public int indexOf(String indicatorToken) {
+		Integer index = indicatorTokens.get(indicatorToken);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Gibt an, ob das Indikator-Token mit der bergebenen Nummer dem Type mit der bergebenen ID hnlich ist, d.h. ob
+	 * SimilarityCalculator.isNWsimilar() fr beide true ergibt.
+	 * @param indicatorTokenIndex Die Nummer des Indikator-Tokens (siehe indexOf()).
+	 * @param typeId Die ID des Types in der SymbolTable.
+	 * @return true, wenn die Tokens sich hneln; sonst false.
+	 */
+	public boolean isSimilar(int indicatorTokenIndex, int typeId) {
+		Closure current = closure;
+		if(!current.isComputed(typeId)){
+			if(typeId >= maxTypes){
+				String type = symbols.symbol(typeId);
+				return sc.computeNWsimilar(indicatorTokenList[indicatorTokenIndex], indicatorTokenSignatures[indicatorTokenIndex],
+						type, SimilarityCalculator.bigramSignature(type));
+			}
+			current = publish(typeId, compute(typeId));
+		}
+		return (current.similarTypes[indicatorTokenIndex][typeId >>> 6] & (1L << typeId)) != 0;
+	}
+
+	/**
+	 * Gibt die Nummern aller Indikator-Tokens zurck, denen der Type mit der bergebenen ID hnlich ist, z.B. um mit einem Satz-Token
+	 * alle passenden bergnge eines SubstringRuleMatchers zu finden.
+	 * @param typeId Die ID des Types in der SymbolTable.
+	 * @return Die Nummern der hnlichen Indikator-Tokens in aufsteigender Reihenfolge. Das Array darf nicht verndert werden.
+	 */
+	public int[] getSimilarIndicatorTokens(int typeId) {
+		Closure current = closure;
+		if(!current.isComputed(typeId)){
+			if(typeId >= maxTypes){
+				return compute(typeId);
+			}
+			current = publish(typeId, compute(typeId));
+		}
+		return current.similarIndicatorTokens[typeId];
+	}
+
+	/**
+	 * Vergleicht den Type mit der bergebenen ID mit allen Indikator-Tokens. Die Vergleiche hngen nur vom Type und den
+	 * unvernderlichen Indikator-Tokens ab und laufen daher ohne Sperre, so dass mehrere Threads gleichzeitig verschiedene neue
+	 * Types berechnen knnen. Nur das Eintragen des Ergebnisses in die Bitmengen geschieht unter der Sperre (siehe publish()).
+	 * @return Die Nummern der Indikator-Tokens, denen der Type hnlich ist, in aufsteigender Reihenfolge.
+	 */
+	private int[] compute(int typeId) {
+		String type = symbols.symbol(typeId);
+		long typeSignature = SimilarityCalculator.bigramSignature(type);
+		int[] similarIndicatorTokens = new int[indicatorTokenList.length];
+		int similarCount = 0;
+		for(int i = 0; i < indicatorTokenList.length; i++){
+			if(sc.computeNWsimilar(indicatorTokenList[i], indicatorTokenSignatures[i], type, typeSignature)){
+				similarIndicatorTokens[similarCount++] = i;
+			}
+		}
+		return Arrays.copyOf(similarIndicatorTokens, similarCount);
+	}
+
+	/**
+	 * Trgt das Ergebnis von compute() in die Bitmengen ein und vergrert sie dafr falls ntig. Hat ein anderer Thread denselben
+	 * Type inzwischen eingetragen, bleibt dessen (gleiches) Ergebnis bestehen.
+	 * @param similarIndicatorTokens Die Nummern der Indikator-Tokens, denen der Type hnlich ist, in aufsteigender Reihenfolge.
+	 * @return Die Bitmengen, in denen der Type berechnet ist.
+	 */
+	private synchronized Closure publish(int typeId, int[] similarIndicatorTokens) {
+		Closure current = closure;
+		if(current.isComputed(typeId)){
+			return current;
+		}
+		if(typeId >= current.capacity){
+			// Platz fr alle bisher bekannten Types (hchstens maxTypes) schaffen, damit nicht fr jeden neuen Type kopiert werden muss
+			current = current.copy(Math.max(typeId + 1, Math.min(Math.max(symbols.size(), current.capacity * 2), maxTypes)));
+			closure = current;
+		}
+
+		int word = typeId >>> 6;
+		long bit = 1L << typeId;
+		for(int i : similarIndicatorTokens){
+			current.similarTypes[i][word] |= bit;
+		}
+		current.similarIndicatorTokens[typeId] = similarIndicatorTokens;
+		// Erst nach den Bits der Indikator-Tokens als berechnet markieren (AtomicLongArray.set() macht sie fr die Leser sichtbar)
+		current.computed.set(word, current.computed.get(word) | bit);
+		current.computedCount++;
+		return current;
+	}
+
+	/**
+	 * Begrenzt die Bitmengen auf die Types mit einer ID kleiner als maxTypes. Bereits gespeicherte Types mit einer hheren ID
+	 * bleiben erhalten, neue werden bei jeder Abfrage neu mit den Indikator-Tokens verglichen.
+	 * @param maxTypes Die Anzahl der Types, die hchstens gespeichert werden.
+	 */
+	public void setMaxTypes(int maxTypes) {
+		this.maxTypes = Math.max(0, maxTypes);
+	}
+
+	/**
+	 * @return Die Anzahl der verschiedenen Indikator-Tokens.
+	 */
+	public int getIndicatorTokenCount() {
+		return indicatorTokenList.length;
+	}
+
+	/**
+	 * @return Die Anzahl der Types, die bereits mit den Indikator-Tokens verglichen wurden.
+	 */
+	public synchronized int getTypeCount() {
+		return closure.computedCount;
+	}
+
+	@Override
+	public String toString() {
+		return getIndicatorTokenCount()+" indicator tokens compared with "+getTypeCount()+" types";
+	}
+
+	/**
+	 * Die Bitmengen fr die Types mit den IDs 0 bis capacity - 1. Fr welche dieser Types sie bereits berechnet wurden, steht in
+	 * computed. similarIndicatorTokens enthlt dieselbe Information pro Type als Liste der hnlichen Indikator-Tokens.
+	 */
+	private static final class Closure {
+
+		private final int capacity;
+		private final long[][] similarTypes;
+		private final int[][] similarIndicatorTokens;
+		private final AtomicLongArray computed;
+		private int computedCount;
+
+		Closure(int indicatorTokenCount, int capacity) {
+			this.capacity = capacity;
+			this.similarTypes = new long[indicatorTokenCount][(capacity + 63) >>> 6];
+			this.similarIndicatorTokens = new int[capacity][];
+			this.computed = new AtomicLongArray((capacity + 63) >>> 6);
+		}
+
+		private Closure(int capacity, long[][] similarTypes, int[][] similarIndicatorTokens, AtomicLongArray computed, int computedCount) {
+			this.capacity = capacity;
+			this.similarTypes = similarTypes;
+			this.similarIndicatorTokens = similarIndicatorTokens;
+			this.computed = computed;
+			this.computedCount = computedCount;
+		}
+
+		boolean isComputed(int typeId) {
+			return typeId < capacity && (computed.get(typeId >>> 6) & (1L << typeId)) != 0;
+		}
+
+		Closure copy(int newCapacity) {
+			int wordCount = (newCapacity + 63) >>> 6;
+			long[][] largerSimilarTypes = new long[similarTypes.length][];
+			for(int i = 0; i < similarTypes.length; i++){
+				largerSimilarTypes[i] = Arrays.copyOf(similarTypes[i], wordCount);
+			}
+			AtomicLongArray largerComputed = new AtomicLongArray(wordCount);
+			for(int i = 0; i < computed.length(); i++){
+				largerComputed.set(i, computed.get(i));
+			}
+			return new Closure(newCapacity, largerSimilarTypes, Arrays.copyOf(similarIndicatorTokens, newCapacity), largerComputed, computedCount);
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package classification;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import dataClasses.label.DiplomaticLabel;
+import dataClasses.sentence.AbstractSentence;
+
+/**
+ * Eine einzelne, bereits kompilierte Indikatorregel aus der Indikatordatei (siehe DiplomaticClassifier.indicators). Statt die
+ * Werte des Indikatorarrays bei jedem Abgleich erneut zu parsen, werden Label, hnlichkeitsgrad und Positionsbedingung einmalig
+ * in Enums umgewandelt und der Indikatorstring wird einmalig in Tokens zerlegt. Objekte dieser Klasse sind unvernderlich.
+ * @author Alina Ostrowski
+ *
+ */
+public final class IndicatorRule {
+
+	/**
+	 * Der Grad an hnlichkeit, der zwischen Indikator und Satz bestehen muss, damit die Regel greift.
+	 */
+	public enum MatchMode {
+		/** 1 = Der Indikator ist ein Substring des Satzes (siehe SimilarityCalculator.containsSimilarTokenSubstring()). */
+		SUBSTRING,
+		/** 2 = Der Indikator ist ein Subset des Satzes (siehe SimilarityCalculator.containsAllTokens()). */
+		SUBSET,
+		/** 3 = Der Indikator hnelt einem Substring des Satzes (siehe SimilarityCalculator.similarityOfSubstring()). */
+		SIMILAR;
+
+		/**
+		 * @param code Die Ziffer aus der Indikatordatei.
+		 * @return Den passenden MatchMode oder null, falls die Ziffer keinem hnlichkeitsgrad entspricht.
+		 */
+		static MatchMode byCode(int code) {
+			switch(code){
+			case 1: return SUBSTRING;
+			case 2: return SUBSET;
+			case 3: return SIMILAR;
+			default: return null;
+			}
+		}
+	}
+
+	/**
+	 * Die Position innerhalb der Urkunde, an der ein Satz stehen muss, damit die Regel fr ihn gilt.
+	 */
+	public enum Position {
+		/** 0 oder unbekannte Ziffer = keine Positionsbedingung */
+		ANY,
+		/** 1 = Satz muss innerhalb des Protokolls stehen */
+		PROTOCOL,
+		/** 2 = Satz muss innerhalb des Kontextes stehen */
+		CONTEXT,
+		/** 3 = Satz muss innerhalb des Eschatokolls stehen */
+		ESCHATOCOL;
+
+		static Position byCode(int code) {
+			switch(code){
+			case 1: return PROTOCOL;
+			case 2: return CONTEXT;
+			case 3: return ESCHATOCOL;
+			default: return ANY;
+			}
+		}
+	}
+
+	/**
+	 * Der Mindestwert von SimilarityCalculator.similarityOfSubstring(), ab dem eine Regel mit dem MatchMode SIMILAR greift.
+	 */
+	static final double MIN_SUBSTRING_SIMILARITY = 0.75;
+
+	private final String indicator;
+	private final List<String> tokens;
+	private final DiplomaticLabel label;
+	private final MatchMode matchMode;
+	private final Position position;
+
+	/**
+	 * Kompiliert ein Indikatorarray im Format der Feldvariable DiplomaticClassifier.indicators.
+	 * @param indicatorArray Das bereits normalisierte Indikatorarray.
+	 * @throws IllegalArgumentException Falls das Label unbekannt ist oder hnlichkeitsgrad bzw. Positionsbedingung keine Ziffern sind.
+	 */
+	IndicatorRule(String[] indicatorArray) {
+		this.indicator = indicatorArray[0];
+		this.tokens = Collections.unmodifiableList(Arrays.asList(indicator.split("\\s+")));
+		this.label = DiplomaticLabel.valueOf(indicatorArray[1]);
+		this.matchMode = MatchMode.byCode(Integer.valueOf(indicatorArray[2]));
+		this.position = Position.byCode(Integer.valueOf(indicatorArray[3]));
+	}
+
+	/**
+	 * Prft, ob der bergebene Satz den Indikator dieser Regel im geforderten hnlichkeitsgrad enthlt. Die
+	 * Positionsbedingung wird dabei nicht geprft. Verglichen werden die bereits bei der Vorverarbeitung ermittelten Tokens des
+	 * Satzes; nur wenn der Satz noch nicht tokenisiert wurde, wird sein Text in Tokens zerlegt.
+	 * @param sc Der SimilarityCalculator, mit dem die hnlichkeit berechnet wird.
+	 * @param sentence Der Satz.
+	 * @return true, wenn die Regel auf den Satz zutrifft; sonst false.
+	 */
+	public boolean matches(SimilarityCalculator sc, AbstractSentence sentence) {
+		int[] tokenIds = sentence.getTokenIds();
+		if(tokenIds == null){
+			return matches(sc, sentence.getText());
+		}
+		if(matchMode == null){
+			return false;
+		}
+		switch(matchMode){
+		case SUBSTRING:
+			return sc.containsSimilarTokenSubstring(tokens, tokenIds);
+		case SUBSET:
+			return sc.containsAllTokens(tokens, tokenIds);
+		case SIMILAR:
+			return sc.similarityOfSubstring(tokens, tokenIds) >= MIN_SUBSTRING_SIMILARITY;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Prft, ob der bergebene Satztext den Indikator dieser Regel im geforderten hnlichkeitsgrad enthlt. Die
+	 * Positionsbedingung wird dabei nicht geprft.
+	 * @param sc Der SimilarityCalculator, mit dem die hnlichkeit berechnet wird.
+	 * @param text Der Text des Satzes.
+	 * @return true, wenn die Regel auf den Text zutrifft; sonst false.
+	 */
+	public boolean matches(SimilarityCalculator sc, String text) {
+		if(matchMode == null){
+			return false;
+		}
+		switch(matchMode){
+		case SUBSTRING:
+			return sc.containsSimilarTokenSubstring(tokens, text);
+		case SUBSET:
+			return sc.containsAllTokens(tokens, text);
+		case SIMILAR:
+			return sc.similarityOfSubstring(tokens, text) >= MIN_SUBSTRING_SIMILARITY;
+		default:
+			return false;
+		}
+	}
+
+	public String getIndicator() {
+		return indicator;
+	}
+
+	/**
+	 * @return Die Tokens des Indikators als unvernderliche Liste.
+	 */
+	public List<String> getTokens() {
+		return tokens;
+	}
+
+	public DiplomaticLabel getLabel() {
+		return label;
+	}
+
+	/**
+	 * @return Den hnlichkeitsgrad der Regel oder null, falls die Indikatordatei eine unbekannte Ziffer enthlt. Solche Regeln greifen nie.
+	 */
+	public MatchMode getMatchMode() {
+		return matchMode;
+	}
+
+	public Position getPosition() {
+		return position;
+	}
+
+	@Override
+	public String toString() {
+		return indicator+" -> "+label+" ("+matchMode+", "+position+")";
+	}
+}
@@ -0,0 +1,350 @@
+package classification;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import config.ClassificationConfig;
+import config.Milestones;
+import config.ModelSources;
+import dataClasses.label.DiplomaticLabel;
+import preprocessing.FeatureIndex;
+import preprocessing.Preprocessor;
+import preprocessing.SparseVector;
+import preprocessing.SymbolTable;
+import preprocessing.VectorType;
+import preprocessing.Vocabulary;
+
+/**
+ * Ein trainierter NaiveBayes-Classifier samt Vokabular, der per Memory-Mapping direkt aus einer Modell-Datei gelesen wird.
+ * Die Tabellen werden nicht in den Heap geladen, sondern bei der Vektorisierung und Klassifizierung direkt in der gemappten
+ * Datei nachgeschlagen. Laufen mehrere Programminstanzen mit derselben Modell-Datei, teilen sie sich so ber den Page-Cache
+ * des Betriebssystems eine Kopie des Modells, und das Modell belastet weder Heap noch Garbage Collector.<br>
+ * Aufbau der Datei (alle Werte big-endian):
+ * <ul>
+ * <li> Header: Kennung, Versionsnummer, CRC32-Prfsumme ber den Rest der Datei, ClassificationConfig, Anzahl der Labels,
+ * Gre des Vokabulars, Lnge der Type-Namen in Byte, averageProtocolEnd und inversedAverageEschatocolStart der Milestones,
+ * Fingerabdrcke der Trainingsurkunden und der Indikatordatei (siehe ModelSources) </li>
+ * <li> die vier Wahrscheinlichkeits-Arrays der Milestones (double) </li>
+ * <li> P(Label) fr jedes Label (double) </li>
+ * <li> das idf-Gewicht eines jeden Types (double) </li>
+ * <li> log(P(Type|Label)) fr Type t und Label l an Position t * Anzahl der Labels + l (double) </li>
+ * <li> die Startposition des Namens eines jeden Types (int) sowie das Ende des letzten Namens </li>
+ * <li> die Namen aller Types als UTF-8-Bytes (siehe SymbolTable.featureName()) </li>
+ * </ul>
+ * Die Types sind nach den Bytes ihrer Namen sortiert, so dass die Position eines Types per binrer Suche gefunden wird.
+ * Die Position eines Types in der Datei ist zugleich seine Position im Vektor.
+ * @author Alina Ostrowski
+ *
+ */
+public class MappedClassifierModel implements VectorClassifier, FeatureIndex {
+
+	private static final int MAGIC = 0x44434D4D; // "DCMM"
+	private static final int VERSION = 2;
+	private static final int CHECKSUM_START = 16;
+	private static final int HEADER_SIZE = 72;
+
+	private final ByteBuffer buffer;
+	private final ClassificationConfig config;
+	private final ModelSources sources;
+	private final Milestones milestones;
+	private final double[] probOfLabel;
+	private final int labelCount;
+	private final int vocabularySize;
+
+	// Startpositionen der Abschnitte in der Datei
+	private final int idfStart;
+	private final int matrixStart;
+	private final int nameOffsetsStart;
+	private final int namesStart;
+
+	/**
+	 * Mappt die Modell-Datei und prft ihre Prfsumme.
+	 * @param path Der Pfad der Modell-Datei.
+	 * @throws IOException Wenn die Datei nicht gelesen werden kann, ein unbekanntes Format hat oder beschdigt ist.
+	 */
+	public MappedClassifierModel(String path) throws IOException {
+		try(FileChannel channel = FileChannel.open(new File(path).toPath(), StandardOpenOption.READ)){
+			long size = channel.size();
+			if(size < HEADER_SIZE || size > Integer.MAX_VALUE){
+				throw new IOException("The file "+path+" is no mapped classifier model.");
+			}
+			// das Mapping bleibt auch nach dem Schlieen des Channels gltig
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		if(buffer.getInt(0) != MAGIC){
+			throw new IOException("The file "+path+" is no mapped classifier model.");
+		}
+		if(buffer.getInt(4) != VERSION){
+			throw new IOException("The mapped classifier model "+path+" has the unsupported version "+buffer.getInt(4)+".");
+		}
+		int vectorType = buffer.getInt(20);
+		labelCount = buffer.getInt(28);
+		vocabularySize = buffer.getInt(32);
+		int namesLength = buffer.getInt(36);
+		if(vectorType < 0 || vectorType >= VectorType.values().length || labelCount != DiplomaticLabel.values().length || vocabularySize < 0 || namesLength < 0
+				|| buffer.capacity() != fileSize(labelCount, vocabularySize, namesLength)){
+			throw new IOException("The mapped classifier model "+path+" is damaged.");
+		}
+		if(buffer.getLong(8) != checksum(buffer)){
+			throw new IOException("The mapped classifier model "+path+" is damaged (wrong checksum).");
+		}
+		config = new ClassificationConfig(buffer.getInt(16), VectorType.values()[vectorType], buffer.getInt(24) != 0);
+		sources = new ModelSources(buffer.getLong(56), buffer.getLong(64));
+
+		int milestonesStart = HEADER_SIZE;
+		int priorsStart = milestonesStart + 4 * labelCount * 8;
+		idfStart = priorsStart + labelCount * 8;
+		matrixStart = idfStart + vocabularySize * 8;
+		nameOffsetsStart = matrixStart + vocabularySize * labelCount * 8;
+		namesStart = nameOffsetsStart + (vocabularySize + 1) * 4;
+
+		// Milestones und P(Label) sind nur wenige Werte und werden in den Heap kopiert
+		milestones = new Milestones(buffer.getDouble(40), buffer.getDouble(48), readDoubles(milestonesStart),
+				readDoubles(milestonesStart + labelCount * 8), readDoubles(milestonesStart + 2 * labelCount * 8),
+				readDoubles(milestonesStart + 3 * labelCount * 8));
+		probOfLabel = readDoubles(priorsStart);
+	}
+
+	/**
+	 * Schreibt den NaiveBayes-Classifier, das Vokabular und die Milestones des bergebenen Modells in eine Datei, die mit
+	 * diesem Konstruktor gemappt werden kann. Die Datei wird zunchst unter einem temporren Namen geschrieben und erst danach
+	 * umbenannt, so dass Programminstanzen, die die bisherige Datei gemappt haben, nicht gestrt werden.
+	 * @param path Der Pfad der Modell-Datei.
+	 * @param model Das trainierte Modell.
+	 * @throws IOException Wenn die Datei nicht geschrieben werden kann.
+	 */
+	public static void write(String path, ClassifierModel model) throws IOException {
+		ProbabilisticClassifier pc = model.getProbabilisticClassifier();
+		Vocabulary vocabulary = (Vocabulary) pc.getVocabulary();
+		MultinomialNaiveBayes naiveBayes = (MultinomialNaiveBayes) pc.getNaiveBayes();
+		Milestones ms = model.getDiplomaticClassifier().getMilestones();
+		ClassificationConfig cc = model.getConfig();
+		int labelCount = naiveBayes.getLabelCount();
+		int vocabularySize = vocabulary.size();
+
+		// Types nach den Bytes ihrer Namen sortieren
+		List<String> types = vocabulary.getTypes();
+		byte[][] names = new byte[vocabularySize][];
+		Integer[] order = new Integer[vocabularySize];
+		int namesLength = 0;
+		for(int i = 0; i < vocabularySize; i++){
+			names[i] = types.get(i).getBytes(StandardCharsets.UTF_8);
+			order[i] = i;
+			namesLength += names[i].length;
+		}
+		Arrays.sort(order, Comparator.comparing((Integer i) -> names[i], MappedClassifierModel::compareBytes));
+
+		long fileSize = fileSize(labelCount, vocabularySize, namesLength);
+		if(fileSize > Integer.MAX_VALUE){
+			throw new IOException("The classifier model is too large to be mapped.");
+		}
+		ByteBuffer out = ByteBuffer.allocate((int) fileSize);
+		out.putInt(MAGIC).putInt(VERSION).putLong(0);
+		out.putInt(cc.getSequProbsTolerance()).putInt(cc.getVectorType().ordinal()).putInt(cc.getUseBigramsInsteadOfTokens() ? 1 : 0);
+		out.putInt(labelCount).putInt(vocabularySize).putInt(namesLength);
+		out.putDouble(ms.getAverageProtocolEnd()).putDouble(ms.getInversedAverageEschatocolStart());
+		out.putLong(model.getSources().getTrainingFingerprint()).putLong(model.getSources().getIndicatorFingerprint());
+		putDoubles(out, ms.getDiplomaPartProbabilities(), labelCount);
+		putDoubles(out, ms.getProtocolDiplomaPartProbabilities(), labelCount);
+		putDoubles(out, ms.getContextDiplomaPartProbabilities(), labelCount);
+		putDoubles(out, ms.getEschatocolDiplomaPartProbabilities(), labelCount);
+		putDoubles(out, naiveBayes.getProbOfLabel(), labelCount);
+		for(int type : order){
+			out.putDouble(vocabulary.getIdfWeight(type));
+		}
+		double[] logProbOfTypeGivenLabel = naiveBayes.getLogProbOfTypeGivenLabel();
+		for(int type : order){
+			for(int l = 0; l < labelCount; l++){
+				out.putDouble(logProbOfTypeGivenLabel[type * labelCount + l]);
+			}
+		}
+		int nameOffset = 0;
+		for(int type : order){
+			out.putInt(nameOffset);
+			nameOffset += names[type].length;
+		}
+		out.putInt(nameOffset);
+		for(int type : order){
+			out.put(names[type]);
+		}
+		out.putLong(8, checksum(out));
+		out.flip();
+
+		File file = new File(path);
+		if(file.getAbsoluteFile().getParentFile() != null) file.getAbsoluteFile().getParentFile().mkdirs();
+		File tempFile = new File(path+".tmp");
+		try(FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+			while(out.hasRemaining()){
+				channel.write(out);
+			}
+			channel.force(false);
+		}
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Erstellt einen ProbabilisticClassifier, der mit diesem Modell vektorisiert und klassifiziert.
+	 * @param pp Der Preprocessor, mit dem die zu klassifizierenden Stze vorbereitet werden.
+	 */
+	public ProbabilisticClassifier createProbabilisticClassifier(Preprocessor pp) {
+		return new ProbabilisticClassifier(pp, this, this, config.getUseBigramsInsteadOfTokens(), config.getVectorType());
+	}
+
+	/**
+	 * Erstellt einen DiplomaticClassifier mit den Milestones dieses Modells. Die Indikatoren werden nicht im Modell gespeichert,
+	 * sondern aus der Indikatordatei gelesen; ob diese seit dem Training unverndert ist, zeigt getSources().
+	 * @param indicatorPath Der Pfad, unter dem sich die Datei mit den Indikatoren befindet.
+	 */
+	public DiplomaticClassifier createDiplomaticClassifier(String indicatorPath) {
+		return new DiplomaticClassifier(indicatorPath, milestones);
+	}
+
+	/**
+	 * @return Die Fingerabdrcke der Trainingsurkunden und der Indikatordatei, aus denen das Modell trainiert wurde.
+	 */
+	public ModelSources getSources() {
+		return sources;
+	}
+
+	/**
+	 * @return true, wenn das Modell mit denselben Einstellungen wie in der bergebenen Konfiguration trainiert wurde.
+	 */
+	public boolean isTrainedWith(ClassificationConfig cc) {
+		return config.getSequProbsTolerance() == cc.getSequProbsTolerance()
+				&& config.getVectorType() == cc.getVectorType()
+				&& config.getUseBigramsInsteadOfTokens() == cc.getUseBigramsInsteadOfTokens();
+	}
+
+	@Override
+	public int indexOf(long feature) {
+		byte[] name = SymbolTable.getShared().featureName(feature).getBytes(StandardCharsets.UTF_8);
+		int low = 0;
+		int high = vocabularySize - 1;
+		while(low <= high){
+			int middle = (low + high) >>> 1;
+			int comparison = compareName(middle, name);
+			if(comparison < 0){
+				low = middle + 1;
+			} else if(comparison > 0){
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public double getIdfWeight(int index) {
+		return buffer.getDouble(idfStart + index * 8);
+	}
+
+	@Override
+	public int size() {
+		return vocabularySize;
+	}
+
+	/**
+	 * Berechnet die Wahrscheinlichkeit eines jeden Labels fr den bergebenen Satzvektor wie MultinomialNaiveBayes, liest
+	 * log(P(Type|Label)) dabei aber direkt aus der gemappten Datei.
+	 */
+	@Override
+	public void distributionForVector(SparseVector vector, double[] labelProbabilities) {
+		int[] indices = vector.getIndices();
+		float[] values = vector.getValues();
+
+		for(int l = 0; l < labelCount; l++){
+			labelProbabilities[l] = 0;
+		}
+		for(int i = 0; i < indices.length; i++){
+			if(indices[i] >= vocabularySize) continue;
+			double value = values[i];
+			int offset = matrixStart + indices[i] * labelCount * 8;
+			for(int l = 0; l < labelCount; l++){
+				labelProbabilities[l] += value * buffer.getDouble(offset + l * 8);
+			}
+		}
+
+		MultinomialNaiveBayes.toProbabilities(labelProbabilities, probOfLabel);
+	}
+
+	@Override
+	public int getLabelCount() {
+		return labelCount;
+	}
+
+	public ClassificationConfig getConfig() {
+		return config;
+	}
+
+	public Milestones getMilestones() {
+		return milestones;
+	}
+
+	/**
+	 * Vergleicht den Namen des Types an der bergebenen Position mit dem bergebenen Namen (siehe compareBytes()).
+	 */
+	private int compareName(int type, byte[] name){
+		int start = namesStart + buffer.getInt(nameOffsetsStart + type * 4);
+		int length = namesStart + buffer.getInt(nameOffsetsStart + (type + 1) * 4) - start;
+		int common = Math.min(length, name.length);
+		for(int i = 0; i < common; i++){
+			int difference = (buffer.get(start + i) & 0xFF) - (name[i] & 0xFF);
+			if(difference != 0) return difference;
+		}
+		return length - name.length;
+	}
+
+	/**
+	 * Vergleicht zwei Byte-Folgen Byte fr Byte (ohne Vorzeichen), eine krzere Folge steht vor allen mit ihr beginnenden Folgen.
+	 */
+	private static int compareBytes(byte[] a, byte[] b){
+		int common = Math.min(a.length, b.length);
+		for(int i = 0; i < common; i++){
+			int difference = (a[i] & 0xFF) - (b[i] & 0xFF);
+			if(difference != 0) return difference;
+		}
+		return a.length - b.length;
+	}
+
+	private static long fileSize(int labelCount, int vocabularySize, int namesLength){
+		return HEADER_SIZE + (4L + 1) * labelCount * 8 + (long) vocabularySize * 8 + (long) vocabularySize * labelCount * 8
+				+ ((long) vocabularySize + 1) * 4 + namesLength;
+	}
+
+	/**
+	 * @return Die CRC32-Prfsumme ber alle Bytes des Puffers hinter dem Prfsummen-Feld.
+	 */
+	private static long checksum(ByteBuffer buffer){
+		ByteBuffer content = buffer.duplicate();
+		content.limit(content.capacity());
+		content.position(CHECKSUM_START);
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		return crc.getValue();
+	}
+
+	private double[] readDoubles(int start){
+		double[] values = new double[labelCount];
+		for(int l = 0; l < labelCount; l++){
+			values[l] = buffer.getDouble(start + l * 8);
+		}
+		return values;
+	}
+
+	private static void putDoubles(ByteBuffer out, double[] values, int count){
+		for(int i = 0; i < count; i++){
+			out.putDouble(values[i]);
+		}
+	}
+}
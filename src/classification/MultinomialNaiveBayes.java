@@ -0,0 +1,157 @@
+package classification;
+
+import java.util.Arrays;
+import java.util.List;
+
+import preprocessing.SparseVector;
+
+/**
+ * Eigene Implementierung eines multinomialen NaiveBayes-Classifiers, die ohne Weka-Objekte direkt auf den dnn besetzten
+ * Satzvektoren arbeitet. Die Berechnung entspricht Schritt fr Schritt der von weka.classifiers.bayes.NaiveBayesMultinomial
+ * (Laplace-Glttung der Wort-Hufigkeiten, geglttete Klassen-Wahrscheinlichkeiten), so dass beide Classifier dieselben
+ * Label-Wahrscheinlichkeiten liefern.<br>
+ * Die logarithmierten Wahrscheinlichkeiten P(Type|Label) werden in einer Tabelle aus Labels x Vokabular gespeichert. Die
+ * Werte eines Types liegen darin fr alle Labels nebeneinander, so dass bei der Klassifizierung eines Satzes fr jeden
+ * seiner Types nur ein zusammenhngender Abschnitt der Tabelle gelesen wird.
+ * @author Alina Ostrowski
+ *
+ */
+public class MultinomialNaiveBayes implements VectorClassifier {
+
+	private final int labelCount;
+	private final int vocabularySize;
+
+	/**
+	 * log(P(Type|Label)) fr Type t und Label l an Position t * labelCount + l
+	 */
+	private final double[] logProbOfTypeGivenLabel;
+	private final double[] probOfLabel;
+
+	/**
+	 * Trainiert den Classifier mit den bergebenen Vektoren.
+	 * @param vectors Die Vektoren der Trainingsstze.
+	 * @param labels Der Index des Labels (DiplomaticLabel.ordinal()) eines jeden Trainingssatzes.
+	 * @param labelCount Die Anzahl aller mglichen Labels.
+	 * @param vocabularySize Die Gre des Vokabulars, d.h. die Lnge der Vektoren.
+	 */
+	public MultinomialNaiveBayes(List<SparseVector> vectors, int[] labels, int labelCount, int vocabularySize) {
+		this.labelCount = labelCount;
+		this.vocabularySize = vocabularySize;
+
+		// Hufigkeiten zhlen, jeweils mit 1 initialisiert (Laplace-Glttung)
+		double[] typeCountsPerLabel = new double[labelCount * vocabularySize];
+		Arrays.fill(typeCountsPerLabel, 1.0);
+		double[] typesPerLabel = new double[labelCount];
+		double[] docsPerLabel = new double[labelCount];
+		for(int d = 0; d < vectors.size(); d++){
+			int label = labels[d];
+			docsPerLabel[label] += 1.0;
+			SparseVector vector = vectors.get(d);
+			int[] indices = vector.getIndices();
+			float[] values = vector.getValues();
+			for(int i = 0; i < indices.length; i++){
+				double count = values[i];
+				if(count < 0){
+					throw new IllegalArgumentException("Numeric attribute values must all be greater or equal to zero.");
+				}
+				typesPerLabel[label] += count;
+				typeCountsPerLabel[indices[i] * labelCount + label] += count;
+			}
+		}
+
+		// Hufigkeiten in logarithmierte Wahrscheinlichkeiten umrechnen. Wie bei Weka wird die Anzahl der Attribute
+		// (Vokabular + Label-Attribut) addiert und 1 abgezogen
+		double attributeCount = vocabularySize + 1;
+		logProbOfTypeGivenLabel = typeCountsPerLabel;
+		for(int t = 0; t < vocabularySize; t++){
+			for(int l = 0; l < labelCount; l++){
+				int position = t * labelCount + l;
+				logProbOfTypeGivenLabel[position] = Math.log(typeCountsPerLabel[position] / (typesPerLabel[l] + attributeCount - 1));
+			}
+		}
+
+		probOfLabel = new double[labelCount];
+		double docCount = vectors.size() + (double) labelCount;
+		for(int l = 0; l < labelCount; l++){
+			probOfLabel[l] = (docsPerLabel[l] + 1) / docCount;
+		}
+	}
+
+	/**
+	 * Erstellt einen bereits trainierten Classifier, z.B. beim Laden eines gespeicherten Modells (siehe ClassifierModel).
+	 * @param logProbOfTypeGivenLabel log(P(Type|Label)) fr Type t und Label l an Position t * labelCount + l.
+	 * @param probOfLabel P(Label) fr jedes Label.
+	 */
+	MultinomialNaiveBayes(double[] logProbOfTypeGivenLabel, double[] probOfLabel) {
+		this.labelCount = probOfLabel.length;
+		this.vocabularySize = logProbOfTypeGivenLabel.length / labelCount;
+		this.logProbOfTypeGivenLabel = logProbOfTypeGivenLabel;
+		this.probOfLabel = probOfLabel;
+	}
+
+	/**
+	 * Berechnet die Wahrscheinlichkeit eines jeden Labels fr den bergebenen Satzvektor. Es werden dabei keine Objekte erzeugt.
+	 * @param vector Der Vektor des Satzes.
+	 * @param labelProbabilities Array der Lnge getLabelCount(), in das die Wahrscheinlichkeiten geschrieben werden.
+	 */
+	@Override
+	public void distributionForVector(SparseVector vector, double[] labelProbabilities) {
+		int[] indices = vector.getIndices();
+		float[] values = vector.getValues();
+
+		// log(P(Satz|Label)) fr jedes Label aufsummieren
+		for(int l = 0; l < labelCount; l++){
+			labelProbabilities[l] = 0;
+		}
+		for(int i = 0; i < indices.length; i++){
+			if(indices[i] >= vocabularySize) continue;
+			double value = values[i];
+			int offset = indices[i] * labelCount;
+			for(int l = 0; l < labelCount; l++){
+				labelProbabilities[l] += value * logProbOfTypeGivenLabel[offset + l];
+			}
+		}
+
+		toProbabilities(labelProbabilities, probOfLabel);
+	}
+
+	/**
+	 * Rechnet die aufsummierten Werte log(P(Satz|Label)) in normalisierte Wahrscheinlichkeiten P(Label|Satz) um. Die Werte
+	 * werden dabei relativ zum grten Wert berechnet, um Unterlufe zu vermeiden.
+	 * @param labelProbabilities log(P(Satz|Label)) fr jedes Label, wird mit den Wahrscheinlichkeiten berschrieben.
+	 * @param probOfLabel P(Label) fr jedes Label.
+	 */
+	static void toProbabilities(double[] labelProbabilities, double[] probOfLabel) {
+		int labelCount = probOfLabel.length;
+		int maxIndex = 0;
+		for(int l = 1; l < labelCount; l++){
+			if(labelProbabilities[l] > labelProbabilities[maxIndex]) maxIndex = l;
+		}
+		double max = labelProbabilities[maxIndex];
+		double sum = 0;
+		for(int l = 0; l < labelCount; l++){
+			labelProbabilities[l] = Math.exp(labelProbabilities[l] - max) * probOfLabel[l];
+			sum += labelProbabilities[l];
+		}
+		for(int l = 0; l < labelCount; l++){
+			labelProbabilities[l] /= sum;
+		}
+	}
+
+	@Override
+	public int getLabelCount() {
+		return labelCount;
+	}
+
+	public int getVocabularySize() {
+		return vocabularySize;
+	}
+
+	double[] getLogProbOfTypeGivenLabel() {
+		return logProbOfTypeGivenLabel;
+	}
+
+	double[] getProbOfLabel() {
+		return probOfLabel;
+	}
+}
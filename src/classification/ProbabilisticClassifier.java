@@ -2,15 +2,18 @@ package classification;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 import dataClasses.diploma.TrainingDiploma;
 import dataClasses.label.DiplomaticLabel;
 import dataClasses.sentence.AbstractSentence;
 import dataClasses.sentence.TrainingSentence;
 
+import preprocessing.FeatureIndex;
+import preprocessing.LongIntHashMap;
 import preprocessing.Preprocessor;
+import preprocessing.SparseVector;
 import preprocessing.VectorType;
+import preprocessing.Vocabulary;
 
 import weka.classifiers.bayes.NaiveBayesMultinomial;
 import weka.core.Attribute;
@@ -21,7 +24,9 @@ import weka.core.SparseInstance;
 /**
  * Der ProbabilisticClassifier verwaltet die Trainingsdaten des Programms. Mit diesen wird der Classifier trainiert.
  * Die Klasse bietet als einzige ffentliche Methode die classify()-Methode an.
- * Der eigentliche Classifier wird realisiert mithilfe der Java-Library des <b>Weka-Project der Waikato Universitt Neuseeland</b>. Link zur
+ * Der eigentliche Classifier ist ein multinomialer NaiveBayes-Classifier (MultinomialNaiveBayes), der direkt auf den dnn besetzten
+ * Satzvektoren arbeitet. Im Weka-Kompatibilittsmodus wird stattdessen wie bisher der Classifier der Java-Library des <b>Weka-Project
+ * der Waikato Universitt Neuseeland</b> genutzt, z.B. um die Ergebnisse beider Classifier zu vergleichen. Link zur
  * Projekt-Homepage: https://www.cs.waikato.ac.nz/ml/index.html (zuletzt aufgerufen 20.08.2019)
  * @author Alina Ostrowski
  *
@@ -32,31 +37,43 @@ public class ProbabilisticClassifier {
 	private List<TrainingSentence> trainingSentences;
 	
 	/**
-	 * Der Classifier stammt aus der Weka-Library. Es handelt sich um einen multinomialen NaiveBayes-Classifier, d.h. er
-	 * ist dafr optimiert, Multilabel-Classification zu untersttzen.
+	 * Der eigene multinomiale NaiveBayes-Classifier (MultinomialNaiveBayes oder MappedClassifierModel), null im Weka-Kompatibilittsmodus
+	 */
+	private VectorClassifier naiveBayes;
+	
+	/**
+	 * Der Classifier aus der Weka-Library, der im Weka-Kompatibilittsmodus genutzt wird. Es handelt sich um einen multinomialen
+	 * NaiveBayes-Classifier, d.h. er ist dafr optimiert, Multilabel-Classification zu untersttzen.
 	 */
 	private NaiveBayesMultinomial nbm;
 	private Instances trainingInstances;
+	private boolean useWeka;
 	
 	private Preprocessor pp;
 	private VectorType vectorType;
-	private List<String> typeVector;
+	private FeatureIndex vocabulary;
 	private boolean useBigramsInsteadOfTokens;
-	private Map<String, Integer> totalTypeFrequencies;
 	
 	private List<String> labelList;
 
+	/**
+	 * Erstellt und trainiert den Classifier. Der Weka-Kompatibilittsmodus wird ber die System-Property classifier.useWeka
+	 * (java -Dclassifier.useWeka=true ...) eingeschaltet.
+	 */
 	public ProbabilisticClassifier(Preprocessor pp, List<TrainingDiploma> trainingData, boolean useBigramsInsteadOfTokens, VectorType vectorType){
+		this(pp, trainingData, useBigramsInsteadOfTokens, vectorType, isWekaCompatibilityModeEnabled());
+	}
+
+	/**
+	 * Erstellt und trainiert den Classifier.
+	 * @param useWeka Soll statt des eigenen NaiveBayes-Classifiers der Classifier der Weka-Library genutzt werden (Weka-Kompatibilittsmodus)?
+	 */
+	public ProbabilisticClassifier(Preprocessor pp, List<TrainingDiploma> trainingData, boolean useBigramsInsteadOfTokens, VectorType vectorType, boolean useWeka){
 		this.pp = pp;
-		nbm = new NaiveBayesMultinomial();
+		this.useWeka = useWeka;
 		this.useBigramsInsteadOfTokens = useBigramsInsteadOfTokens;
 		this.vectorType = vectorType;
-
-		labelList = new ArrayList<>();
-		DiplomaticLabel[] dl = DiplomaticLabel.values();
-		for(DiplomaticLabel label : dl){
-			labelList.add(label.name());
-		}
+		initializeLabelList();
 		
 		trainingDiplomas = trainingData;
 		trainingSentences = new ArrayList<>();
@@ -73,41 +90,89 @@ public class ProbabilisticClassifier {
 			pp.lemmatizedTokensToBigrams(abstractList);
 		}
 		
-		totalTypeFrequencies = pp.createTypeFrequenciesMap(trainingSentences, useBigramsInsteadOfTokens);
-		typeVector = new ArrayList<>(totalTypeFrequencies.keySet());
+		LongIntHashMap totalTypeFrequencies = pp.createTypeFrequenciesMap(trainingSentences, useBigramsInsteadOfTokens);
+		Vocabulary trainingVocabulary = new Vocabulary(totalTypeFrequencies, trainingSentences.size());
+		vocabulary = trainingVocabulary;
 		
-		pp.vectorize(new ArrayList<AbstractSentence>(trainingSentences), useBigramsInsteadOfTokens, vectorType, totalTypeFrequencies, trainingSentences.size(), typeVector);
+		pp.vectorize(new ArrayList<AbstractSentence>(trainingSentences), useBigramsInsteadOfTokens, vectorType, vocabulary);
 
 		System.out.println("PROBABILISTIC_CLASSIFIER: Training classifier...");
-		trainClassifier();
+		if(useWeka){
+			trainWekaClassifier(trainingVocabulary);
+		} else {
+			trainClassifier();
+		}
 		
 	}
 
+	/**
+	 * Erstellt einen bereits trainierten Classifier, z.B. beim Laden eines gespeicherten Modells (siehe ClassifierModel und
+	 * MappedClassifierModel).
+	 * @param vocabulary Das Vokabular des Trainingskorpus.
+	 * @param naiveBayes Der trainierte NaiveBayes-Classifier.
+	 */
+	ProbabilisticClassifier(Preprocessor pp, FeatureIndex vocabulary, VectorClassifier naiveBayes, boolean useBigramsInsteadOfTokens, VectorType vectorType){
+		this.pp = pp;
+		this.vocabulary = vocabulary;
+		this.naiveBayes = naiveBayes;
+		this.useBigramsInsteadOfTokens = useBigramsInsteadOfTokens;
+		this.vectorType = vectorType;
+		initializeLabelList();
+	}
+
+	/**
+	 * @return true, wenn der Weka-Kompatibilittsmodus ber die System-Property classifier.useWeka eingeschaltet ist.
+	 */
+	public static boolean isWekaCompatibilityModeEnabled(){
+		return Boolean.getBoolean("classifier.useWeka");
+	}
+
+	private void initializeLabelList(){
+		labelList = new ArrayList<>();
+		DiplomaticLabel[] dl = DiplomaticLabel.values();
+		for(DiplomaticLabel label : dl){
+			labelList.add(label.name());
+		}
+	}
+
+	/**
+	 * Trainiert den eigenen NaiveBayes-Classifier mit den Vektoren und Labels aller Trainingsstze.
+	 */
+	private void trainClassifier() {
+		List<SparseVector> vectors = new ArrayList<>(trainingSentences.size());
+		int[] labels = new int[trainingSentences.size()];
+		for(int i = 0; i < trainingSentences.size(); i++){
+			TrainingSentence sent = trainingSentences.get(i);
+			vectors.add(sent.getVector());
+			labels[i] = sent.getTruePartLabel().ordinal();
+		}
+		naiveBayes = new MultinomialNaiveBayes(vectors, labels, labelList.size(), vocabulary.size());
+	}
+
 	/**
 	 * Bereitet alle Trainingsdaten des ProbabilisticClassifiers fr die bergabe an den Weka-NaiveBayes-Classifier vor
 	 * und und ruft NaiveBayesMultinomial.buildClassifier() zum Trainieren des Classifiers auf.
 	 */
-	private void trainClassifier() {
+	private void trainWekaClassifier(Vocabulary vocabulary) {
+		nbm = new NaiveBayesMultinomial();
 		
 		Attribute labelAtt = new Attribute("Label", labelList);		
 		
 		ArrayList<Attribute> structureVector = new ArrayList<Attribute>();
 		
-		for (String f : typeVector) {
+		for (String f : vocabulary.getTypes()) {
 			structureVector.add(new Attribute(f));
 		}
 		structureVector.add(labelAtt);
 
 		
-		trainingInstances = new Instances("TrainingInstances", structureVector, typeVector.size() + 1);
+		trainingInstances = new Instances("TrainingInstances", structureVector, vocabulary.size() + 1);
 		trainingInstances.setClassIndex(structureVector.size()-1);
 
 		// fr jeden Satz ein Weka-Attribute erzeugen und das Label setzen
 		for (TrainingSentence sent : trainingSentences) {
 			String label = sent.getTruePartLabel().name();
-			double[] vector = sent.getVector();
-			
-			Instance i = new SparseInstance(1.0, vector);
+			Instance i = toInstance(sent.getVector());
 			i.setDataset(trainingInstances);
 			i.setClassValue(label);
 		
@@ -136,19 +201,25 @@ public class ProbabilisticClassifier {
 		if(useBigramsInsteadOfTokens){
 			pp.lemmatizedTokensToBigrams(sentences);
 		}
-		pp.vectorize(sentences, useBigramsInsteadOfTokens, vectorType, totalTypeFrequencies, trainingSentences.size(), typeVector);
+		pp.vectorize(sentences, useBigramsInsteadOfTokens, vectorType, vocabulary);
 		
+		if(useWeka){
+			for(AbstractSentence sent : sentences){
+				sent.updateLabelProbability(classifyByWeka(sent));
+			}
+			return;
+		}
+		double[] labelProbs = new double[labelList.size()];
 		for(AbstractSentence sent : sentences){
-			sent.updateLabelProbability(classifyByNaiveBayes(sent));
+			naiveBayes.distributionForVector(sent.getVector(), labelProbs);
+			sent.updateLabelProbability(labelProbs);
 		}
 		
 	}
 
-	private double[] classifyByNaiveBayes(AbstractSentence sent) {
+	private double[] classifyByWeka(AbstractSentence sent) {
 		
-		double[] vector = sent.getVector();
-		
-		Instance i = new SparseInstance(1.0, vector);
+		Instance i = toInstance(sent.getVector());
 		i.setDataset(trainingInstances);
 		i.setClassMissing();
 		double[] labelProbs;
@@ -165,5 +236,45 @@ public class ProbabilisticClassifier {
 		
 		return labelProbs;		
 	}
+
+	/**
+	 * Erzeugt aus dem dnn besetzten Satzvektor eine Weka-Instance, ohne den Vektor dafr in ein Array der Lnge des
+	 * Vokabulars umzuwandeln.
+	 */
+	private Instance toInstance(SparseVector vector) {
+		float[] floatValues = vector.getValues();
+		double[] values = new double[floatValues.length];
+		for(int j = 0; j < values.length; j++){
+			values[j] = floatValues[j];
+		}
+		return new SparseInstance(1.0, values, vector.getIndices().clone(), vector.getDimension());
+	}
+
+	/**
+	 * @return true, wenn der Classifier der Weka-Library genutzt wird (Weka-Kompatibilittsmodus).
+	 */
+	public boolean usesWeka() {
+		return useWeka;
+	}
+
+	Preprocessor getPreprocessor() {
+		return pp;
+	}
+
+	VectorClassifier getNaiveBayes() {
+		return naiveBayes;
+	}
+
+	FeatureIndex getVocabulary() {
+		return vocabulary;
+	}
+
+	boolean getUseBigramsInsteadOfTokens() {
+		return useBigramsInsteadOfTokens;
+	}
+
+	VectorType getVectorType() {
+		return vectorType;
+	}
 	
 }
@@ -0,0 +1,144 @@
+package classification;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Threadsicherer Cache fr die Ergebnisse von SimilarityCalculator.isNWsimilar(). Beim Abgleich der Indikatoren werden immer wieder
+ * dieselben Paare aus Indikator-Token und Satz-Token verglichen; mit dem Cache wird jedes Paar nur einmal per Needleman-Wunsch
+ * ausgerichtet. Da die Needleman-Wunsch-hnlichkeit symmetrisch ist, teilen sich die Paare (a, b) und (b, a) einen Eintrag.<br>
+ * Der Cache enthlt hchstens maxSize Eintrge. Ist er voll, wird er geleert und neu befllt, so dass der Speicherbedarf auch bei
+ * sehr groen Korpora begrenzt bleibt. Bei einer maxSize von 0 wird nichts gespeichert.
+ * @author Alina Ostrowski
+ *
+ */
+public class SimilarityCache {
+
+	/**
+	 * Die Standardgre des Caches, berschreibbar ber die System-Property classifier.similarityCacheSize.
+	 */
+	static final int DEFAULT_MAX_SIZE = Integer.getInteger("classifier.similarityCacheSize", 200000);
+
+	private final int maxSize;
+	private final ConcurrentHashMap<TokenPair, Boolean> similarities;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param maxSize Die maximale Anzahl an gespeicherten Token-Paaren.
+	 */
+	public SimilarityCache(int maxSize) {
+		if(maxSize < 0){
+			throw new IllegalArgumentException("The size of the similarity cache must not be negative, but was "+maxSize+".");
+		}
+		this.maxSize = maxSize;
+		this.similarities = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+	}
+
+	/**
+	 * @return Das gespeicherte Ergebnis fr das Token-Paar oder null, falls das Paar noch nicht im Cache ist.
+	 */
+	Boolean get(String s1, String s2) {
+		Boolean similar = similarities.get(new TokenPair(s1, s2));
+		if(similar == null){
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return similar;
+	}
+
+	void put(String s1, String s2, boolean similar) {
+		if(maxSize == 0) return;
+		if(similarities.size() >= maxSize){
+			// Der Cache wird nur geleert, wenn ihn nicht gleichzeitig ein anderer Thread geleert hat
+			synchronized(this){
+				if(similarities.size() >= maxSize){
+					similarities.clear();
+					evictions.increment();
+				}
+			}
+		}
+		similarities.put(new TokenPair(s1, s2), similar);
+	}
+
+	/**
+	 * @return Die Anzahl der Abfragen, die aus dem Cache beantwortet wurden.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return Die Anzahl der Abfragen, fr die eine Needleman-Wunsch-Ausrichtung berechnet werden musste.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return Wie oft der Cache geleert wurde, weil er voll war.
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return Der Anteil der Abfragen, die aus dem Cache beantwortet wurden (0, falls es noch keine Abfragen gab).
+	 */
+	public double getHitRate() {
+		long hitCount = getHits();
+		long total = hitCount + getMisses();
+		return total == 0 ? 0 : (double) hitCount / total;
+	}
+
+	/**
+	 * @return Die Anzahl der aktuell gespeicherten Token-Paare.
+	 */
+	public int size() {
+		return similarities.size();
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "%d hits, %d misses (hit rate %.1f %%), %d cached pairs, %d evictions",
+				getHits(), getMisses(), getHitRate() * 100, size(), getEvictions());
+	}
+
+	/**
+	 * Schlssel des Caches. Die beiden Tokens werden sortiert gespeichert, damit (a, b) und (b, a) gleich sind.
+	 */
+	private static final class TokenPair {
+
+		private final String first;
+		private final String second;
+		private final int hash;
+
+		TokenPair(String s1, String s2) {
+			if(s1.compareTo(s2) <= 0){
+				first = s1;
+				second = s2;
+			} else {
+				first = s2;
+				second = s1;
+			}
+			hash = 31 * first.hashCode() + second.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(this == obj) return true;
+			if(!(obj instanceof TokenPair)) return false;
+			TokenPair other = (TokenPair) obj;
+			return hash == other.hash && first.equals(other.first) && second.equals(other.second);
+		}
+	}
+}
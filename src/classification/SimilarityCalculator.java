@@ -1,10 +1,15 @@
 package classification;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import preprocessing.SymbolTable;
 
 /**
  * Der SimilarityCalculator bietet Funktionen zur Berechnung von String-hnlichkeiten an.
@@ -12,6 +17,67 @@ import java.util.Set;
  *
  */
 public class SimilarityCalculator {
+
+	/**
+	 * Speichert die Ergebnisse von isNWsimilar() fr bereits verglichene Token-Paare.
+	 */
+	private final SimilarityCache cache;
+
+	/**
+	 * Die Anzahl der Token-Paare, die mayBeNWsimilar() ohne Needleman-Wunsch-Berechnung verworfen hat.
+	 */
+	private final LongAdder prefilterRejections = new LongAdder();
+
+	/**
+	 * Die vorberechneten hnlichkeiten zwischen den Indikator-Tokens und den Types des Korpus oder null, solange
+	 * precomputeClosure() nicht aufgerufen wurde.
+	 */
+	private volatile FuzzyMatchClosure closure;
+
+	/**
+	 * Erstellt einen SimilarityCalculator mit einem Cache der Standardgre (siehe SimilarityCache.DEFAULT_MAX_SIZE).
+	 */
+	public SimilarityCalculator() {
+		this(SimilarityCache.DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @param cacheSize Die maximale Anzahl an Token-Paaren, deren hnlichkeit zwischengespeichert wird (0 = kein Cache).
+	 */
+	public SimilarityCalculator(int cacheSize) {
+		this.cache = new SimilarityCache(cacheSize);
+	}
+
+	/**
+	 * @return Den Cache der Token-hnlichkeiten, z.B. um dessen Trefferquote auszugeben.
+	 */
+	public SimilarityCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * @return Die Anzahl der Token-Paare, die ohne Needleman-Wunsch-Berechnung als unhnlich erkannt wurden, weil ihre Lngen oder
+	 * Bigramme zu unterschiedlich sind (siehe mayBeNWsimilar()).
+	 */
+	public long getPrefilterRejections() {
+		return prefilterRejections.sum();
+	}
+
+	/**
+	 * Legt fest, dass die bergebenen Tokens (in der Regel die Tokens aller Indikatoren) in den Vergleichsmethoden ber eine
+	 * FuzzyMatchClosure mit den Types der SymbolTable abgeglichen werden, statt jedes Token-Paar einzeln zu vergleichen.
+	 * @param indicatorTokens Die Tokens, die als compare-Tokens genutzt werden.
+	 */
+	public void precomputeClosure(Collection<String> indicatorTokens) {
+		closure = new FuzzyMatchClosure(indicatorTokens, this, SymbolTable.getShared());
+	}
+
+	/**
+	 * @return Die FuzzyMatchClosure oder null, falls precomputeClosure() noch nicht aufgerufen wurde.
+	 */
+	public FuzzyMatchClosure getClosure() {
+		return closure;
+	}
 	
 	/**
 	 * Prft, ob ein Substring in einem anderen String vorhanden ist. Die Methode wirkt
@@ -23,16 +89,39 @@ public class SimilarityCalculator {
 	 * @return true, wenn der Substring im Originalstring enthalten ist; sonst false.
 	 */
 	public boolean containsSimilarTokenSubstring(String compare, String orig) {
+		return containsSimilarTokenSubstring(Arrays.asList(compare.split("\\s+")), orig);
+	}
+
+	/**
+	 * Wie containsSimilarTokenSubstring(String, String), jedoch mit dem bereits in Tokens zerlegten Substring, z.B. einer IndicatorRule.
+	 * @param compareTokens Die Tokens des gesuchten Substrings.
+	 * @param orig Der String, in dem der Substring gesucht werden soll.
+	 * @return true, wenn der Substring im Originalstring enthalten ist; sonst false.
+	 */
+	public boolean containsSimilarTokenSubstring(List<String> compareTokens, String orig) {
+		FuzzyMatchClosure closure = this.closure;
+		return containsSimilarTokenSubstring(closure, compareTokenData(compareTokens, closure), origTokenData(orig, closure));
+	}
+
+	/**
+	 * Wie containsSimilarTokenSubstring(String, String), jedoch mit den bereits ermittelten Tokens beider Strings, z.B. den Tokens
+	 * eines Satzes (siehe AbstractSentence.getTokenIds()), so dass der Satz nicht fr jeden Vergleich erneut zerlegt werden muss.
+	 * @param compareTokens Die Tokens des gesuchten Substrings.
+	 * @param origTokenIds Die IDs der Tokens, in denen der Substring gesucht werden soll, in der SymbolTable.
+	 * @return true, wenn der Substring in den Tokens enthalten ist; sonst false.
+	 */
+	public boolean containsSimilarTokenSubstring(List<String> compareTokens, int[] origTokenIds) {
+		FuzzyMatchClosure closure = this.closure;
+		return containsSimilarTokenSubstring(closure, compareTokenData(compareTokens, closure), new TokenData(origTokenIds));
+	}
+
+	private boolean containsSimilarTokenSubstring(FuzzyMatchClosure closure, TokenData compare, TokenData orig) {
 
-		List<String> compareTokens = Arrays.asList(compare.split("\\s+"));
-		List<String> origTokens = Arrays.asList(orig.split("\\s+"));
-		
 		List<Integer> possibleStartIndexes = new ArrayList<>();
 		
 		// Mgliche Start-Indizes des Substrings suchen, Bsp.: Fr Substring "Ich gehe" sind mgliche Anfnge in "Ich esse und ich gehe." die Indizes 0 und 3.
-		for(int i = 0; i < origTokens.size(); i++){
-			String currentOrigToken = origTokens.get(i); 
-			if(isNWsimilar(currentOrigToken, compareTokens.get(0))){
+		for(int i = 0; i < orig.size(); i++){
+			if(isSimilar(closure, compare, 0, orig, i)){
 				possibleStartIndexes.add(i);
 			}
 		}
@@ -41,12 +130,10 @@ public class SimilarityCalculator {
 		startLoop: for(Integer start : possibleStartIndexes){
 			int nextIndex = start+1;
 			
-			compareLoop: for(int j = 1;j < compareTokens.size(); j++){
-				String currentCompareToken = compareTokens.get(j);
+			compareLoop: for(int j = 1;j < compare.size(); j++){
 				// Suche das erste Wort des zu vergleichenden Strings und gehe dann zum nchsten Wort.
-				for(int i = nextIndex; i < origTokens.size(); i++){
-					String origToken = origTokens.get(i);
-					if(isNWsimilar(currentCompareToken, origToken)){
+				for(int i = nextIndex; i < orig.size(); i++){
+					if(isSimilar(closure, compare, j, orig, i)){
 						// falls das Wort gefunden wird beginne die Suche nach dem nchsten Wort ab dem nchsthheren Index
 						nextIndex = i+1;
 						continue compareLoop;
@@ -68,14 +155,37 @@ public class SimilarityCalculator {
 	 * @return true, wenn alle Tokens des compare-Strings im orig-String enthalten sind, sonst false.
 	 */
 	public boolean containsAllTokens(String compare, String orig) {
+		return containsAllTokens(Arrays.asList(compare.split("\\s+")), orig);
+	}
+
+	/**
+	 * Wie containsAllTokens(String, String), jedoch mit den bereits ermittelten Tokens des Vergleichsstrings.
+	 * @param compareTokens Die Tokens, die enthalten sein mssen
+	 * @param orig Der String, in dem die compare-Tokens enthalten sein mssen
+	 * @return true, wenn alle compare-Tokens im orig-String enthalten sind, sonst false.
+	 */
+	public boolean containsAllTokens(List<String> compareTokens, String orig) {
+		FuzzyMatchClosure closure = this.closure;
+		return containsAllTokens(closure, compareTokenData(compareTokens, closure), origTokenData(orig, closure));
+	}
+
+	/**
+	 * Wie containsAllTokens(String, String), jedoch mit den bereits ermittelten Tokens beider Strings.
+	 * @param compareTokens Die Tokens, die enthalten sein mssen
+	 * @param origTokenIds Die IDs der Tokens, in denen die compare-Tokens enthalten sein mssen, in der SymbolTable.
+	 * @return true, wenn alle compare-Tokens enthalten sind, sonst false.
+	 */
+	public boolean containsAllTokens(List<String> compareTokens, int[] origTokenIds) {
+		FuzzyMatchClosure closure = this.closure;
+		return containsAllTokens(closure, compareTokenData(compareTokens, closure), new TokenData(origTokenIds));
+	}
 
-		List<String> compareTokens = Arrays.asList(compare.split("\\s+"));
-		List<String> origTokens = Arrays.asList(orig.split("\\s+"));
+	private boolean containsAllTokens(FuzzyMatchClosure closure, TokenData compare, TokenData orig) {
 	
-		for(String currentCompareToken : compareTokens){
+		for(int j = 0; j < compare.size(); j++){
 			boolean foundToken = false;
-			for(String origToken: origTokens){
-				if(isNWsimilar(currentCompareToken, origToken)){
+			for(int i = 0; i < orig.size(); i++){
+				if(isSimilar(closure, compare, j, orig, i)){
 					foundToken = true;
 					break;
 				}
@@ -100,55 +210,79 @@ public class SimilarityCalculator {
 	 * @return Den Jaccard-Koeffizienten des compare-Strings zum entsprechenden Substring des Originalstrings (0, falls kein entsprechender Substring gefunden wurde).
 	 */
 	public double similarityOfSubstring(String compare, String orig){
+		return similarityOfSubstring(Arrays.asList(compare.split("\\s+")), orig);
+	}
+
+	/**
+	 * Wie similarityOfSubstring(String, String), jedoch mit dem bereits in Tokens zerlegten Substring.
+	 * @param compareTokens Die Tokens des zu vergleichenden Substrings.
+	 * @param orig Der String, in dem der Substring gefunden werden soll.
+	 * @return Den Jaccard-Koeffizienten des compare-Strings zum entsprechenden Substring des Originalstrings (0, falls kein entsprechender Substring gefunden wurde).
+	 */
+	public double similarityOfSubstring(List<String> compareTokens, String orig){
+		FuzzyMatchClosure closure = this.closure;
+		return similarityOfSubstring(closure, compareTokenData(compareTokens, closure), origTokenData(orig, closure));
+	}
+
+	/**
+	 * Wie similarityOfSubstring(String, String), jedoch mit den bereits ermittelten Tokens beider Strings.
+	 * @param compareTokens Die Tokens des zu vergleichenden Substrings.
+	 * @param origTokenIds Die IDs der Tokens, in denen der Substring gefunden werden soll, in der SymbolTable.
+	 * @return Den Jaccard-Koeffizienten des compare-Strings zum entsprechenden Substring der Tokens (0, falls kein entsprechender Substring gefunden wurde).
+	 */
+	public double similarityOfSubstring(List<String> compareTokens, int[] origTokenIds){
+		FuzzyMatchClosure closure = this.closure;
+		return similarityOfSubstring(closure, compareTokenData(compareTokens, closure), new TokenData(origTokenIds));
+	}
+
+	private double similarityOfSubstring(FuzzyMatchClosure closure, TokenData compare, TokenData orig){
 		
 		// 1. Substring und alle Wrter dazwischen finden
-		List<String> compareTokens = Arrays.asList(compare.split("\\s+"));
-		List<String> origTokens = Arrays.asList(orig.split("\\s+"));
-		List<String> normalizedOrigTokens= findSubset(compareTokens, origTokens);
+		List<String> normalizedOrigTokens= findSubset(closure, compare, orig);
 		
 		if(normalizedOrigTokens == null){
 			return 0;
 		}
 		
 		// 2. Stringsimilarity zwischen dem compare-String und dem entsprechenden Substring des orig-Strings berechnen und zurckgeben
-		double similarity = jaccardCoefficient(new HashSet<String>(compareTokens), new HashSet<String>(normalizedOrigTokens));
+		double similarity = jaccardCoefficient(new HashSet<String>(compare.tokens), new HashSet<String>(normalizedOrigTokens));
 		
 		return similarity;
 	}
 
 	
-	private List<String> findSubset(List<String> compareTokens, List<String> origTokens) {
+	private List<String> findSubset(FuzzyMatchClosure closure, TokenData compare, TokenData orig) {
 		// finde Substring unabhngig von der Reihenfolge
 		List<String> normalizedOrigTokens = new ArrayList<>();
-		int lowestSubStringIndex = origTokens.size();
+		int lowestSubStringIndex = orig.size();
 		int highestSubStringIndex = 0;
 		
 		// teste, welche der Vergleichstokens im OriginalString enthalten sind (unabhngig von der Reihenfolge)
-		origLoop: for(String origToken: origTokens){ 
-			for(String currentCompareToken : compareTokens){
-				if(isNWsimilar(currentCompareToken, origToken)){
-					normalizedOrigTokens.add(currentCompareToken);
-					int origTokenIndex = origTokens.indexOf(origToken);
-					if(lowestSubStringIndex > origTokenIndex){
-						lowestSubStringIndex = origTokenIndex;
+		origLoop: for(int i = 0; i < orig.size(); i++){ 
+			for(int j = 0; j < compare.size(); j++){
+				if(isSimilar(closure, compare, j, orig, i)){
+					normalizedOrigTokens.add(compare.tokens.get(j));
+					// die Position ber den Index i bestimmen, da indexOf() bei mehrfach vorkommenden Wrtern das erste Vorkommen liefert
+					if(lowestSubStringIndex > i){
+						lowestSubStringIndex = i;
 					}
-					if(highestSubStringIndex < origTokenIndex){
-						highestSubStringIndex = origTokenIndex;
+					if(highestSubStringIndex < i){
+						highestSubStringIndex = i;
 					}
 					continue origLoop;
 				}
 			}
-			normalizedOrigTokens.add(origToken);
+			normalizedOrigTokens.add(orig.tokens.get(i));
 		}
 
 		int notFound = 0;
-		for(String currentCompareToken : compareTokens){
+		for(String currentCompareToken : compare.tokens){
 			if(!normalizedOrigTokens.contains(currentCompareToken))
 				notFound++;
 		}
 		
 		// Wenn zu viele der gesuchten Wrter des Vergleichssubstrings nicht gefunden wurden, gib null zurck
-		if((notFound/compareTokens.size())>0.25){
+		if((notFound/compare.size())>0.25){
 			return null;
 		}
 		
@@ -177,76 +311,283 @@ public class SimilarityCalculator {
 	
 	/**
 	 * Gibt an, ob zwei Strings sich hneln. Zum Abgleich wird der Needleman-Wunsch-Algorithmus genutzt,
-	 * so dass der Abgleich tolerant gegenber kleineren Abweichungen ist.
+	 * so dass der Abgleich tolerant gegenber kleineren Abweichungen ist. Identische Strings gelten ohne Berechnung als hnlich,
+	 * Paare, die laut mayBeNWsimilar() nicht hnlich sein knnen, ohne Berechnung als unhnlich. Die Ergebnisse aller anderen
+	 * Vergleiche werden im cache gespeichert.
 	 * @param s1
+	 * @param signature1 Die bigramSignature() von s1.
 	 * @param s2
+	 * @param signature2 Die bigramSignature() von s2.
 	 * @return true, wenn die bergebenen Strings sich hneln. Sonst false.
 	 */
-	private boolean isNWsimilar(String s1, String s2) {
-	
-		int nwSimilarity = needlemanWunschSimilarity(s1.trim(), s2.trim());
-		
-		if(nwSimilarity >= (s1.trim().length() + s2.trim().length()))
+	private boolean isNWsimilar(String s1, long signature1, String s2, long signature2) {
+
+		s1 = s1.trim();
+		s2 = s2.trim();
+		// Identische Strings erreichen immer 3 * Lnge >= 2 * Lnge Punkte
+		if(s1.equals(s2))
 			return true;
+		if(!mayBeNWsimilar(s1.length(), signature1, s2.length(), signature2)){
+			prefilterRejections.increment();
 			return false;
+		}
+
+		Boolean cached = cache.get(s1, s2);
+		if(cached != null)
+			return cached;
+
+		boolean similar = reachesNWThreshold(s1, s2);
+		cache.put(s1, s2, similar);
+		return similar;
 	}
-		
-	
-	/**Diese Methode sowie die von ihr genutzten Methoden compare(char a, char b) und max(int a, int b, int c) sind bernommen aus dem GitHub-Repository des Forschungsprojektes
-	 * "Qualifikationsentwicklungsforschung" des Instituts fr Digital Humanities der Universitt zu Kln (siehe Link unten, zuletzt abgerufen
-	 * am 28.07.2019). Die Methoden sind unverndert mit der Ausnahme, dass der im dortigen Projekt als Feldvariable existierende <br>
-	 * <code>int gap = -1</code> <br>
-	 * direkt in die Methode eingefgt wurde.<br>
-	 * Die Methode berechnet die Needleman-Wunsch-hnlichkeit der zwei bergebenen Strings.
+
+	/**
+	 * Wie isNWsimilar(), jedoch ohne den cache zu nutzen. Wird von der FuzzyMatchClosure genutzt, die jedes Token-Paar ohnehin
+	 * nur einmal vergleicht.
+	 */
+	boolean computeNWsimilar(String s1, long signature1, String s2, long signature2) {
+		s1 = s1.trim();
+		s2 = s2.trim();
+		if(s1.equals(s2))
+			return true;
+		if(!mayBeNWsimilar(s1.length(), signature1, s2.length(), signature2)){
+			prefilterRejections.increment();
+			return false;
+		}
+		return reachesNWThreshold(s1, s2);
+	}
+
+	/**
+	 * Vergleicht das j-te compare-Token mit dem i-ten orig-Token. Ist das compare-Token ein Token der closure und das orig-Token
+	 * ein Type der SymbolTable, wird das Ergebnis in der closure nachgeschlagen, sonst mit isNWsimilar() berechnet.
+	 */
+	private boolean isSimilar(FuzzyMatchClosure closure, TokenData compare, int j, TokenData orig, int i) {
+		if(closure != null && compare.ids[j] >= 0 && orig.ids[i] >= 0){
+			return closure.isSimilar(compare.ids[j], orig.ids[i]);
+		}
+		return isNWsimilar(compare.tokens.get(j), compare.signature(j), orig.tokens.get(i), orig.signature(i));
+	}
+
+	/**
+	 * @return Die TokenData der compare-Tokens mit ihren Nummern in der closure als IDs.
+	 */
+	private static TokenData compareTokenData(List<String> compareTokens, FuzzyMatchClosure closure) {
+		int[] ids = new int[compareTokens.size()];
+		for(int j = 0; j < ids.length; j++){
+			ids[j] = closure == null ? -1 : closure.indexOf(compareTokens.get(j));
+		}
+		return new TokenData(compareTokens, ids);
+	}
+
+	/**
+	 * @return Die TokenData der durch Whitespaces getrennten Tokens des orig-Strings mit ihren IDs in der SymbolTable.
+	 */
+	private static TokenData origTokenData(String orig, FuzzyMatchClosure closure) {
+		return origTokenData(Arrays.asList(orig.split("\\s+")), closure);
+	}
+
+	/**
+	 * @return Die TokenData der orig-Tokens mit ihren IDs in der SymbolTable.
+	 */
+	private static TokenData origTokenData(List<String> origTokens, FuzzyMatchClosure closure) {
+		int[] ids = new int[origTokens.size()];
+		SymbolTable symbols = SymbolTable.getShared();
+		for(int i = 0; i < ids.length; i++){
+			ids[i] = closure == null ? SymbolTable.NONE : symbols.lookup(origTokens.get(i));
+		}
+		return new TokenData(origTokens, ids);
+	}
+
+	/**
+	 * Die Tokens eines der verglichenen Strings mit ihren IDs (bzw. -1, wenn keine ID bekannt ist), die einmal pro Aufruf einer
+	 * Vergleichsmethode ermittelt werden. Die Bigramm-Signaturen werden erst berechnet, wenn ein Token-Paar nicht ber die
+	 * closure verglichen werden kann.
+	 */
+	private static final class TokenData {
+
+		private final List<String> tokens;
+		private final int[] ids;
+		private long[] signatures;
+
+		TokenData(List<String> tokens, int[] ids) {
+			this.tokens = tokens;
+			this.ids = ids;
+		}
+
+		/**
+		 * Erstellt die TokenData zu den bergebenen IDs der SymbolTable, ohne die Tokens zu kopieren.
+		 */
+		TokenData(final int[] symbolIds) {
+			final SymbolTable symbols = SymbolTable.getShared();
+			this.tokens = new AbstractList<String>() {
+				@Override
+				public String get(int index) {
+					return symbols.symbol(symbolIds[index]);
+				}
+
+				@Override
+				public int size() {
+					return symbolIds.length;
+				}
+			};
+			this.ids = symbolIds;
+		}
+
+		int size() {
+			return ids.length;
+		}
+
+		long signature(int index) {
+			if(signatures == null){
+				signatures = bigramSignatures(tokens);
+			}
+			return signatures[index];
+		}
+	}
+
+	/**
+	 * Berechnet die Bigramm-Signatur eines Tokens: ein Bitmuster, in dem fr jedes Zeichen-Bigramm des (getrimmten) Tokens ein durch
+	 * einen Hashwert bestimmtes Bit gesetzt ist. Ist ein Bit im Muster eines anderen Tokens nicht gesetzt, so kommt das Bigramm in
+	 * diesem Token sicher nicht vor.
+	 * @param token
+	 * @return Die Signatur des Tokens (0 fr Tokens mit weniger als zwei Zeichen).
+	 */
+	static long bigramSignature(String token) {
+		token = token.trim();
+		long signature = 0;
+		for(int i = 1; i < token.length(); i++){
+			int bigram = (token.charAt(i - 1) << 16) | token.charAt(i);
+			signature |= 1L << ((bigram * 0x9E3779B1) >>> 26);
+		}
+		return signature;
+	}
+
+	private static long[] bigramSignatures(List<String> tokens) {
+		long[] signatures = new long[tokens.size()];
+		for(int i = 0; i < signatures.length; i++){
+			signatures[i] = bigramSignature(tokens.get(i));
+		}
+		return signatures;
+	}
+
+	/**
+	 * Schneller Vorfilter fr isNWsimilar(), der nur die Lngen und die Bigramm-Signaturen der Tokens nutzt. Er gibt nie false fr
+	 * Paare zurck, die die Schwelle von reachesNWThreshold() erreichen:<br>
+	 * Eine Ausrichtung mit k Treffern, x Fehlern und g Lcken erreicht hchstens 3k - g Punkte und verbraucht 2k + 2x + g <= n + m
+	 * Zeichen. Um die Schwelle n + m zu erreichen, gilt also k >= (n + m) / 3 und x + g <= k / 2. Die Treffer bilden hchstens
+	 * x + g + 1 zusammenhngende Folgen, innerhalb derer jedes Bigramm des einen Tokens auch im anderen vorkommt. Von den n - 1 Bigrammen
+	 * des ersten Tokens fehlen im zweiten also hchstens n - k / 2 <= n - (n + m) / 6, und jedes Bit, das nur in der Signatur des ersten
+	 * Tokens gesetzt ist, steht fr mindestens ein solches fehlendes Bigramm. Dasselbe gilt umgekehrt fr das zweite Token.
+	 * @param n Die Lnge des ersten Tokens.
+	 * @param signature1 Die Bigramm-Signatur des ersten Tokens.
+	 * @param m Die Lnge des zweiten Tokens.
+	 * @param signature2 Die Bigramm-Signatur des zweiten Tokens.
+	 * @return false, wenn die Tokens sicher nicht hnlich sind; true, wenn sie hnlich sein knnen.
+	 */
+	static boolean mayBeNWsimilar(int n, long signature1, int m, long signature2) {
+		if(MATCH * Math.min(n, m) < n + m){
+			return false;
+		}
+		int missingIn2 = Long.bitCount(signature1 & ~signature2);
+		int missingIn1 = Long.bitCount(signature2 & ~signature1);
+		return 6 * missingIn2 <= 5 * n - m && 6 * missingIn1 <= 5 * m - n;
+	}
+
+	private static final int MATCH = 3;
+	private static final int GAP = -1;
+	private static final int UNREACHABLE = Integer.MIN_VALUE / 2;
+
+	/**
+	 * Zwei wiederverwendbare Zeilen der Needleman-Wunsch-Matrix pro Thread, damit reachesNWThreshold() keine Arrays anlegen muss.
+	 */
+	private static final ThreadLocal<int[][]> nwRows = ThreadLocal.withInitial(() -> new int[2][32]);
+
+	/**
+	 * Prft, ob die Needleman-Wunsch-hnlichkeit von s1 und s2 (Treffer 3, Fehler 0, Lcke -1 Punkte, negative Zwischenwerte werden
+	 * auf 0 gesetzt) mindestens s1.length() + s2.length() betrgt, und liefert damit dasselbe Ergebnis wie die vollstndige Berechnung
+	 * der Referenzimplementierung in benchmark.NeedlemanWunschCheck, ohne die ganze Matrix aufzubauen:
+	 * <ul><li>Es werden nur zwei Zeilen der Matrix gehalten, die pro Thread wiederverwendet werden.</li>
+	 * <li>Eine Ausrichtung mit k Treffern und g Lcken erreicht hchstens 3k - g Punkte, und es gilt 2k + g <= n + m. Um die Schwelle
+	 * n + m zu erreichen, darf sie also hchstens (n + m) / 5 Lcken enthalten und verluft vollstndig in dem Band um die
+	 * Diagonale, das auf (n, m) zuluft. Zellen auerhalb dieses Bandes werden nicht berechnet.</li>
+	 * <li>Kann die Schwelle nach einer Zeile selbst dann nicht mehr erreicht werden, wenn alle restlichen Zeichen bereinstimmen,
+	 * wird die Berechnung abgebrochen.</li></ul>
 	 * @param s1
 	 * @param s2
-	 * @return needleman-wunsch-similarity
-	 * {@link} https://github.com/spinfo/quenfo/blob/master/src/main/java/quenfo/de/uni_koeln/spinfo/categorization/workflow/SimilarityCalculator.java
+	 * @return true, wenn die Needleman-Wunsch-hnlichkeit der Strings mindestens der Summe ihrer Lngen entspricht.
 	 */
-	private int needlemanWunschSimilarity(String s1, String s2){
-		
-			// eingefgte Methodenvariable [AO]:
-			int gap = -1;
-			
-			char[] a = s1.toCharArray();
-			char[] b = s2.toCharArray();
+	private static boolean reachesNWThreshold(String s1, String s2) {
+
+		// Der krzere String bildet die Spalten, damit die Zeilen mglichst kurz sind
+		String a = s1.length() >= s2.length() ? s1 : s2;
+		String b = a == s1 ? s2 : s1;
+		int n = a.length();
+		int m = b.length();
+		int threshold = n + m;
+
+		// Selbst wenn alle Zeichen des krzeren Strings getroffen werden, wird die Schwelle nicht erreicht
+		if(MATCH * m < threshold){
+			return false;
+		}
+
+		int maxGaps = threshold / 5;
+		int diagonal = n - m;
 
-			int n = a.length;
-			int m = b.length;
+		int[][] rows = nwRows.get();
+		if(rows[0].length < m + 2){
+			rows = new int[2][Math.max(m + 2, rows[0].length * 2)];
+			nwRows.set(rows);
+		}
+		int[] previous = rows[0];
+		int[] current = rows[1];
+
+		// Zeile 0: d[0][j] = -j innerhalb des Bandes
+		for(int j = 0; j <= m; j++){
+			previous[j] = j <= maxGaps - diagonal ? -j : UNREACHABLE;
+		}
 
-			int[][] d = new int[n + 1][m + 1];
+		for(int i = 1; i <= n; i++){
+			// Das Band der Zeile i umfasst alle Spalten j mit |(i - j) - diagonal| <= maxGaps
+			int low = Math.max(1, i - diagonal - maxGaps);
+			int high = Math.min(m, i - diagonal + maxGaps);
+			int remainingRows = n - i;
 
-			d[0][0] = 0;
-			for (int i = 0; i <= n; i++) {
-				d[i][0] = -i;
+			current[0] = i - diagonal - maxGaps <= 0 ? -i : UNREACHABLE;
+			int bestReachable = current[0] + MATCH * Math.min(remainingRows, m);
+			if(low > 1){
+				current[low - 1] = UNREACHABLE;
 			}
-			for (int j = 0; j <= m; j++) {
-				d[0][j] = -j;
+
+			char c = a.charAt(i - 1);
+			for(int j = low; j <= high; j++){
+				int score = previous[j - 1] + (c == b.charAt(j - 1) ? MATCH : 0);
+				int left = current[j - 1] + GAP;
+				int up = previous[j] + GAP;
+				if(left > score) score = left;
+				if(up > score) score = up;
+				if(score < 0) score = 0;
+				current[j] = score;
+
+				int reachable = score + MATCH * Math.min(remainingRows, m - j);
+				if(reachable > bestReachable) bestReachable = reachable;
+			}
+			int end = Math.max(high, low - 1);
+			if(end < m){
+				current[end + 1] = UNREACHABLE;
 			}
 
-			for (int i = 1; i <= n; i++) {
-				for (int j = 1; j <= m; j++) {
-					d[i][j] = max(d[i - 1][j - 1] + compare(a[i - 1], b[j - 1]), d[i][j - 1] + gap, d[i - 1][j] + gap);
-				}
+			// Eine Ausrichtung, die erst in einer spteren Zeile bei 0 beginnt, erreicht hchstens 3 Punkte pro restlicher Zeile
+			if(MATCH * Math.min(remainingRows - 1, m) > bestReachable){
+				bestReachable = MATCH * Math.min(remainingRows - 1, m);
 			}
-			return d[n][m];
-	}
-	private int max(int a, int b, int c) {
-		int max = 0;
-		if (a > max)
-			max = a;
-		if (b > max)
-			max = b;
-		if (c > max)
-			max = c;
-		return max;
-	}
-	private int compare(char a, char b) {
-		int match = 3;
-		int mismatch = 0;
-		if (a == b)
-			return match;
-		return mismatch;
+			if(bestReachable < threshold){
+				return false;
+			}
+
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[m] >= threshold;
 	}
-	
 }
@@ -0,0 +1,185 @@
+package classification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gleicht alle IndicatorRules mit dem MatchMode SUBSTRING in einem einzigen Durchlauf mit einem Satz ab, statt jede Regel einzeln
+ * per SimilarityCalculator.containsSimilarTokenSubstring() zu prfen. Dazu werden die Tokens der Indikatoren nach dem Vorbild des
+ * Aho-Corasick-Algorithmus in einem Prfixbaum (Trie) gespeichert, dessen bergnge die Nummern der Indikator-Tokens in der
+ * FuzzyMatchClosure sind. Der Satz wird Token fr Token von links nach rechts gelesen; fr jedes Satz-Token liefert die
+ * FuzzyMatchClosure die Indikator-Tokens, denen es hnlich ist (identische Tokens eingeschlossen).<br>
+ * Da ein Satz-Token mehreren Indikator-Tokens hneln kann, gibt es keinen eindeutigen Folgezustand wie bei Aho-Corasick. Statt
+ * Fehlerfunktionen wird daher die Menge aller Knoten mitgefhrt, deren Prfix unmittelbar vor dem aktuellen Token endet. Der Aufwand
+ * pro Satz hngt so von der Satzlnge und der Zahl der gleichzeitig passenden Prfixe ab, nicht von der Zahl der Regeln.<br>
+ * Wie bei containsSimilarTokenSubstring() gilt ein Indikator auch dann als enthalten, wenn der Satz endet, bevor alle seine Tokens
+ * gefunden wurden, sofern alle Tokens bis zum Satzende bereinstimmen. Objekte dieser Klasse sind unvernderlich und knnen von
+ * mehreren Threads gleichzeitig genutzt werden.
+ * @author Alina Ostrowski
+ *
+ */
+public class SubstringRuleMatcher {
+
+	private final FuzzyMatchClosure closure;
+	private final Node root = new Node();
+	private final int ruleCount;
+	private int nodeCount = 1;
+
+	/**
+	 * @param rules Die Regeln, die abgeglichen werden sollen. Regeln mit einem anderen MatchMode als SUBSTRING werden ignoriert.
+	 * @param closure Die FuzzyMatchClosure, die alle Tokens der Regeln enthlt.
+	 * @throws IllegalArgumentException Falls ein Token einer Regel nicht in der closure enthalten ist.
+	 */
+	public SubstringRuleMatcher(Collection<IndicatorRule> rules, FuzzyMatchClosure closure) {
+		this.closure = closure;
+		int count = 0;
+		for(IndicatorRule rule : rules){
+			if(rule.getMatchMode() == IndicatorRule.MatchMode.SUBSTRING){
+				add(rule);
+				count++;
+			}
+		}
+		this.ruleCount = count;
+		collectSubtreeRules(root);
+	}
+
+	private void add(IndicatorRule rule) {
+		Node node = root;
+		for(String token : rule.getTokens()){
+			int indicatorTokenIndex = closure.indexOf(token);
+			if(indicatorTokenIndex < 0){
+				throw new IllegalArgumentException("The token '"+token+"' of the indicator rule "+rule+" is not part of the fuzzy match closure.");
+			}
+			Node child = node.children.get(indicatorTokenIndex);
+			if(child == null){
+				child = new Node();
+				node.children.put(indicatorTokenIndex, child);
+				nodeCount++;
+			}
+			node = child;
+		}
+		node.rules.add(rule);
+	}
+
+	/**
+	 * Speichert fr jeden Knoten die Regeln, deren Tokens mit dem Prfix des Knotens beginnen (siehe Node.subtreeRules).
+	 */
+	private static List<IndicatorRule> collectSubtreeRules(Node node) {
+		List<IndicatorRule> subtreeRules = new ArrayList<>(node.rules);
+		for(Node child : node.children.values()){
+			subtreeRules.addAll(collectSubtreeRules(child));
+		}
+		node.subtreeRules = subtreeRules.toArray(new IndicatorRule[subtreeRules.size()]);
+		return subtreeRules;
+	}
+
+	/**
+	 * Sucht alle Regeln, deren Indikator in den bergebenen Tokens enthalten ist, d.h. fr die
+	 * SimilarityCalculator.containsSimilarTokenSubstring() true ergeben wrde.
+	 * @param tokenIds Die IDs der Tokens des Satzes in der SymbolTable (siehe AbstractSentence.getTokenIds()).
+	 * @return Die zutreffenden Regeln (leer, falls keine Regel zutrifft).
+	 */
+	public Set<IndicatorRule> findMatches(int[] tokenIds) {
+		Set<IndicatorRule> matches = Collections.emptySet();
+		List<Node> active = new ArrayList<>();
+		List<Node> next = new ArrayList<>();
+		for(int typeId : tokenIds){
+			int[] similarIndicatorTokens = closure.getSimilarIndicatorTokens(typeId);
+			next.clear();
+			// jedes Token kann einen neuen Indikator beginnen oder ein bereits begonnenes Prfix fortsetzen
+			matches = advance(root, similarIndicatorTokens, next, matches);
+			for(Node node : active){
+				matches = advance(node, similarIndicatorTokens, next, matches);
+			}
+			List<Node> swap = active;
+			active = next;
+			next = swap;
+		}
+		// Prfixe, die bis zum Satzende bereinstimmen, gelten fr alle Regeln, die mit ihnen beginnen
+		for(Node node : active){
+			matches = addAll(matches, node.subtreeRules);
+		}
+		return matches;
+	}
+
+	private static Set<IndicatorRule> advance(Node node, int[] similarIndicatorTokens, List<Node> next, Set<IndicatorRule> matches) {
+		if(node.children.isEmpty()){
+			return matches;
+		}
+		for(int indicatorTokenIndex : similarIndicatorTokens){
+			Node child = node.children.get(indicatorTokenIndex);
+			if(child != null){
+				next.add(child);
+				if(!child.rules.isEmpty()){
+					matches = addAll(matches, child.rules);
+				}
+			}
+		}
+		return matches;
+	}
+
+	private static Set<IndicatorRule> addAll(Set<IndicatorRule> matches, Collection<IndicatorRule> rules) {
+		if(matches.isEmpty()){
+			matches = new HashSet<>();
+		}
+		matches.addAll(rules);
+		return matches;
+	}
+
+	private static Set<IndicatorRule> addAll(Set<IndicatorRule> matches, IndicatorRule[] rules) {
+		if(rules.length == 0){
+			return matches;
+		}
+		if(matches.isEmpty()){
+			matches = new HashSet<>();
+		}
+		Collections.addAll(matches, rules);
+		return matches;
+	}
+
+	/**
+	 * @return Die Anzahl der Regeln mit dem MatchMode SUBSTRING.
+	 */
+	public int getRuleCount() {
+		return ruleCount;
+	}
+
+	/**
+	 * @return Die Anzahl der Knoten des Prfixbaums einschlielich der Wurzel.
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	@Override
+	public String toString() {
+		return ruleCount+" substring rules in a trie with "+nodeCount+" nodes";
+	}
+
+	/**
+	 * Ein Knoten des Prfixbaums. Er steht fr die Tokenfolge auf dem Weg von der Wurzel zu ihm.
+	 */
+	private static final class Node {
+
+		/**
+		 * Die Kindknoten, geordnet nach der Nummer des Indikator-Tokens in der FuzzyMatchClosure.
+		 */
+		private final Map<Integer, Node> children = new HashMap<>();
+
+		/**
+		 * Die Regeln, deren Tokens genau der Tokenfolge dieses Knotens entsprechen.
+		 */
+		private final List<IndicatorRule> rules = new ArrayList<>(1);
+
+		/**
+		 * Die Regeln, deren Tokens mit der Tokenfolge dieses Knotens beginnen, einschlielich der Regeln dieses Knotens.
+		 */
+		private IndicatorRule[] subtreeRules;
+	}
+}
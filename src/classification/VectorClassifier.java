@@ -0,0 +1,25 @@
+package classification;
+
+import preprocessing.SparseVector;
+
+/**
+ * Schnittstelle fr die NaiveBayes-Classifier, mit denen der ProbabilisticClassifier die Label-Wahrscheinlichkeiten
+ * eines Satzvektors berechnet, z.B. ein im Speicher trainierter (MultinomialNaiveBayes) oder ein aus einer gemappten
+ * Modell-Datei gelesener Classifier (MappedClassifierModel).
+ * @author Alina Ostrowski
+ *
+ */
+public interface VectorClassifier {
+
+	/**
+	 * Berechnet die Wahrscheinlichkeit eines jeden Labels fr den bergebenen Satzvektor.
+	 * @param vector Der Vektor des Satzes.
+	 * @param labelProbabilities Array der Lnge getLabelCount(), in das die Wahrscheinlichkeiten geschrieben werden.
+	 */
+	void distributionForVector(SparseVector vector, double[] labelProbabilities);
+
+	/**
+	 * @return Die Anzahl aller mglichen Labels.
+	 */
+	int getLabelCount();
+}
@@ -0,0 +1,105 @@
+package config;
+
+import java.io.File;
+
+/**
+ * Konfigurations-Klasse fr den externen Lemmatizer "LEMLAT 3.0" und den Pool der Lemmatizer-Prozesse.
+ * @author Alina Ostrowski
+ *
+ */
+public class LemmatizerConfig {
+	private String[] command;
+	private File workingDirectory;
+	private int workerCount;
+	private int batchSize;
+	private long timeoutMillis;
+	private long probeTimeoutMillis;
+	private String lexiconPath;
+
+	/**
+	 * Erstellt eine neue LemmatizerConfig mit folgenden Default-Werten, die jeweils ber die angegebene System-Property
+	 * (java -D...) berschrieben werden knnen:<br>
+	 * <ul>
+	 * <li> Befehl zum Starten des Lemmatizers = lemlat/lemlat.exe (lemmatizer.command, Programm und Argumente durch Leerzeichen getrennt) </li>
+	 * <li> Ordner, in dem der Lemmatizer luft = lemlat (lemmatizer.directory) </li>
+	 * <li> Anzahl der parallel laufenden Lemmatizer-Prozesse = Anzahl der Prozessorkerne (lemmatizer.workers) </li>
+	 * <li> Anzahl der Wortformen, die einem Prozess auf einmal geschickt werden = 0, d.h. alle Wortformen werden gleichmig
+	 * auf die Prozesse verteilt (lemmatizer.batchSize) </li>
+	 * <li> Zeit in Sekunden, nach der ein Prozess, der keine Ausgabe mehr macht, beendet wird = 120 (lemmatizer.timeout) </li>
+	 * <li> Zeit in Sekunden, die ein neu gestarteter Prozess hat, um die Markierungs-Wortform zu beantworten, bevor angenommen wird,
+	 * dass er seinen Output puffert = 10, 0 schaltet den Test ab (lemmatizer.probeTimeout, siehe LemlatWorker) </li>
+	 * <li> Pfad zu einem Vollformen-Lexikon, in dem statt bei LEMLAT nachgeschlagen wird = null (lemmatizer.lexicon, siehe DictionaryLemmatizer) </li>
+	 * </ul>
+	 */
+	public LemmatizerConfig(){
+		command = System.getProperty("lemmatizer.command", "lemlat/lemlat.exe").trim().split("\\s+");
+		workingDirectory = new File(System.getProperty("lemmatizer.directory", "lemlat"));
+		workerCount = Integer.getInteger("lemmatizer.workers", Runtime.getRuntime().availableProcessors());
+		batchSize = Integer.getInteger("lemmatizer.batchSize", 0);
+		timeoutMillis = Integer.getInteger("lemmatizer.timeout", 120) * 1000L;
+		probeTimeoutMillis = Integer.getInteger("lemmatizer.probeTimeout", 10) * 1000L;
+		lexiconPath = System.getProperty("lemmatizer.lexicon");
+	}
+
+	/**
+	 * Erstellt eine neue LemmatizerConfig mit den bergebenen Werten.
+	 * @param command Programm und Argumente, mit denen der Lemmatizer gestartet wird. Relative Programmpfade beziehen sich auf den Projektordner.
+	 * @param workingDirectory Ordner, in dem der Lemmatizer laufen soll, z.B. damit er seine Datenbanken findet.
+	 * @param workerCount Anzahl der parallel laufenden Lemmatizer-Prozesse.
+	 * @param batchSize Anzahl der Wortformen, die einem Prozess auf einmal geschickt werden, oder 0, um alle Wortformen gleichmig auf die Prozesse zu verteilen.
+	 * @param timeoutMillis Zeit in Millisekunden, nach der ein Prozess, der keine Ausgabe mehr macht, beendet wird.
+	 * @param probeTimeoutMillis Zeit in Millisekunden, die ein neu gestarteter Prozess hat, um die Markierungs-Wortform zu beantworten,
+	 * bevor angenommen wird, dass er seinen Output puffert, oder 0, um den Test abzuschalten.
+	 * @param lexiconPath Pfad zu einem Vollformen-Lexikon, in dem statt bei LEMLAT nachgeschlagen wird, oder null.
+	 */
+	public LemmatizerConfig(String[] command, File workingDirectory, int workerCount, int batchSize, long timeoutMillis, long probeTimeoutMillis, String lexiconPath){
+		this.command = command;
+		this.workingDirectory = workingDirectory;
+		this.workerCount = workerCount;
+		this.batchSize = batchSize;
+		this.timeoutMillis = timeoutMillis;
+		this.probeTimeoutMillis = probeTimeoutMillis;
+		this.lexiconPath = lexiconPath;
+	}
+
+	public String[] getCommand() {
+		return command;
+	}
+
+	public File getWorkingDirectory() {
+		return workingDirectory;
+	}
+
+	public int getWorkerCount() {
+		return Math.max(1, workerCount);
+	}
+
+	public int getBatchSize() {
+		return Math.max(0, batchSize);
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	public long getProbeTimeoutMillis() {
+		return Math.max(0, probeTimeoutMillis);
+	}
+
+	public String getLexiconPath() {
+		return lexiconPath;
+	}
+
+	/**
+	 * Gibt eine Kennung des konfigurierten Lemmatizers zurck, unter der dessen Lemmata im LemmaCache gespeichert werden.
+	 * Bei einem Lexikon besteht sie aus dessen Pfad, Gre und nderungsdatum, sodass ein gendertes Lexikon eine neue Kennung
+	 * erhlt; bei LEMLAT aus dem Befehl und dem Ordner, in dem der Lemmatizer luft.
+	 */
+	public String getLemmatizerId() {
+		if(lexiconPath != null){
+			File lexicon = new File(lexiconPath).getAbsoluteFile();
+			return "lexicon "+lexicon.getPath()+" "+lexicon.length()+" "+lexicon.lastModified();
+		}
+		return "LEMLAT "+String.join(" ", command)+" in "+workingDirectory.getAbsolutePath();
+	}
+}
@@ -43,6 +43,21 @@ public class Milestones {
 		this.eschatocolDiplomaPartProbabilities = newProbsArray(1.0);
 	}
 	
+	/**
+	 * Initialisiert die bergebenen, bereits berechneten Werte, z.B. beim Laden eines gespeicherten Modells.
+	 * @param averageProtocolEnd Der durchschnittliche lastWordIndex des Protokolls.
+	 * @param inversedAverageEschatocolStart Der durchschnittliche inversedFirstWordIndex des Eschatokolls.
+	 */
+	public Milestones(double averageProtocolEnd, double inversedAverageEschatocolStart, double[] diplomaPartProbabilities,
+			double[] protocolDiplomaPartProbabilities, double[] contextDiplomaPartProbabilities, double[] eschatocolDiplomaPartProbabilities){
+		this.averageProtocolEnd = averageProtocolEnd;
+		this.inversedAverageEschatocolStart = inversedAverageEschatocolStart;
+		this.diplomaPartProbabilities = diplomaPartProbabilities;
+		this.protocolDiplomaPartProbabilities = protocolDiplomaPartProbabilities;
+		this.contextDiplomaPartProbabilities = contextDiplomaPartProbabilities;
+		this.eschatocolDiplomaPartProbabilities = eschatocolDiplomaPartProbabilities;
+	}
+	
 	/**
 	 * Initialisiert Werte, die anhand der bergebenen Trainingsurkunden berechnet werden.
 	 * @param diplomas Die TrainingDiploma-Objekte, auf deren Basis die Member-Werte berechnet werden sollen.
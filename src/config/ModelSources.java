@@ -0,0 +1,100 @@
+package config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Fingerabdrcke der Daten, aus denen ein Modell trainiert wurde: der Trainingsurkunden und der Indikatordatei. Sie werden
+ * mit dem Modell gespeichert (siehe ClassifierModel und MappedClassifierModel), damit ein gespeichertes Modell nach einer
+ * nderung der Trainingsurkunden oder der Indikatoren nicht weiter genutzt, sondern neu trainiert wird.<br>
+ * Der Fingerabdruck der Trainingsurkunden ist eine CRC32-Prfsumme ber den relativen Pfad, die Gre und das nderungsdatum
+ * aller .cei.xml-Dateien im Trainingsordner und seinen Unterordnern, der der Indikatordatei eine CRC32-Prfsumme ber ihren Inhalt.
+ * @author Alina Ostrowski
+ *
+ */
+public class ModelSources {
+
+	/**
+	 * Fingerabdruck eines Ordners oder einer Datei, die nicht gelesen werden konnte. Kommt als CRC32-Wert nicht vor.
+	 */
+	public static final long UNKNOWN = -1;
+
+	private final long trainingFingerprint;
+	private final long indicatorFingerprint;
+
+	/**
+	 * @param trainingFingerprint Der Fingerabdruck der Trainingsurkunden.
+	 * @param indicatorFingerprint Der Fingerabdruck der Indikatordatei.
+	 */
+	public ModelSources(long trainingFingerprint, long indicatorFingerprint) {
+		this.trainingFingerprint = trainingFingerprint;
+		this.indicatorFingerprint = indicatorFingerprint;
+	}
+
+	/**
+	 * Berechnet die Fingerabdrcke der bergebenen Trainingsurkunden und Indikatordatei.
+	 * @param trainingPath Der Ordner mit den Trainingsurkunden.
+	 * @param indicatorPath Die Datei mit den Indikatoren.
+	 */
+	public static ModelSources of(String trainingPath, String indicatorPath) {
+		File trainingDir = new File(trainingPath);
+		long trainingFingerprint = UNKNOWN;
+		if(trainingDir.isDirectory()){
+			CRC32 crc = new CRC32();
+			addFiles(trainingDir, "", crc);
+			trainingFingerprint = crc.getValue();
+		}
+		long indicatorFingerprint = UNKNOWN;
+		try {
+			CRC32 crc = new CRC32();
+			crc.update(Files.readAllBytes(new File(indicatorPath).toPath()));
+			indicatorFingerprint = crc.getValue();
+		} catch (IOException e) {
+			// die Indikatordatei wird beim Erstellen des DiplomaticClassifiers gemeldet
+		}
+		return new ModelSources(trainingFingerprint, indicatorFingerprint);
+	}
+
+	/**
+	 * Fgt der Prfsumme Pfad, Gre und nderungsdatum aller Trainingsdateien des Ordners in alphabetischer Reihenfolge hinzu.
+	 */
+	private static void addFiles(File dir, String relativePath, CRC32 crc) {
+		File[] files = dir.listFiles();
+		if(files == null) return;
+		Arrays.sort(files);
+		for(File file : files){
+			String path = relativePath + "/" + file.getName();
+			if(file.isDirectory()){
+				addFiles(file, path, crc);
+			} else if(file.getName().endsWith(".cei.xml")){
+				crc.update(path.getBytes(StandardCharsets.UTF_8));
+				crc.update(ByteBuffer.allocate(16).putLong(file.length()).putLong(file.lastModified()).array());
+			}
+		}
+	}
+
+	/**
+	 * Gibt an, ob ein Modell mit diesen Fingerabdrcken aus den bergebenen aktuellen Daten trainiert wurde. Ist der Trainingsordner
+	 * aktuell nicht vorhanden (z.B. wenn nur die Modell-Datei ausgeliefert wurde), kann das Modell ohnehin nicht neu trainiert
+	 * werden; es gilt dann als passend, sofern die Indikatoren bereinstimmen.
+	 * @param current Die Fingerabdrcke der aktuellen Trainingsurkunden und Indikatordatei.
+	 * @return true, wenn das Modell weiter genutzt werden kann; false, wenn es neu trainiert werden muss.
+	 */
+	public boolean matches(ModelSources current) {
+		return indicatorFingerprint == current.indicatorFingerprint
+				&& (current.trainingFingerprint == UNKNOWN || trainingFingerprint == current.trainingFingerprint);
+	}
+
+	public long getTrainingFingerprint() {
+		return trainingFingerprint;
+	}
+
+	public long getIndicatorFingerprint() {
+		return indicatorFingerprint;
+	}
+}
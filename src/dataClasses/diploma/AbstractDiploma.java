@@ -11,6 +11,7 @@ import dataClasses.label.DiplomaticParagraphLabel;
 import dataClasses.sentence.AbstractSentence;
 import helpers.ReaderWriter;
 import preprocessing.Preprocessor;
+import preprocessing.ReplacementRules;
 
 /**
  * Die AbstractDiploma-Klasse ist die abstrakte Datenklasse fr alle Diplome und stellt
@@ -50,12 +51,27 @@ public abstract class AbstractDiploma<T extends AbstractSentence> {
 	 * sowie an schlieenden Klammern.
 	 */
 	protected String initialDelimiter = "(?<=\\))|((?<=[,\\.!\\?\\-;:]+)(?!\\)))";
-	private List<String[]> abbreviationPairs;
-	private List<String[]> paranthesisAnnotations;
+	private ReplacementRules abbreviationPairs;
+	private ReplacementRules paranthesisAnnotations;
 	
 	protected Preprocessor pp;
 	
 	public AbstractDiploma(String fileName, File file, Preprocessor pp){
+		this(fileName, file, null, pp);
+	}
+	
+	/**
+	 * Erstellt die Urkunde aus einem bereits geparsten XML-Document-Objekt, z.B. wenn die Urkunde nicht aus einer Datei
+	 * stammt, sondern ber das Netzwerk bertragen wurde.
+	 * @param fileName Der Name der Urkunde.
+	 * @param parsedXML Das Document-Objekt der Urkunde.
+	 * @param pp Der Preprocessor, mit dem die Stze der Urkunde vorbereitet werden.
+	 */
+	protected AbstractDiploma(String fileName, Document parsedXML, Preprocessor pp){
+		this(fileName, null, parsedXML, pp);
+	}
+	
+	private AbstractDiploma(String fileName, File file, Document xml, Preprocessor pp){
 		
 		this.pp = pp;
 		abbreviationPairs = pp.getAbbreviationPairs();
@@ -65,7 +81,7 @@ public abstract class AbstractDiploma<T extends AbstractSentence> {
 		this.file = file;
 
 		// Ursprungsdatei parsen und so ein durchsuch- und manipulierbares Document-Objekt erzeugen
-		parsedXML = ReaderWriter.parseFile(this.file);
+		parsedXML = xml != null ? xml : parseXML();
 		if(parsedXML == null){
 			useDiploma = false;
 			return;
@@ -111,6 +127,16 @@ public abstract class AbstractDiploma<T extends AbstractSentence> {
 		
 	}
 	
+	/**
+	 * Parst die Ursprungsdatei der Urkunde. Standardmig wird die vollstndige Datei in ein Document-Objekt berfhrt. Erbende Klassen,
+	 * die nicht das ganze Dokument bentigen, knnen die Methode berschreiben. Das zurckgegebene Document-Objekt muss jedoch mindestens
+	 * das erste cei:lang_MOM- und das erste cei:tenor-Element enthalten.
+	 * @return Das Document-Objekt der Ursprungsdatei oder null, falls die Datei nicht gelesen werden konnte.
+	 */
+	protected Document parseXML() {
+		return ReaderWriter.parseFile(this.file);
+	}
+	
 	/**
 	 * Initialisierung der Listen mit den Labelnamen.
 	 */
@@ -141,7 +167,7 @@ public abstract class AbstractDiploma<T extends AbstractSentence> {
 		
 		// Testen, ob die Urkunde auf Latein ist
 		String lang = ReaderWriter.extractUniqueElementText(parsedXML, "cei:lang_MOM", true);
-		String lowLang = lang.toLowerCase();
+		String lowLang = lang == null ? "" : lang.toLowerCase();
 		if(!(lowLang.equals("latein") || lowLang.equals("lat.") || lowLang.equals("lat") || lowLang.equals("latin"))){
 			System.out.println("The file "+fileName+" has the wrong language or no 'cei:lang_MOM'-Element. The language must be 'Latein'.");
 			return false;
@@ -166,15 +192,14 @@ public abstract class AbstractDiploma<T extends AbstractSentence> {
 	 */
 	protected int endsWithAbbType(String string) {
 		
-		for(String[] pair : abbreviationPairs){
-			// berprfen, ob der String mit einer Abkrzung endet
-			if(string.matches("[\\s\\S]*" + pair[0])){
-				// berprfen, ob es sich um eine typische Satzende-Abkrzung handelt
-				if(Boolean.valueOf(pair[2])){
-					return 1;
-				} else {
-				return -1;
-				}
+		// berprfen, ob der String mit einer Abkrzung endet
+		String[] pair = abbreviationPairs.findPairMatchingEnd(string);
+		if(pair != null){
+			// berprfen, ob es sich um eine typische Satzende-Abkrzung handelt
+			if(Boolean.valueOf(pair[2])){
+				return 1;
+			} else {
+			return -1;
 			}
 		}
 		
@@ -190,12 +215,7 @@ public abstract class AbstractDiploma<T extends AbstractSentence> {
 	 * @return true, wenn der String mit einer Annotation endet; sonst false.
 	 */
 	protected boolean endsWithEditorialAnnotation(String string) {
-		for(String[] pair : paranthesisAnnotations){
-			if(string.matches("[\\s\\S]*" + pair[0])){
-				return true;
-			}
-		}
-		return false;
+		return paranthesisAnnotations.findPairMatchingEnd(string) != null;
 	}
 	
 	/**
@@ -33,6 +33,17 @@ public class Diploma extends AbstractDiploma<Sentence> {
 		super(fileName, file, pp);
 	}
 
+	/**
+	 * Erstellt die Urkunde aus einem bereits geparsten XML-Document-Objekt, das nicht aus einer Datei stammt.
+	 * Die gelabelte XML kann dann mit {@link #createLabeledXML()} abgerufen werden.
+	 * @param fileName Der Name der Urkunde.
+	 * @param parsedXML Das Document-Objekt der Urkunde.
+	 * @param pp Der Preprocessor, mit dem die Stze der Urkunde vorbereitet werden.
+	 */
+	public Diploma(String fileName, Document parsedXML, Preprocessor pp) {
+		super(fileName, parsedXML, pp);
+	}
+
 	/**
 	 * Erzeugt eine Kopie der XML-Datei dieser Urkunde, die um die Label der Stze der Urkunden ergnzt ist.
 	 * @param newDirPath Der Ordner, in dem die neue XML-Datei gespeichert werden soll.
@@ -41,6 +52,32 @@ public class Diploma extends AbstractDiploma<Sentence> {
 	 */
 	public void generateLabeledXML(String newDirPath, String rootPath){
 		
+		createLabeledXML();
+		
+		String fullNewDirPath = null;
+		if(rootPath != null){
+			System.out.println("...copying directory structure from source directory to target directory...");
+			// Wenn die Ordnerstruktur der Ursprungsdatei bernommen werden soll, dann zunchst
+			// diese Ordnerstruktur anlegen
+			fullNewDirPath = ReaderWriter.createDirectories(rootPath, newDirPath, this.file);
+		}
+		if(fullNewDirPath == null){
+			fullNewDirPath = newDirPath;
+		}
+		
+		// Das erstellte XML-Document-Objekt in eine tatschliche Datei bertragen
+		ReaderWriter.writeXML(labeledXML, fullNewDirPath+"/"+fileName);
+			
+	}
+
+	/**
+	 * Ergnzt die Kopie der XML-Datei dieser Urkunde um die Label der Stze, indem der Tenor durch einen nach Paragraphen-
+	 * und Part-Labeln gegliederten Tenor ersetzt wird. Die Methode darf nur einmal aufgerufen werden, nachdem die Stze
+	 * klassifiziert wurden.
+	 * @return Das gelabelte XML-Document-Objekt.
+	 */
+	public Document createLabeledXML(){
+		
 		Node newTenor = labeledXML.createElement("cei:tenor");
 		
 		DiplomaticParagraphLabel[] paragraphLabels = DiplomaticParagraphLabel.values();
@@ -99,20 +136,7 @@ public class Diploma extends AbstractDiploma<Sentence> {
 		
 		tenorParent.replaceChild(newTenor, super.getTenorNode());
 		
-		String fullNewDirPath = null;
-		if(rootPath != null){
-			System.out.println("...copying directory structure from source directory to target directory...");
-			// Wenn die Ordnerstruktur der Ursprungsdatei bernommen werden soll, dann zunchst
-			// diese Ordnerstruktur anlegen
-			fullNewDirPath = ReaderWriter.createDirectories(rootPath, newDirPath, this.file);
-		}
-		if(fullNewDirPath == null){
-			fullNewDirPath = newDirPath;
-		}
-		
-		// Das erstellte XML-Document-Objekt in eine tatschliche Datei bertragen
-		ReaderWriter.writeXML(labeledXML, fullNewDirPath+"/"+fileName);
-			
+		return labeledXML;
 	}
 
 	@Override
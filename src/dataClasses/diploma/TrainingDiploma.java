@@ -4,6 +4,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
@@ -28,6 +29,15 @@ public class TrainingDiploma extends AbstractDiploma<TrainingSentence> {
 		super(fileName, file, pp);
 	}
 	
+	/**
+	 * Fr das Training werden nur die Sprachangabe und der Tenor bentigt. Die Datei wird deshalb als Stream gelesen und nur
+	 * diese beiden Elemente werden als Document-Objekt angelegt.
+	 */
+	@Override
+	protected Document parseXML() {
+		return ReaderWriter.parseElements(file, "cei:lang_MOM", "cei:tenor");
+	}
+	
 	@Override
 	protected Node initializeTenorNode() {
 		return ReaderWriter.getUniqueElementNode(parsedXML, "cei:tenor");
@@ -1,10 +1,13 @@
 package dataClasses.sentence;
 
+import java.util.AbstractList;
 import java.util.List;
 
 import dataClasses.diploma.AbstractDiploma;
 import dataClasses.label.DiplomaticLabel;
 import dataClasses.label.DiplomaticParagraphLabel;
+import preprocessing.SparseVector;
+import preprocessing.SymbolTable;
 
 /**
  * Superdatenklasse fr alle Satzobjekte. Sie verwaltet die basalen Eigenschaften des Satzes
@@ -45,15 +48,16 @@ public abstract class AbstractSentence {
 	protected DiplomaticParagraphLabel paragraphLabel;
 	protected DiplomaticLabel partLabel;
 
-	// Feldvariablen, auf den spter die Tokens / Lemmata / Bigramme des Satzes gelegt werden sollen
-	protected List<String> tokens;
-	protected List<String> lemmatizedTokens;
-	protected List<String> bigrams;
+	// Feldvariablen, auf den spter die Tokens / Lemmata / Bigramme des Satzes gelegt werden sollen. Tokens und Lemmata werden
+	// als IDs der korpusweiten SymbolTable gespeichert, Bigramme als Features aus zwei Lemma-IDs (siehe SymbolTable.pack())
+	protected int[] tokens;
+	protected int[] lemmatizedTokens;
+	protected long[] bigrams;
 	
 	/**
-	 * Vektor des Satzes, der durch den ProbabilisticClassifier und den Preprocessor erzeugt wird
+	 * Dnn besetzter Vektor des Satzes, der durch den ProbabilisticClassifier und den Preprocessor erzeugt wird
 	 */
-	protected double[] vector;
+	protected SparseVector vector;
 	
 	/**
 	 * Wahrscheinlichkeit eines jeden Labels fr diesen Satz
@@ -130,11 +134,11 @@ public abstract class AbstractSentence {
 		this.text = text;
 	}
 
-	public double[] getVector() {
+	public SparseVector getVector() {
 		return vector;
 	}
 
-	public void setVector(double[] vector) {
+	public void setVector(SparseVector vector) {
 		this.vector = vector;
 	}
 
@@ -158,22 +162,63 @@ public abstract class AbstractSentence {
 		return diploma;
 	}
 
+	/**
+	 * Speichert die Lemmata des Satzes, die dafr in der SymbolTable interniert werden.
+	 */
 	public void setLemmatizedTokens(List<String> lemmatizedTokens) {
-		this.lemmatizedTokens = lemmatizedTokens;
+		this.lemmatizedTokens = intern(lemmatizedTokens);
 	}
 	
+	/**
+	 * @return Die Lemmata des Satzes als unvernderliche Liste oder null, wenn der Satz noch nicht lemmatisiert wurde.
+	 */
 	public List<String> getLemmatizedTokens() {
+		return symbolList(lemmatizedTokens);
+	}
+
+	public void setLemmaIds(int[] lemmaIds) {
+		this.lemmatizedTokens = lemmaIds;
+	}
+
+	/**
+	 * @return Die IDs der Lemmata des Satzes in der SymbolTable. Das Array darf nicht verndert werden.
+	 */
+	public int[] getLemmaIds() {
 		return lemmatizedTokens;
 	}
 
-	public void setBigrams(List<String> bigrams) {
+	public void setBigramFeatures(long[] bigrams) {
 		this.bigrams = bigrams;
 	}
 	
-	public List<String> getBigrams(){
+	/**
+	 * @return Die Bigramme des Satzes, kodiert als Features aus zwei Lemma-IDs (siehe SymbolTable.pack()). Das Array
+	 * darf nicht verndert werden.
+	 */
+	public long[] getBigramFeatures(){
 		return bigrams;
 	}
 	
+	/**
+	 * @return Die Bigramme des Satzes in ihrer String-Darstellung (beide Lemmata durch ein Leerzeichen getrennt) als
+	 * unvernderliche Liste oder null, wenn noch keine Bigramme erzeugt wurden.
+	 */
+	public List<String> getBigrams(){
+		if(bigrams == null) return null;
+		SymbolTable symbols = SymbolTable.getShared();
+		return new AbstractList<String>() {
+			@Override
+			public String get(int index) {
+				return symbols.featureName(bigrams[index]);
+			}
+
+			@Override
+			public int size() {
+				return bigrams.length;
+			}
+		};
+	}
+	
 	public void setWordRelativeIndex(double d){
 		this.wordRelativeIndex = d;
 	}
@@ -182,12 +227,25 @@ public abstract class AbstractSentence {
 		this.index = i;
 	}
 
+	/**
+	 * @return Die Tokens des Satzes als unvernderliche Liste oder null, wenn der Satz noch nicht tokenisiert wurde.
+	 */
 	public List<String> getTokens() {
-		return tokens;
+		return symbolList(tokens);
 	}
 
+	/**
+	 * Speichert die Tokens des Satzes, die dafr in der SymbolTable interniert werden.
+	 */
 	public void setTokens(List<String> tokens) {
-		this.tokens = tokens;
+		this.tokens = intern(tokens);
+	}
+
+	/**
+	 * @return Die IDs der Tokens des Satzes in der SymbolTable. Das Array darf nicht verndert werden.
+	 */
+	public int[] getTokenIds() {
+		return tokens;
 	}
 
 	public int getIndexOfFirstWord() {
@@ -222,4 +280,30 @@ public abstract class AbstractSentence {
 		this.inversedIndexOfLastWord = inversedIndexOfLastWord;
 	}
 
+	private static int[] intern(List<String> symbols){
+		if(symbols == null) return null;
+		SymbolTable symbolTable = SymbolTable.getShared();
+		int[] ids = new int[symbols.size()];
+		for(int i = 0; i < ids.length; i++){
+			ids[i] = symbolTable.intern(symbols.get(i));
+		}
+		return ids;
+	}
+
+	private static List<String> symbolList(int[] ids){
+		if(ids == null) return null;
+		SymbolTable symbolTable = SymbolTable.getShared();
+		return new AbstractList<String>() {
+			@Override
+			public String get(int index) {
+				return symbolTable.symbol(ids[index]);
+			}
+
+			@Override
+			public int size() {
+				return ids.length;
+			}
+		};
+	}
+
 }
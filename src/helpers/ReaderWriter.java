@@ -3,15 +3,24 @@ package helpers;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.xml.XMLConstants;
 import javax.xml.parsers.*;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.*;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
@@ -21,25 +30,56 @@ import org.xml.sax.SAXException;
 
 /**
  * Die ReaderWriter-Klasse stellt Methoden zur Verarbeitung von XML-Dateien (sowohl lesen als auch schreiben)
- * sowie zum Einlesen von Text-Dateien zur Verfgung.
+ * sowie zum Einlesen von Text-Dateien zur Verfgung.<br>
+ * Die Methoden knnen von mehreren Threads gleichzeitig genutzt werden, z.B. beim parallelen Einlesen der Urkunden: Da
+ * DocumentBuilder und Transformer nicht threadsicher sind, erhlt jeder Thread eigene Instanzen.
  * @author Alina Ostrowski
  *
  */
 public class ReaderWriter {
 	
+	/**
+	 * Property des XMLStreamReaders des JDK, mit der CDATA-Abschnitte als eigene Events gemeldet werden.
+	 */
+	private static final String REPORT_CDATA_EVENT = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+	
 	/*
-	 * Feldvariablen fr die Prozessierung von XML-Dateien. Die hier genutzten Klassen stammen
+	 * Feldvariablen fr die Prozessierung von XML-Dateien, je eine Instanz pro Thread. Die hier genutzten Klassen stammen
 	 * aus den Java-eigenen Klassen zur XML-Prozessierung 
 	 */
-	private static DocumentBuilderFactory factory;
-	private static DocumentBuilder builder = initializeParser();
-	private static TransformerFactory tfFactory;
-    private static Transformer transformer = initializeTransformer();
+	private static ThreadLocal<DocumentBuilder> builders = ThreadLocal.withInitial(ReaderWriter::initializeParser);
+	private static ThreadLocal<DocumentBuilder> untrustedBuilders = ThreadLocal.withInitial(ReaderWriter::initializeUntrustedParser);
+    private static ThreadLocal<Transformer> transformers = ThreadLocal.withInitial(ReaderWriter::initializeTransformer);
+    private static ThreadLocal<XMLInputFactory> streamFactories = ThreadLocal.withInitial(ReaderWriter::initializeStreamFactory);
 
 	private static DocumentBuilder initializeParser(){
-		factory = DocumentBuilderFactory.newInstance();
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		
+		try {
+			return factory.newDocumentBuilder();
+		} catch (ParserConfigurationException e) {
+			System.out.println("Problem with parser occured. Threw exception:");
+			e.printStackTrace();
+			return null;
+		}
+	}
+	
+	/**
+	 * Erstellt einen DocumentBuilder fr XML aus nicht vertrauenswrdigen Quellen (z.B. Anfragen an den ClassificationService).
+	 * Er lehnt Dokumente mit DOCTYPE-Deklaration ab und lst weder externe Entitten noch Entity-Referenzen auf, so dass ber
+	 * die XML keine lokalen Dateien oder URLs gelesen werden knnen (XXE).
+	 */
+	private static DocumentBuilder initializeUntrustedParser(){
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 		
 		try {
+			factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+			factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+			factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+			factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+			factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+			factory.setXIncludeAware(false);
+			factory.setExpandEntityReferences(false);
 			return factory.newDocumentBuilder();
 		} catch (ParserConfigurationException e) {
 			System.out.println("Problem with parser occured. Threw exception:");
@@ -49,7 +89,7 @@ public class ReaderWriter {
 	}
 	
 	private static Transformer initializeTransformer(){
-		tfFactory = TransformerFactory.newInstance();
+		TransformerFactory tfFactory = TransformerFactory.newInstance();
 		try {
 			return tfFactory.newTransformer();
 		} catch (TransformerConfigurationException e) {
@@ -60,6 +100,19 @@ public class ReaderWriter {
 		
 	}
 	
+	private static XMLInputFactory initializeStreamFactory(){
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		// wie beim DocumentBuilder werden Elemente ber ihren vollen Namen (z.B. "cei:tenor") gefunden
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+		// Ohne diese Property meldet der Reader des JDK CDATA-Abschnitte als CHARACTERS, so dass sie mit dem umgebenden Text zu
+		// einem Knoten zusammengefasst wrden; der DocumentBuilder legt dagegen eigene CDATA-Knoten an
+		if(factory.isPropertySupported(REPORT_CDATA_EVENT)){
+			factory.setProperty(REPORT_CDATA_EVENT, true);
+		}
+		return factory;
+	}
+	
 	/**
 	 * Liest die bergebene XML-Datei aus und berfhrt sie in ein Document-Objekt, das die geparste XML enthlt.
 	 * @param file Datei, die ausgelesen werden soll.
@@ -67,6 +120,7 @@ public class ReaderWriter {
 	 */
 	public static Document parseFile(File file) {
 		
+		DocumentBuilder builder = builders.get();
 		if(builder == null){
 			System.out.println("The parser doesn't work. The called method isn't executed.");
 			return null;
@@ -89,6 +143,163 @@ public class ReaderWriter {
 		return XML;
 	}
 	
+	/**
+	 * Liest XML aus dem bergebenen InputStream aus und berfhrt sie in ein Document-Objekt, das die geparste XML enthlt.
+	 * Da der Stream aus einer nicht vertrauenswrdigen Quelle stammen kann (z.B. aus einer Anfrage an den ClassificationService),
+	 * werden Dokumente mit DOCTYPE-Deklaration abgelehnt und keine externen Entitten aufgelst.
+	 * @param in Der Stream, aus dem die XML gelesen werden soll.
+	 * @param name Der Name, unter dem Probleme beim Parsen gemeldet werden.
+	 * @return Die gelesene XML als Document-Objekt oder null, falls ein Problem auftritt.
+	 */
+	public static Document parseStream(InputStream in, String name) {
+		
+		DocumentBuilder builder = untrustedBuilders.get();
+		if(builder == null){
+			System.out.println("The parser doesn't work. The called method isn't executed.");
+			return null;
+		}
+		
+		try {
+			return builder.parse(in);
+		} catch (SAXException e) {
+			System.out.println("Problem with parser occured. Couldn't parse "+name+". Threw exception: "+e.getMessage());
+			return null;
+		} catch (IOException e) {
+			System.out.println("The given stream "+name+" could not be read by the parser. Threw exception:");
+			e.printStackTrace();
+			return null;
+		}
+	}
+	
+	/**
+	 * Liest die bergebene XML-Datei als Stream (StAX) aus und berfhrt nur die bentigten Elemente in ein Document-Objekt.
+	 * Das Document enthlt eine Kopie des Wurzelelements der Datei und darunter jeweils das erste Element eines jeden bergebenen
+	 * Namens mitsamt all seiner Kindknoten, in der Reihenfolge, in der sie in der Datei stehen. Alle brigen Knoten werden nur gelesen,
+	 * aber nicht angelegt. Auf dem Ergebnis knnen die brigen Methoden dieser Klasse (z.B. {@link #getUniqueElementNode(Document, String)}
+	 * oder {@link #extractUniqueElementText(Document, String, boolean)}) fr die bergebenen Elemente genauso genutzt werden wie
+	 * auf dem Ergebnis von {@link #parseFile(File)}.
+	 * @param file Datei, die ausgelesen werden soll.
+	 * @param elementNames Die Namen der Elemente, die bernommen werden sollen (z.B. "cei:tenor").
+	 * @return Ein Document-Objekt mit den gesuchten Elementen oder null, falls ein Problem auftritt.
+	 */
+	public static Document parseElements(File file, String... elementNames) {
+		
+		DocumentBuilder builder = builders.get();
+		if(builder == null){
+			System.out.println("The parser doesn't work. The called method isn't executed.");
+			return null;
+		}
+		
+		String fileName = file.getName();
+		List<String> wantedNames = new ArrayList<>(Arrays.asList(elementNames));
+		Document XML = builder.newDocument();
+		
+		try(InputStream in = new FileInputStream(file)){
+			XMLStreamReader reader = streamFactories.get().createXMLStreamReader(in);
+			try {
+				// Knoten, an den die gelesenen Knoten angehngt werden; null, solange kein gesuchtes Element gelesen wird
+				Node current = null;
+				// Text, der noch keinem Text-Knoten zugeordnet ist. Der Parser kann einen Text in mehreren Teilen liefern,
+				// das Document-Objekt soll jedoch wie beim DocumentBuilder nur einen Knoten pro Text enthalten
+				StringBuilder text = new StringBuilder();
+				
+				while(reader.hasNext()){
+					int event = reader.next();
+					if(current == null){
+						if(event != XMLStreamConstants.START_ELEMENT) continue;
+						String name = getQualifiedName(reader.getPrefix(), reader.getLocalName());
+						if(XML.getDocumentElement() == null){
+							XML.appendChild(XML.createElement(name));
+						}
+						if(wantedNames.remove(name)){
+							current = createElement(XML, reader, name);
+							XML.getDocumentElement().appendChild(current);
+						}
+						continue;
+					}
+					
+					switch(event){
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.SPACE:
+						text.append(reader.getText());
+						break;
+					case XMLStreamConstants.CDATA:
+						appendText(XML, current, text);
+						current.appendChild(XML.createCDATASection(reader.getText()));
+						break;
+					case XMLStreamConstants.COMMENT:
+						appendText(XML, current, text);
+						current.appendChild(XML.createComment(reader.getText()));
+						break;
+					case XMLStreamConstants.PROCESSING_INSTRUCTION:
+						appendText(XML, current, text);
+						current.appendChild(XML.createProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+						break;
+					case XMLStreamConstants.START_ELEMENT:
+						appendText(XML, current, text);
+						Node element = createElement(XML, reader, getQualifiedName(reader.getPrefix(), reader.getLocalName()));
+						current.appendChild(element);
+						current = element;
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						appendText(XML, current, text);
+						current = current.getParentNode();
+						if(current == XML.getDocumentElement()){
+							current = null;
+						}
+						break;
+					default:
+						break;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			System.out.println("Problem with parser occured. Couldn't parse "+fileName+".Threw exception:");
+			e.printStackTrace();
+			return null;
+		} catch (IOException e) {
+			System.out.println("The given file "+fileName+" could not be read by the parser. Threw exception:");
+			e.printStackTrace();
+			return null;
+		}
+		
+		if(XML.getDocumentElement() == null){
+			System.out.println("Problem with parser occured. Couldn't parse "+fileName+". The file contains no root element.");
+			return null;
+		}
+		return XML;
+	}
+	
+	/**
+	 * Erzeugt ein Element mit dem bergebenen Namen und den Attributen des aktuellen Start-Elements des Readers.
+	 */
+	private static Element createElement(Document XML, XMLStreamReader reader, String name) {
+		Element element = XML.createElement(name);
+		for(int i = 0; i < reader.getAttributeCount(); i++){
+			String attributeName = getQualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+			element.setAttribute(attributeName, reader.getAttributeValue(i));
+		}
+		return element;
+	}
+	
+	/**
+	 * Hngt den gesammelten Text als Text-Knoten an den bergebenen Knoten an und leert den StringBuilder.
+	 */
+	private static void appendText(Document XML, Node parent, StringBuilder text) {
+		if(text.length() == 0) return;
+		parent.appendChild(XML.createTextNode(text.toString()));
+		text.setLength(0);
+	}
+	
+	private static String getQualifiedName(String prefix, String localName) {
+		if(prefix == null || prefix.isEmpty()){
+			return localName;
+		}
+		return prefix+":"+localName;
+	}
+	
 	/**
 	 * Erzeugt ein neues Document-Objekt mit demselben Inhalt wie das bergebene original Document-Objekt.
 	 * @param origDoc Das zu kopierende Document-Objekt.
@@ -96,6 +307,7 @@ public class ReaderWriter {
 	 */
 	public static Document copyDOMObject(Document origDoc){
 		
+		DocumentBuilder builder = builders.get();
 		if(builder == null){
 			System.out.println("The parser doesn't work. The called method isn't executed.");
 			return null;
@@ -161,7 +373,7 @@ public class ReaderWriter {
 	 * @return Eine Map mit dem Namen eines Attribut-Elements als Key und dem Text-Inhalt dieses Attributs als Value.
 	 */
 	public static Map<String, String> getAllAttributes(Document XML, String elementName){
-		if(builder == null){
+		if(builders.get() == null){
 			System.out.println("The parser doesn't work. The called method isn't executed.");
 			return null;
 		}
@@ -194,7 +406,7 @@ public class ReaderWriter {
 	 * @return Den Textinhalt des gesuchten Attributs oder null, falls das Element oder das Attribut nicht existiert.
 	 */
 	public static String getAttributeValue(Document XML, String elementName, String attributeName){
-		if(builder == null){
+		if(builders.get() == null){
 			System.out.println("The parser doesn't work. The called method isn't executed.");
 			return null;
 		}
@@ -269,6 +481,7 @@ public class ReaderWriter {
 	 */
 	public static boolean writeXML(Document XML, String path) {
 		
+		Transformer transformer = transformers.get();
 		if(transformer == null){
 			System.out.println("The parser doesn't work. The called method isn't executed.");
 			return false;
@@ -299,6 +512,30 @@ public class ReaderWriter {
 		
 	}
 	
+	/**
+	 * Schreibt ein XML-Document-Objekt in den bergebenen OutputStream. Der Stream wird dabei nicht geschlossen.
+	 * @param XML Das XML-Document-Objekt, das geschrieben werden soll.
+	 * @param out Der Stream, in den die XML geschrieben werden soll.
+	 * @return true, wenn die XML geschrieben wurde; sonst false.
+	 */
+	public static boolean writeXML(Document XML, OutputStream out) {
+		
+		Transformer transformer = transformers.get();
+		if(transformer == null){
+			System.out.println("The parser doesn't work. The called method isn't executed.");
+			return false;
+		}
+		
+		try {
+			transformer.transform(new DOMSource(XML), new StreamResult(out));
+			return true;
+		} catch (TransformerException e) {
+			System.out.println("Couldn't write DOM Object to stream. Threw exception:");
+			e.printStackTrace();
+			return false;
+		}
+	}
+	
 	/**
 	 * Liest eine Text-Datei Zeile fr Zeile aus und gibt eine Liste mit allen ausgelesenen Zeilen zurck.
 	 * @param file Die auszulesende Datei.
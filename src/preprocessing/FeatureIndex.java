@@ -0,0 +1,25 @@
+package preprocessing;
+
+/**
+ * Schnittstelle fr das Vokabular, anhand dessen der Preprocessor die Stze vektorisiert: Sie liefert zu jedem Type
+ * (ein Lemma oder Bigramm, kodiert als long, siehe SymbolTable) seine Position im Vektor sowie sein idf-Gewicht.
+ * @author Alina Ostrowski
+ *
+ */
+public interface FeatureIndex {
+
+	/**
+	 * @return Die Position des Types im Vektor oder -1, wenn der Type nicht zum Vokabular gehrt.
+	 */
+	int indexOf(long feature);
+
+	/**
+	 * @return Das idf-Gewicht (log(Anzahl der Trainingsstze / Dokumentenhufigkeit)) des Types an der bergebenen Position.
+	 */
+	double getIdfWeight(int index);
+
+	/**
+	 * @return Die Anzahl der Types, d.h. die Lnge der Vektoren.
+	 */
+	int size();
+}
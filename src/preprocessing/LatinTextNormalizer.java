@@ -0,0 +1,232 @@
+package preprocessing;
+
+import java.text.Normalizer;
+
+/**
+ * Zeichenbasierte Umsetzung der Normalisierungsschritte von Preprocessor.normalizeLatinText(). Statt fr jeden Schritt
+ * einen regulren Ausdruck ber den gesamten Text laufen zu lassen, wird der Text jeweils in einem einzigen Durchlauf
+ * in einen Ausgabepuffer geschrieben. Das Ergebnis entspricht Zeichen fr Zeichen dem der bisherigen Regex-Kette.<br>
+ * Da die konfigurierbaren Regex-Paare fr grogeschriebene Wrter (capitalLetterWords.txt) auf den Text nach der
+ * Entfernung der Diakritika und vor der Erkennung der Eigennamen angewendet werden mssen, ist die Normalisierung in
+ * zwei Durchlufe aufgeteilt: foldText() vor und finishText() nach der Anwendung dieser Regex-Paare.
+ * @author Alina Ostrowski
+ *
+ */
+final class LatinTextNormalizer {
+
+	/**
+	 * Platzhalter fr rmische Zahlen
+	 */
+	private static final String NUMERAL_PLACEHOLDER = " 123 ";
+
+	/**
+	 * Platzhalter fr grogeschriebene Wrter, bereits in Kleinschreibung, da er im selben Durchlauf kleingeschrieben wrde
+	 */
+	private static final String NAMED_ENTITY_PLACEHOLDER = "namedentity";
+
+	/**
+	 * Lookup-Tabelle: Fr jedes Nicht-ASCII-Zeichen unterhalb von FOLD_TABLE_SIZE die ASCII-Zeichen, die nach der
+	 * kanonischen Zerlegung (NFD) brig bleiben, z.B. "e" fr "" oder "" fr kombinierende Diakritika.
+	 */
+	private static final int FOLD_TABLE_SIZE = 0x0800;
+	private static final String[] FOLDED_CHARS = initializeFoldTable();
+
+	private LatinTextNormalizer(){
+	}
+
+	private static String[] initializeFoldTable(){
+		String[] table = new String[FOLD_TABLE_SIZE];
+		for(char c = 0x80; c < FOLD_TABLE_SIZE; c++){
+			table[c] = decomposeToAscii(c);
+		}
+		return table;
+	}
+
+	/**
+	 * Erster Durchlauf der Normalisierung: Entfernt Whitespaces am Anfang und Ende, fasst mehrere Whitespaces zu einem
+	 * Leerzeichen zusammen, ersetzt rmische Zahlen samt ihrer Abkrzungspunkte durch die Platzhalterziffer 123 und
+	 * entfernt Diakritika sowie alle brigen Nicht-ASCII-Zeichen.
+	 * @param text Der zu normalisierende Text.
+	 * @return Der Text, auf den als nchstes die Regex-Paare fr grogeschriebene Wrter angewendet werden.
+	 */
+	static String foldText(String text){
+
+		int start = 0;
+		int end = text.length();
+		while(start < end && text.charAt(start) <= ' ') start++;
+		while(end > start && text.charAt(end - 1) <= ' ') end--;
+
+		StringBuilder out = new StringBuilder(end - start + 16);
+		int i = start;
+		while(i < end){
+			char c = text.charAt(i);
+			if(isRegexWhitespace(c)){
+				out.append(' ');
+				do i++; while(i < end && isRegexWhitespace(text.charAt(i)));
+				continue;
+			}
+			// rmische Zahlen nur, wenn ihnen kein Wortzeichen vorausgeht
+			if(isNumeralChar(c) && (i == start || !isWordChar(text.charAt(i - 1)))){
+				int numeralEnd = numeralEnd(text, i, end);
+				if(numeralEnd > i){
+					out.append(NUMERAL_PLACEHOLDER);
+					i = numeralEnd;
+					continue;
+				}
+			}
+			if(c < 0x80){
+				out.append(c);
+			} else if(c < FOLD_TABLE_SIZE){
+				out.append(FOLDED_CHARS[c]);
+			} else {
+				out.append(decomposeToAscii(c));
+			}
+			i++;
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Zweiter Durchlauf der Normalisierung: Ersetzt grogeschriebene Wrter innerhalb eines Satzes durch den Platzhalter
+	 * "namedentity", schreibt den Text klein, entfernt alle Zeichen auer a-z, 0-9 und Whitespaces, vereinheitlicht
+	 * die lateinische Schreibweise (v - u; j - i; ae am Wortende - e) und fasst Whitespaces zusammen.
+	 * @param text Der Text nach der Anwendung der Regex-Paare fr grogeschriebene Wrter.
+	 * @return Der normalisierte Text.
+	 */
+	static String finishText(String text){
+
+		int length = text.length();
+		StringBuilder out = new StringBuilder(length + 16);
+		int i = 0;
+		while(i < length){
+			char c = text.charAt(i);
+			if(c >= 'A' && c <= 'Z' && i + 1 < length && isWordChar(text.charAt(i + 1)) && !followsPeriod(text, i)){
+				appendWhitespace(out);
+				out.append(NAMED_ENTITY_PLACEHOLDER);
+				appendWhitespace(out);
+				i += 2;
+				while(i < length && isWordChar(text.charAt(i))) i++;
+				continue;
+			}
+			if(c < 0x80){
+				appendLowerCase(out, c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+			} else {
+				// Nicht-ASCII-Zeichen knnen nur noch durch die Regex-Paare in den Text gelangt sein
+				String lowerCase = String.valueOf(c).toLowerCase();
+				for(int j = 0; j < lowerCase.length(); j++){
+					appendLowerCase(out, lowerCase.charAt(j));
+				}
+			}
+			i++;
+		}
+		shortenAeEnding(out);
+		return out.toString();
+	}
+
+	/**
+	 * Ermittelt das Ende einer rmischen Zahl, die an der bergebenen Position beginnt. Die Zahl kann von beliebig vielen
+	 * Punkten gefolgt sein und muss mit einem Nicht-Wortzeichen oder dem Textende abschlieen. Folgt ein Wortzeichen, wird
+	 * wie beim Backtracking des regulren Ausdrucks zunchst ein Punkt und anschlieend ggf. das letzte "" als Abschluss gewhlt.
+	 * @return Das Ende der rmischen Zahl oder -1, wenn an der Position keine rmische Zahl beginnt.
+	 */
+	private static int numeralEnd(String text, int start, int end){
+		int numeralEnd = start;
+		while(numeralEnd < end && isNumeralChar(text.charAt(numeralEnd))) numeralEnd++;
+		int periodEnd = numeralEnd;
+		while(periodEnd < end && text.charAt(periodEnd) == '.') periodEnd++;
+
+		if(periodEnd == end || !isWordChar(text.charAt(periodEnd))) return periodEnd;
+		if(periodEnd > numeralEnd) return periodEnd - 1;
+		for(int i = numeralEnd - 1; i > start; i--){
+			if(text.charAt(i) == '') return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return true, wenn dem Zeichen an der bergebenen Position ein Punkt oder ein Punkt und ein weiteres Wort- oder
+	 * Whitespace-Zeichen vorausgeht, das Wort also vermutlich am Satzanfang steht.
+	 */
+	private static boolean followsPeriod(String text, int i){
+		if(i >= 1 && text.charAt(i - 1) == '.') return true;
+		if(i >= 2 && text.charAt(i - 2) == '.'){
+			char previous = text.charAt(i - 1);
+			return isWordChar(previous) || isRegexWhitespace(previous);
+		}
+		return false;
+	}
+
+	/**
+	 * Fgt ein bereits kleingeschriebenes Zeichen an die Ausgabe an, sofern es ein Buchstabe, eine Ziffer oder ein
+	 * Whitespace ist. Dabei werden v zu u und j zu i.
+	 */
+	private static void appendLowerCase(StringBuilder out, char c){
+		if(c >= 'a' && c <= 'z'){
+			if(c == 'v') c = 'u';
+			else if(c == 'j') c = 'i';
+			out.append(c);
+		} else if(c >= '0' && c <= '9'){
+			out.append(c);
+		} else if(isRegexWhitespace(c)){
+			appendWhitespace(out);
+		}
+	}
+
+	/**
+	 * Beendet das zuletzt angefgte Wort und fgt ein Leerzeichen an, sofern die Ausgabe nicht bereits auf eines endet.
+	 */
+	private static void appendWhitespace(StringBuilder out){
+		int length = out.length();
+		if(length > 0 && out.charAt(length - 1) == ' ') return;
+		shortenAeEnding(out);
+		out.append(' ');
+	}
+
+	/**
+	 * ae am Ende eines Wortes wird zu e -> latinae -> latine, aber aeternitas -> aeternitas
+	 */
+	private static void shortenAeEnding(StringBuilder out){
+		int length = out.length();
+		if(length >= 3 && out.charAt(length - 1) == 'e' && out.charAt(length - 2) == 'a' && isLowerAlphanumeric(out.charAt(length - 3))){
+			out.setCharAt(length - 2, 'e');
+			out.setLength(length - 1);
+		}
+	}
+
+	private static String decomposeToAscii(char c){
+		String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+		StringBuilder ascii = new StringBuilder(decomposed.length());
+		for(int i = 0; i < decomposed.length(); i++){
+			if(decomposed.charAt(i) < 0x80) ascii.append(decomposed.charAt(i));
+		}
+		return ascii.toString();
+	}
+
+	/**
+	 * Zeichenklasse \s regulrer Ausdrcke
+	 */
+	private static boolean isRegexWhitespace(char c){
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	/**
+	 * Zeichenklasse \w regulrer Ausdrcke
+	 */
+	private static boolean isWordChar(char c){
+		return isLowerAlphanumeric(c) || (c >= 'A' && c <= 'Z') || c == '_';
+	}
+
+	private static boolean isLowerAlphanumeric(char c){
+		return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+	}
+
+	private static boolean isNumeralChar(char c){
+		switch(c){
+		case 'M': case 'm': case 'D': case 'd': case 'I': case 'i':
+		case 'C': case 'c': case 'V': case 'v': case 'X': case 'x': case '':
+			return true;
+		default:
+			return false;
+		}
+	}
+}
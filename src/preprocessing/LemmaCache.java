@@ -0,0 +1,222 @@
+package preprocessing;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Persistenter Cache fr die vom Lemmatizer ermittelten Wortform-Lemma-Paare. Die Paare werden in einer Datei
+ * gespeichert, an die neue Paare nur angehngt werden (Append-only-Log). Beim Programmstart wird die Datei per
+ * Memory-Mapping eingelesen und in die lemmaPairs-Map des Preprocessors geladen, die damit zugleich als Index dient.
+ * Bereits bekannte Wortformen mssen so nach einem Neustart nicht erneut an LEMLAT 3.0 geschickt werden.<br>
+ * Aufbau der Datei: 4 Byte Kennung, 4 Byte Versionsnummer, die Kennung des Lemmatizers, danach beliebig viele Eintrge
+ * aus je einer Wortform und einem Lemma. Alle Strings werden als UTF-8-Bytes mit vorangestellter Lnge (2 Byte) gespeichert.
+ * Ein durch einen Abbruch unvollstndig geschriebener letzter Eintrag wird beim Einlesen erkannt und abgeschnitten.<br>
+ * Da verschiedene Lemmatizer (LEMLAT 3.0 oder ein Lexikon, siehe LemmatizerConfig) verschiedene Lemmata liefern, wird eine
+ * Datei, die mit einem anderen Lemmatizer erstellt wurde, nicht eingelesen, sondern berschrieben.
+ * @author Alina Ostrowski
+ *
+ */
+public class LemmaCache {
+
+	private static final int MAGIC = 0x4C454D4D; // "LEMM"
+	private static final int VERSION = 2;
+	private static final int MAX_LENGTH = 0xFFFF;
+
+	private final File file;
+
+	/**
+	 * Die Kennung des Lemmatizers, dessen Lemmata in der Datei gespeichert werden (siehe LemmatizerConfig.getLemmatizerId()).
+	 */
+	private final String lemmatizerId;
+
+	/**
+	 * Kann in die Datei geschrieben werden? false, wenn die Datei beim Einlesen nicht repariert werden konnte.
+	 */
+	private boolean writable = true;
+
+	/**
+	 * @param path Pfad zur Cache-Datei. Existiert sie noch nicht, wird sie beim ersten Speichern angelegt.
+	 * @param lemmatizerId Kennung des Lemmatizers, dessen Lemmata gespeichert werden.
+	 */
+	public LemmaCache(String path, String lemmatizerId) {
+		this.file = new File(path);
+		this.lemmatizerId = lemmatizerId;
+	}
+
+	public String getPath() {
+		return file.getPath();
+	}
+
+	/**
+	 * Liest alle gespeicherten Wortform-Lemma-Paare ein und fgt sie der bergebenen Map hinzu.
+	 * @param lemmaPairs Die Map, der die Paare hinzugefgt werden sollen.
+	 * @return Die Anzahl der eingelesenen Paare.
+	 */
+	public int loadInto(Map<String, String> lemmaPairs){
+		if(!file.exists() || file.length() == 0) return 0;
+
+		int count = 0;
+		long validEnd = 0;
+		long size;
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+			FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+			try {
+				size = channel.size();
+				if(size > Integer.MAX_VALUE){
+					System.out.println("The lemma cache "+file.getPath()+" is too large and is ignored.");
+					writable = false;
+					return 0;
+				}
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+				String fileLemmatizerId = readHeader(buffer);
+				if(fileLemmatizerId == null){
+					System.out.println("The lemma cache "+file.getPath()+" has an unknown format and will be overwritten.");
+				} else if(!fileLemmatizerId.equals(lemmatizerId)){
+					System.out.println("The lemma cache "+file.getPath()+" was created by another lemmatizer ("+fileLemmatizerId+") and will be overwritten.");
+				} else {
+					validEnd = buffer.position();
+					while(buffer.hasRemaining()){
+						String wordform = readString(buffer);
+						String lemma = wordform == null ? null : readString(buffer);
+						if(lemma == null) break;
+						lemmaPairs.put(wordform, lemma);
+						validEnd = buffer.position();
+						count++;
+					}
+					if(validEnd < size){
+						System.out.println("The lemma cache "+file.getPath()+" ends with an incomplete entry, which is removed.");
+					}
+				}
+			} finally {
+				lock.release();
+			}
+		} catch(IOException e){
+			System.out.println("The lemma cache "+file.getPath()+" couldn't be read. Lemmata will be fetched from the lemmatizer.");
+			e.printStackTrace();
+			writable = false;
+			return count;
+		}
+
+		if(validEnd < size){
+			truncate(validEnd, size);
+		}
+		return count;
+	}
+
+	/**
+	 * Hngt die bergebenen Wortform-Lemma-Paare an die Cache-Datei an. Die Datei wird dabei gesperrt, damit mehrere
+	 * gleichzeitig laufende Programminstanzen sich nicht gegenseitig Eintrge zerschreiben.
+	 * @param lemmaPairs Die neuen Paare.
+	 */
+	public void append(Map<String, String> lemmaPairs){
+		if(!writable || lemmaPairs.isEmpty()) return;
+
+		ByteBuffer buffer = ByteBuffer.allocate(lemmaPairs.size() * 32);
+		for(Entry<String, String> pair : lemmaPairs.entrySet()){
+			byte[] wordform = pair.getKey().getBytes(StandardCharsets.UTF_8);
+			byte[] lemma = pair.getValue().getBytes(StandardCharsets.UTF_8);
+			if(wordform.length > MAX_LENGTH || lemma.length > MAX_LENGTH) continue;
+			buffer = ensureCapacity(buffer, 4 + wordform.length + lemma.length);
+			buffer.putShort((short) wordform.length).put(wordform);
+			buffer.putShort((short) lemma.length).put(lemma);
+		}
+		buffer.flip();
+
+		if(file.getParentFile() != null) file.getParentFile().mkdirs();
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+			FileLock lock = channel.lock();
+			try {
+				long position = channel.size();
+				if(position == 0){
+					byte[] id = lemmatizerId.getBytes(StandardCharsets.UTF_8);
+					ByteBuffer header = ByteBuffer.allocate(10 + id.length).putInt(MAGIC).putInt(VERSION);
+					header.putShort((short) id.length).put(id);
+					header.flip();
+					position += writeFully(channel, header, position);
+				} else if(!lemmatizerId.equals(readHeader(readFully(channel, (int) Math.min(position, 10 + MAX_LENGTH))))){
+					// eine andere Programminstanz hat die Datei inzwischen mit einem anderen Lemmatizer neu angelegt
+					System.out.println("The lemma cache "+file.getPath()+" is used by another lemmatizer. New lemmata won't be saved.");
+					writable = false;
+					return;
+				}
+				writeFully(channel, buffer, position);
+				channel.force(false);
+			} finally {
+				lock.release();
+			}
+		} catch(IOException e){
+			System.out.println("The lemma cache "+file.getPath()+" couldn't be updated.");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Liest Kennung und Versionsnummer der Datei ein.
+	 * @return Die Kennung des Lemmatizers, mit dem die Datei erstellt wurde, oder null, wenn die Datei ein unbekanntes Format hat.
+	 */
+	private static String readHeader(ByteBuffer buffer){
+		if(buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+		return readString(buffer);
+	}
+
+	/**
+	 * @return Der nchste String des Puffers oder null, wenn der Eintrag unvollstndig ist.
+	 */
+	private static String readString(ByteBuffer buffer){
+		if(buffer.remaining() < 2) return null;
+		int length = buffer.getShort() & MAX_LENGTH;
+		if(buffer.remaining() < length) return null;
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Schneidet die Datei hinter dem letzten vollstndigen Eintrag ab, sofern sie seit dem Einlesen nicht durch eine
+	 * andere Programminstanz verlngert wurde.
+	 */
+	private void truncate(long validEnd, long readSize){
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)){
+			FileLock lock = channel.lock();
+			try {
+				if(channel.size() == readSize) channel.truncate(validEnd);
+			} finally {
+				lock.release();
+			}
+		} catch(IOException e){
+			// z.B. unter Windows, solange die Datei noch gemappt ist
+			System.out.println("The lemma cache "+file.getPath()+" couldn't be repaired. New lemmata won't be saved.");
+			writable = false;
+		}
+	}
+
+	private static ByteBuffer ensureCapacity(ByteBuffer buffer, int required){
+		if(buffer.remaining() >= required) return buffer;
+		ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + required));
+		buffer.flip();
+		return larger.put(buffer);
+	}
+
+	private static ByteBuffer readFully(FileChannel channel, int length) throws IOException{
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while(buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0);
+		buffer.flip();
+		return buffer;
+	}
+
+	private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException{
+		int written = 0;
+		while(buffer.hasRemaining()){
+			written += channel.write(buffer, position + written);
+		}
+		return written;
+	}
+}
@@ -0,0 +1,124 @@
+package preprocessing;
+
+import java.util.Arrays;
+
+/**
+ * Hash-Map von long-Keys auf int-Werte mit offener Adressierung, die ohne Boxing auskommt. Die Keys werden zustzlich
+ * in der Reihenfolge ihres Einfgens gespeichert, so dass ber keyAt() in einer festen Reihenfolge ber sie iteriert
+ * werden kann. Eintrge knnen nicht entfernt werden.
+ * @author Alina Ostrowski
+ *
+ */
+public class LongIntHashMap {
+
+	private static final long EMPTY = Long.MIN_VALUE;
+
+	private long[] keys;
+	private int[] values;
+	private long[] insertionOrder;
+	private int size;
+
+	public LongIntHashMap() {
+		this(16);
+	}
+
+	/**
+	 * @param expectedSize Die erwartete Anzahl an Eintrgen.
+	 */
+	public LongIntHashMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		values = new int[capacity];
+		insertionOrder = new long[Math.max(4, expectedSize)];
+	}
+
+	/**
+	 * @return Der Wert zum bergebenen Key oder defaultValue, wenn der Key nicht enthalten ist.
+	 */
+	public int get(long key, int defaultValue){
+		int slot = find(key);
+		return keys[slot] == EMPTY ? defaultValue : values[slot];
+	}
+
+	public boolean containsKey(long key){
+		return keys[find(key)] != EMPTY;
+	}
+
+	/**
+	 * Setzt den Wert zum bergebenen Key.
+	 */
+	public void put(long key, int value){
+		int slot = insertSlot(key);
+		values[slot] = value;
+	}
+
+	/**
+	 * Erhht den Wert zum bergebenen Key um 1. Ist der Key noch nicht enthalten, wird er mit dem Wert 1 eingefgt.
+	 * @return Der neue Wert.
+	 */
+	public int increment(long key){
+		int slot = insertSlot(key);
+		return ++values[slot];
+	}
+
+	/**
+	 * @return Der index-te eingefgte Key.
+	 */
+	public long keyAt(int index){
+		return insertionOrder[index];
+	}
+
+	public int size(){
+		return size;
+	}
+
+	private int insertSlot(long key){
+		if(key == EMPTY){
+			throw new IllegalArgumentException("Key "+key+" isn't supported.");
+		}
+		int slot = find(key);
+		if(keys[slot] == EMPTY){
+			if((size + 1) * 2 > keys.length){
+				grow();
+				slot = find(key);
+			}
+			keys[slot] = key;
+			values[slot] = 0;
+			if(size == insertionOrder.length){
+				insertionOrder = Arrays.copyOf(insertionOrder, size * 2);
+			}
+			insertionOrder[size++] = key;
+		}
+		return slot;
+	}
+
+	private int find(long key){
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while(keys[slot] != EMPTY && keys[slot] != key){
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void grow(){
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		Arrays.fill(keys, EMPTY);
+		values = new int[keys.length];
+		for(int i = 0; i < oldKeys.length; i++){
+			if(oldKeys[i] != EMPTY){
+				int slot = find(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private static int hash(long key){
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
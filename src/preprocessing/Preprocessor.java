@@ -1,12 +1,10 @@
 package preprocessing;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.text.Normalizer;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -14,9 +12,13 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import config.LemmatizerConfig;
 import dataClasses.sentence.AbstractSentence;
 import dataClasses.sentence.TrainingSentence;
 import helpers.ReaderWriter;
+import preprocessing.lemmatization.DictionaryLemmatizer;
+import preprocessing.lemmatization.Lemmatizer;
+import preprocessing.lemmatization.LemlatWorkerPool;
 
 /**
  * Der Preprocessor stellt Methoden zur Text-Normalisierung sowie zur Lemmatisierung und Vektorisierung bereit.<br>
@@ -27,24 +29,60 @@ import helpers.ReaderWriter;
  */
 public class Preprocessor {
 	
-	// Listen mit Regex-Paaren zur Normalisierung eines lateinischen Textes
-	private static List<String[]> capitalLetterResolvers = new ArrayList<>();
-	private List<String[]> paranthesisAnnotations;
-	private List<String[]> resolverPairs;
-	private List<String[]> abbreviationPairs;
+	// Vorkompilierte Regex-Paare zur Normalisierung eines lateinischen Textes
+	private static ReplacementRules capitalLetterResolvers = new ReplacementRules(new ArrayList<String[]>());
+	private ReplacementRules paranthesisAnnotations;
+	private ReplacementRules resolverPairs;
+	private ReplacementRules abbreviationPairs;
 
 	/**
 	 * Feldvariable zur Speicherung aller bisher lemmatisierten Tokens und der dazugehrigen Lemmata
 	 */
 	Map<String, String> lemmaPairs;
 	
+	/**
+	 * Persistenter Cache der lemmaPairs, null wenn ohne Cache gearbeitet wird
+	 */
+	private LemmaCache lemmaCache;
+
+	/**
+	 * Gibt an, ob neu lemmatisierte Wortformen im lemmaCache gespeichert werden (siehe setPersistNewLemmata())
+	 */
+	private boolean persistNewLemmata = true;
+	
+	/**
+	 * Konfiguration des Lemmatizers und der Lemmatizer selbst. Dieser wird erst bei der ersten Lemmatisierung erstellt.
+	 */
+	private LemmatizerConfig lemmatizerConfig = new LemmatizerConfig();
+	private Lemmatizer lemmatizer;
+	
 	public Preprocessor(String resolverPath, String abbreviationPath, String capitalLetterPath, String paranthesisPath) {
+		this(resolverPath, abbreviationPath, capitalLetterPath, paranthesisPath, null);
+	}
+	
+	/**
+	 * @param lemmaCachePath Pfad zur Datei, in der alle bisher lemmatisierten Wortformen und ihre Lemmata dauerhaft gespeichert
+	 * werden (siehe LemmaCache). Ist er null, wird ohne Cache gearbeitet.
+	 */
+	public Preprocessor(String resolverPath, String abbreviationPath, String capitalLetterPath, String paranthesisPath, String lemmaCachePath) {
 
-		resolverPairs = ReaderWriter.readCSV(new File(resolverPath), true, ",", 2);
-		abbreviationPairs = ReaderWriter.readCSV(new File(abbreviationPath), true, ",", 3);
-		capitalLetterResolvers = ReaderWriter.readCSV(new File(capitalLetterPath), true, ",", 2);
-		paranthesisAnnotations = ReaderWriter.readCSV(new File(paranthesisPath), true, ",", 2);
+		resolverPairs = new ReplacementRules(ReaderWriter.readCSV(new File(resolverPath), true, ",", 2));
+		abbreviationPairs = new ReplacementRules(ReaderWriter.readCSV(new File(abbreviationPath), true, ",", 3));
+		capitalLetterResolvers = new ReplacementRules(ReaderWriter.readCSV(new File(capitalLetterPath), true, ",", 2));
+		paranthesisAnnotations = new ReplacementRules(ReaderWriter.readCSV(new File(paranthesisPath), true, ",", 2));
 		lemmaPairs = new HashMap<>();
+		if(lemmaCachePath != null){
+			openLemmaCache(lemmaCachePath);
+		}
+	}
+
+	/**
+	 * Ldt die Lemmata des konfigurierten Lemmatizers aus der Cache-Datei in die lemmaPairs.
+	 */
+	private void openLemmaCache(String lemmaCachePath) {
+		lemmaCache = new LemmaCache(lemmaCachePath, lemmatizerConfig.getLemmatizerId());
+		int cachedCount = lemmaCache.loadInto(lemmaPairs);
+		if(cachedCount > 0) System.out.println("Loaded lemmata for "+cachedCount+" wordforms from the lemma cache.");
 	}
 
 	/**
@@ -73,6 +111,23 @@ public class Preprocessor {
 			// und es der Lemma-Paar-Map hinzufgen
 			System.out.println("... finding best lemma per token...");
 			updateLemmaPairs(allLemmaMap);
+			
+			// Die vom Lemmatizer beantworteten Wortformen im Cache speichern
+			if(lemmaCache != null && persistNewLemmata){
+				Map<String, String> newLemmaPairs = new HashMap<>();
+				for(String wordform : allLemmaMap.keySet()){
+					newLemmaPairs.put(wordform, lemmaPairs.get(wordform));
+				}
+				lemmaCache.append(newLemmaPairs);
+			}
+			
+			// allen bisher unlemmatisierten Wortformen sich selbst als Lemma zuweisen (kann bei Problemen mit dem Lemmatizer passieren).
+			// Diese werden nicht im Cache gespeichert, damit sie bei der nchsten Ausfhrung erneut angefragt werden
+			for(String type : unlemmatizedTypes){
+				if(!lemmaPairs.containsKey(type)){
+					lemmaPairs.put(type, type);
+				}
+			}
 		} else {
 			System.out.println("... all wordforms known.");
 		}
@@ -81,13 +136,24 @@ public class Preprocessor {
 		// Fr jedes unlemmatisierte Token des Satzes das entsprechende Lemma aus der lemmaPairs-Liste heraussuchen und dem
 		// Satz alle Lemmata zuweisen
 		System.out.println("... assigning lemmata to sentences...");
+		SymbolTable symbols = SymbolTable.getShared();
+		// Lemma-ID pro Token-ID (NONE = noch nicht nachgeschlagen). Die Tokens der Stze sind bereits in der SymbolTable,
+		// ihre IDs sind also kleiner als deren aktuelle Gre; neu hinzukommende Lemmata werden nicht als Index genutzt.
+		int[] lemmaIds = new int[symbols.size()];
+		Arrays.fill(lemmaIds, SymbolTable.NONE);
 		for(AbstractSentence sent : sentences){
-			List<String> unlemmatizedTokens = sent.getTokens();
-			List<String> lemmatizedTokens = new ArrayList<>();
-			for(String unlemTok : unlemmatizedTokens){
-				lemmatizedTokens.add(lemmaPairs.get(unlemTok));
+			int[] unlemmatizedTokens = sent.getTokenIds();
+			int[] lemmatizedTokens = new int[unlemmatizedTokens.length];
+			for(int i = 0; i < unlemmatizedTokens.length; i++){
+				int tokenId = unlemmatizedTokens[i];
+				int lemmaId = lemmaIds[tokenId];
+				if(lemmaId == SymbolTable.NONE){
+					lemmaId = symbols.intern(lemmaPairs.get(symbols.symbol(tokenId)));
+					lemmaIds[tokenId] = lemmaId;
+				}
+				lemmatizedTokens[i] = lemmaId;
 			}
-			sent.setLemmatizedTokens(lemmatizedTokens);
+			sent.setLemmaIds(lemmatizedTokens);
 		}
 
 		System.out.println("... finished Lemmatizing.");
@@ -135,114 +201,44 @@ public class Preprocessor {
 
 	/**
 	 * Erstellt mithilfe des Lemmatizers "LEMLAT 3.0" mgliche Lemmata fr die bergebenen Tokens und gibt diese zurck. 
-	 * Tritt whrend der Abfrage des externen Lemmatizers ein Problem auf oder kann fr eine Wortform kein Lemma gefunden werden,
-	 * so setzt die Methode fr diese Wortform das unlemmatisierte Wort selbst als Lemma ein.<br>
+	 * Kann der Lemmatizer fr eine Wortform kein Lemma finden, so setzt die Methode fr diese Wortform das unlemmatisierte Wort
+	 * selbst als Lemma ein. Tritt whrend der Abfrage des externen Lemmatizers ein Problem auf, fehlen die betroffenen Wortformen
+	 * in der zurckgegebenen Map.<br>
+	 * Die Wortformen werden von einem Pool langlebiger LEMLAT-Prozesse lemmatisiert (siehe LemlatWorkerPool), der beim ersten
+	 * Aufruf gestartet wird. Ist in der LemmatizerConfig ein Lexikon angegeben, werden sie stattdessen in diesem nachgeschlagen
+	 * (siehe DictionaryLemmatizer).<br>
 	 * Der hier benutzte Lemmatizer ist "LEMLAT 3.0".
 	 * Homepage: {@link http://www.lemlat3.eu/}. <br>Die genaue Instanz ist die Windows Embedded Version: <br>
 	 * {@link https://github.com/CIRCSE/LEMLAT3/blob/master/bin/windows_embedded.zip}
 	 * @param allTypes Die zu lemmatisierenden Wortformen.
-	 * @return Eine Map mit einer Liste aller mglichen Lemmata (Value) zu jedem bergebenen Token (Key).
+	 * @return Eine Map mit einer Liste aller mglichen Lemmata (Value) zu jedem vom Lemmatizer beantworteten Token (Key).
 	 */
 	private Map<String, List<String>> getPossibleLemmasForTypes(Set<String> allTypes){
-		Map<String, List<String>> allLemmaMap = new HashMap<>();
-		
-		//Strings, die im Output von Lemlat.exe das Auftauchen einer (unlemmatisierten) Wortform bzw. eines Lemmas markieren
-		String wordformDeclarator = "Input    wordform :";
-		String lemmaDeclarator = "	============================LEMMA ";
-		
-		// Da die Lemmatisierung relativ lange dauert, soll sie in Etappen von 500 Wortformen geschehen.
-		// Darum Aufsplittung des Type-Sets in subSets von 500 Wrtern.
-		List<String> allTypesList = new ArrayList<>(allTypes);
-		List<Set<String>> subSets = new ArrayList<>();
-	
-		while(allTypesList.size()>500){
-			Set<String> typesSubList = new HashSet<String>(allTypesList.subList(0, 500));
-			allTypesList.removeAll(typesSubList);
-			subSets.add(typesSubList);
+		if(lemmatizer == null){
+			lemmatizer = createLemmatizer(lemmatizerConfig);
 		}
-		subSets.add(new HashSet<>(allTypesList));
-		
-		// Zhlvariablen fr die Konsolenausgabe
-		int count = 0;
-		int size = allTypes.size();
-		
-		for(Set<String> types : subSets){
-			Process lemlat = null;
+		return lemmatizer.lemmatize(allTypes);
+	}
+	
+	/**
+	 * Erstellt den in der Konfiguration angegebenen Lemmatizer: Ist ein Lexikon angegeben, wird in diesem nachgeschlagen
+	 * (DictionaryLemmatizer), sonst werden die Lemmata bei LEMLAT 3.0 angefragt (LemlatWorkerPool). Kann das Lexikon nicht
+	 * gelesen werden, wird ebenfalls LEMLAT genutzt.
+	 */
+	private Lemmatizer createLemmatizer(LemmatizerConfig config){
+		if(config.getLexiconPath() != null){
 			try {
-				// den Prozess lemlat.exe starten. Der Ordner, in dem das Programm laufen soll,
-				// muss explizit definiert werden, da das Programm sonst aus dem src-Ordner heraus zu arbeiten
-				// versucht und dann nicht auf die Lemlat-Datenbanken zugreifen kann
-				lemlat = Runtime.getRuntime().exec("lemlat/lemlat.exe", null, new File("lemlat"));
-				
-				try(BufferedReader br = new BufferedReader(new InputStreamReader(lemlat.getInputStream()));
-				PrintWriter pw = new PrintWriter(lemlat.getOutputStream());){
-
-					// Alle zu lemmatisierenden types in den OutputStream schreiben, der zur lemlat.exe fhrt 
-					for(String type : types){
-						count++;
-						pw.println(type);
-					}
-					System.out.println("... requested lemmata for the first "+count+" of "+size+" wordforms.");
-					pw.close();
-
-					// Aus dem InputStream, der von der lemlat.exe geschickt wird, alle Wortformen sowie mglichen Lemmata herausfiltern
-					// Zur Erkennung, wo im Output sich eine Wortform oder ein Lemma befindet, werden die oben definierten Strings
-					// wordformDeclarator und lemmaDeclarator genutzt
-					String currentWordform = null;
-					List<String> currentLemmas = new ArrayList<>();
-					boolean lineContainsLemma = false;
-
-					String nextLine = br.readLine();
-					while(nextLine != null){
-						if(lineContainsLemma){
-							String[] lineParts = nextLine.trim().split("\\s+");
-							currentLemmas.add(lineParts[0]);
-							lineContainsLemma = false;
-						} else if(nextLine.startsWith(wordformDeclarator)){
-							if(currentWordform != null){
-								// Wenn keine Lemmata gefunden wurden, dann wird das unlemmatisierte Token selbst als Lemma hinzugefgt
-								if(currentLemmas.isEmpty()){
-									currentLemmas.add(currentWordform);
-								}
-								allLemmaMap.put(currentWordform, currentLemmas);
-								currentLemmas = new ArrayList<>();
-							}
-							currentWordform = nextLine.replace(wordformDeclarator, "").trim().toLowerCase();
-						} else if(nextLine.startsWith(lemmaDeclarator)){
-							lineContainsLemma = true;
-						}
-						nextLine = br.readLine();
-					}
-					if(currentWordform != null){
-						if(currentLemmas.isEmpty()){
-							currentLemmas.add(currentWordform);
-						}
-						allLemmaMap.put(currentWordform, currentLemmas);
-					}
-					br.close();
-					System.out.println("...fetched possible lemmata for "+count+ " of "+size+" wordforms.");
-				}
-	            
-				// Den Lemlat-Prozess beenden
-	            lemlat.destroy();
-			} catch (Exception e) {
-				System.out.println("Problem occurred while communicating with LEMLAT 3.0. Lemmatization results could be bad.");
-				if(lemlat != null && lemlat.isAlive()){
-					lemlat.destroy();
-				}
+				DictionaryLemmatizer dictionary = new DictionaryLemmatizer(config.getLexiconPath());
+				System.out.println("... loaded lemma lexicon with "+dictionary.size()+" wordforms.");
+				return dictionary;
+			} catch (IOException e) {
+				System.out.println("The lemma lexicon "+config.getLexiconPath()+" couldn't be read. LEMLAT 3.0 is used instead.");
 				e.printStackTrace();
-			}
-			//allen bisher unlemmatisierten Wortformen sich selbst als Lemma zuweisen (kann bei Problemen mit dem Lemmatizer passieren)
-			for(String type : types){
-				if(!allLemmaMap.containsKey(type)){
-					List<String> ownLemma = new ArrayList<String>();
-					ownLemma.add(type);
-					allLemmaMap.put(type, ownLemma);
-				}
+				// die Lemmata von LEMLAT drfen nicht unter der Kennung des Lexikons gespeichert werden
+				lemmaCache = null;
 			}
 		}
-
-		return allLemmaMap;
+		return new LemlatWorkerPool(config);
 	}
 	
 	/**
@@ -253,43 +249,60 @@ public class Preprocessor {
 	 */
 	public void lemmatizedTokensToBigrams(List<AbstractSentence> sentences){
 		for(AbstractSentence sentence : sentences){
-			List<String> sentLemmas = sentence.getLemmatizedTokens();
-			if(sentLemmas.size() > 1){
-				List<String> bigrams = new ArrayList<>();
-				for(int i = 0; i < sentLemmas.size()-1; i++){
-						bigrams.add(sentLemmas.get(i)+" "+sentLemmas.get(i+1));
+			int[] sentLemmas = sentence.getLemmaIds();
+			long[] bigrams;
+			if(sentLemmas.length > 1){
+				bigrams = new long[sentLemmas.length-1];
+				for(int i = 0; i < sentLemmas.length-1; i++){
+						bigrams[i] = SymbolTable.pack(sentLemmas[i], sentLemmas[i+1]);
 				}
-				sentence.setBigrams(bigrams);
 			} else{ // wenn der Satz nur aus einem Wort besteht
-				sentence.setBigrams(sentLemmas);
+				bigrams = unigramFeatures(sentLemmas);
 			}
+			sentence.setBigramFeatures(bigrams);
+		}
+	}
+	
+	/**
+	 * Gibt die Features zurck, mit denen der Satz vektorisiert wird: Seine Bigramme oder seine Lemmata, jeweils kodiert als
+	 * long (siehe SymbolTable.pack()).
+	 */
+	private static long[] featuresOf(AbstractSentence sentence, boolean useBigramsInsteadOfTokens){
+		if(useBigramsInsteadOfTokens) return sentence.getBigramFeatures();
+		return unigramFeatures(sentence.getLemmaIds());
+	}
+	
+	private static long[] unigramFeatures(int[] lemmaIds){
+		long[] features = new long[lemmaIds.length];
+		for(int i = 0; i < lemmaIds.length; i++){
+			features[i] = SymbolTable.pack(lemmaIds[i], SymbolTable.NONE);
 		}
+		return features;
 	}
 	
 	/**
-	 * Vektorisiert eine Liste von Stzen gem des bergebenen Vektor-Typs. Die erzeugten Vektoren werden auf der vector-Feldvariable
-	 * des Sentence-Objekts gespeichert.
+	 * Vektorisiert eine Liste von Stzen gem des bergebenen Vektor-Typs. Die erzeugten Vektoren werden als dnn besetzte
+	 * Vektoren (SparseVector) auf der vector-Feldvariable des Sentence-Objekts gespeichert.
 	 * @param sentences Die zu vektorisierenden Stze.
 	 * @param useBigramsInsteadOfTokens Soll mit Bigrammen statt mit Tokens gearbeitet werden?
 	 * @param vectorType Welche Berechnungsart soll fr die Vektorisierung genutzt werden?
-	 * @param totalTypeFrequencies Eine Map, die als Keyset alle Types des Trainingskorpus enthlt. Der Wert entspricht jeweils der Anzahl an Dokumenten, in denen der Type vorkommt.
-	 * @param trainingSentenceCount Die Gesemtzahl der Trainingsstze (Trainingsdokumente).
-	 * @param typeVector Eine Liste mit allen Types des Trainingskorpus. Die Vektor-Werte werden anhand der Anordnung dieser Liste erzeugt.
+	 * @param vocabulary Das Vokabular des Trainingskorpus. Die Vektor-Werte werden anhand der Positionen seiner Types erzeugt.
 	 */
-	public void vectorize(List<AbstractSentence> sentences, boolean useBigramsInsteadOfTokens, VectorType vectorType,
-			Map<String, Integer> totalTypeFrequencies, int trainingSentenceCount, List<String> typeVector) {
+	public void vectorize(List<AbstractSentence> sentences, boolean useBigramsInsteadOfTokens, VectorType vectorType, FeatureIndex vocabulary) {
 		
 		for(AbstractSentence sentence : sentences){
+			
+			long[] sentTokens = featuresOf(sentence, useBigramsInsteadOfTokens);
 	
 			switch(vectorType){
 				case tfIdf:
-					tfidfVectorize(sentence, useBigramsInsteadOfTokens, typeVector, totalTypeFrequencies, trainingSentenceCount);
+					tfidfVectorize(sentence, sentTokens, vocabulary);
 					break;
 				case count:
-					countVectorize(sentence, useBigramsInsteadOfTokens, typeVector);
+					countVectorize(sentence, sentTokens, vocabulary);
 					break;
 				case binary:
-					binaryVectorize(sentence, useBigramsInsteadOfTokens, typeVector);
+					binaryVectorize(sentence, sentTokens, vocabulary);
 					break;
 				}
 		}
@@ -299,26 +312,16 @@ public class Preprocessor {
 	 * Erzeugt einen binren Vektor und speichert ihn auf der vector-Feldvariable des Sentence-Objektes.<br>
 	 * D.h.: Unabhngig von der absoluten Hufigkeit des Types, ist sein Wert 1, wenn er im Satz vorkommt, und 0, wenn er nicht vorkommt.
 	 * @param sentence Der zu vektorisierende Satz.
-	 * @param useBigramsInsteadOfTokens Soll mit Bigrammen statt mit Tokens gearbeitet werden?
-	 * @param typeVector Eine Liste mit allen Types des Trainingskorpus. Die Vektor-Werte werden anhand der Anordnung dieser Liste erzeugt.
+	 * @param sentTokens Die Lemmata bzw. Bigramme des Satzes als Features.
+	 * @param vocabulary Das Vokabular des Trainingskorpus.
 	 */
-	private void binaryVectorize(AbstractSentence sentence, boolean useBigramsInsteadOfTokens, List<String> typeVector) {
+	private void binaryVectorize(AbstractSentence sentence, long[] sentTokens, FeatureIndex vocabulary) {
 		
-		double[] vector = zeroVector(typeVector.size());
-
-		List<String> sentTokens;
-		if(useBigramsInsteadOfTokens) sentTokens = sentence.getBigrams();
-		else sentTokens = sentence.getLemmatizedTokens();
-		
-		Set<String> sentTypes = new HashSet<>(sentTokens);
+		TypeCounts counts = countTypes(sentTokens, vocabulary);
+		float[] values = new float[counts.size];
+		Arrays.fill(values, 1.0f);
 		
-		for(int i = 0; i < typeVector.size(); i++){
-			if(sentTypes.contains(typeVector.get(i))){
-				vector[i] = 1.0;
-			}
-		}
-		
-		sentence.setVector(vector);
+		sentence.setVector(new SparseVector(Arrays.copyOf(counts.indices, counts.size), values, vocabulary.size()));
 				
 	}
 
@@ -326,23 +329,18 @@ public class Preprocessor {
 	 * Erzeugt einen Hufigkeitsvektor und speichert ihn auf der vector-Feldvariable des Sentence-Objektes.<br>
 	 * D.h.: Der Wert eines Types entspricht der absoluten Hufigkeit des Types im Satz.
 	 * @param sentence Der zu vektorisierende Satz.
-	 * @param useBigramsInsteadOfTokens Soll mit Bigrammen statt mit Tokens gearbeitet werden?
-	 * @param typeVector Eine Liste mit allen Types des Trainingskorpus. Die Vektor-Werte werden anhand der Anordnung dieser Liste erzeugt.
+	 * @param sentTokens Die Lemmata bzw. Bigramme des Satzes als Features.
+	 * @param vocabulary Das Vokabular des Trainingskorpus.
 	 */
-	private void countVectorize(AbstractSentence sentence, boolean useBigramsInsteadOfTokens, List<String> typeVector) {
+	private void countVectorize(AbstractSentence sentence, long[] sentTokens, FeatureIndex vocabulary) {
 	
-		double[] vector = zeroVector(typeVector.size());
-		
-		List<String> sentTokens;
-		if(useBigramsInsteadOfTokens) sentTokens = sentence.getBigrams();
-		else sentTokens = sentence.getLemmatizedTokens();
-		
-		for(String token : sentTokens){
-			int index = typeVector.indexOf(token);
-			if(index >= 0)	vector[index] = vector[index] + 1.0;
+		TypeCounts counts = countTypes(sentTokens, vocabulary);
+		float[] values = new float[counts.size];
+		for(int i = 0; i < counts.size; i++){
+			values[i] = counts.counts[i];
 		}
 		
-		sentence.setVector(vector);
+		sentence.setVector(new SparseVector(Arrays.copyOf(counts.indices, counts.size), values, vocabulary.size()));
 			
 	}
 
@@ -350,49 +348,75 @@ public class Preprocessor {
 	 * Erzeugt einen tf-idf-Vektor und speichert ihn auf der vector-Feldvariable des Sentence-Objektes.<br>
 	 * D.h.: Der Wert eines Types entspricht dem tfIdf-Wert des Types innerhalb des Trainingskorpus in Relation zum Satz.
 	 * @param sentence Der zu vektorisierende Satz.
-	 * @param useBigramsInsteadOfTokens Soll mit Bigrammen statt mit Tokens gearbeitet werden?
-	 * @param typeVector Eine Liste mit allen Types des Trainingskorpus. Die Vektor-Werte werden anhand der Anordnung dieser Liste erzeugt.
+	 * @param sentTokens Die Lemmata bzw. Bigramme des Satzes als Features.
+	 * @param vocabulary Das Vokabular des Trainingskorpus, das die vorberechneten idf-Gewichte enthlt.
 	 */
-	private void tfidfVectorize(AbstractSentence sentence, boolean useBigramsInsteadOfTokens, List<String> typeVector, Map<String, Integer> totalTypeFrequencies, int trainingSentenceCount) {
+	private void tfidfVectorize(AbstractSentence sentence, long[] sentTokens, FeatureIndex vocabulary) {
 		
-		countVectorize(sentence, useBigramsInsteadOfTokens, typeVector);
-		double[] vector = zeroVector(typeVector.size());
+		TypeCounts counts = countTypes(sentTokens, vocabulary);
 
-		double[] absFreq = sentence.getVector();
-
-		double highestFreq = 0;
-		for(int i = 0; i < absFreq.length; i++){
-			double freq = absFreq[i];
-			if(freq > highestFreq){
-				highestFreq = freq;
-			}
+		int highestFreq = 0;
+		for(int i = 0; i < counts.size; i++){
+			highestFreq = Math.max(highestFreq, counts.counts[i]);
 		}
 
-		int i = 0;
-		for (String type : typeVector) {
-			double totalTypeFreq = totalTypeFrequencies.get(type);
-			
-			if(highestFreq == 0 || totalTypeFreq == 0){
-				continue;
+		// Types, deren tf-idf-Wert 0 ist (weil sie in allen Trainingsstzen vorkommen), werden nicht gespeichert
+		int[] indices = new int[counts.size];
+		float[] values = new float[counts.size];
+		int size = 0;
+		for(int i = 0; i < counts.size; i++){
+			double tf = (double) counts.counts[i] / highestFreq;
+			double tfIdf = tf * vocabulary.getIdfWeight(counts.indices[i]);
+			if(tfIdf != 0){
+				indices[size] = counts.indices[i];
+				values[size] = (float) tfIdf;
+				size++;
 			}
-			
-			double tf = absFreq[i] / highestFreq;
-			double idf = (double) trainingSentenceCount / totalTypeFreq;
-			Double tfIdf = tf * Math.log(idf);
-			vector[i] = tfIdf;
-			i++;
 		}
 		
-		sentence.setVector(vector);
+		sentence.setVector(new SparseVector(Arrays.copyOf(indices, size), Arrays.copyOf(values, size), vocabulary.size()));
 		
 	}
 
-	private double[] zeroVector(int size){
-		double[] vector = new double[size];
-		for(int i = 0; i < vector.length; i++){
-			vector[i] = 0;
+	/**
+	 * Zhlt, wie oft jeder Type des Vokabulars unter den bergebenen Tokens vorkommt. Tokens, die nicht zum Vokabular gehren,
+	 * werden ignoriert.
+	 * @return Die aufsteigend sortierten Positionen der vorkommenden Types und ihre Hufigkeiten.
+	 */
+	private TypeCounts countTypes(long[] sentTokens, FeatureIndex vocabulary){
+		int[] positions = new int[sentTokens.length];
+		int known = 0;
+		for(long token : sentTokens){
+			int index = vocabulary.indexOf(token);
+			if(index >= 0) positions[known++] = index;
+		}
+		Arrays.sort(positions, 0, known);
+
+		TypeCounts counts = new TypeCounts(known);
+		for(int i = 0; i < known; i++){
+			if(counts.size > 0 && counts.indices[counts.size - 1] == positions[i]){
+				counts.counts[counts.size - 1]++;
+			} else {
+				counts.indices[counts.size] = positions[i];
+				counts.counts[counts.size] = 1;
+				counts.size++;
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Positionen und Hufigkeiten der Types eines Satzes
+	 */
+	private static class TypeCounts {
+		private final int[] indices;
+		private final int[] counts;
+		private int size;
+
+		TypeCounts(int capacity){
+			indices = new int[capacity];
+			counts = new int[capacity];
 		}
-		return vector;
 	}
 	
 	/**
@@ -403,9 +427,9 @@ public class Preprocessor {
 	private void clearSentenceText(AbstractSentence sent){
 		
 			String text = sent.getText().trim();
-			text = replaceByRegexPair(text, paranthesisAnnotations);
-			text = replaceByRegexPair(text, resolverPairs);
-			text = replaceByRegexPair(text, abbreviationPairs);
+			text = paranthesisAnnotations.apply(text);
+			text = resolverPairs.apply(text);
+			text = abbreviationPairs.apply(text);
 			sent.setText(normalizeLatinText(text));
 		
 	}
@@ -426,56 +450,17 @@ public class Preprocessor {
 	 */
 	public static String normalizeLatinText(String text){
 		
-		text = text.trim();
-		
-		// mehrere whitespaces durch einfache whitespaces ersetzen, u.a., um den text von Zeilenumbrchen zu reinigen
-		text = text.replaceAll("\\s+", " ");	
-
-		// Ersetze alle rmischen Zahlen sowie deren Abkrzungspunkte durch die Platzhalterziffer 123
-		text = text.replaceAll("(?<=[^\\w]|^)[MmDdIiCcVvXx]+\\.*(?=[^\\w]|$)" , " 123 ");
-
-		// Diakritika entfernen
-		text = Normalizer.normalize(text, Normalizer.Form.NFD);
-		text = text.replaceAll("[^\\p{ASCII}]", "");
+		// Whitespaces vereinheitlichen, rmische Zahlen durch die Platzhalterziffer 123 ersetzen und Diakritika entfernen
+		text = LatinTextNormalizer.foldText(text);
 		
 		// Wrter, die meist grogeschrieben werden, allerdings nicht als Eigennamen erkannt werden sondern bestehen bleiben sollen, klein schreiben
-		text = replaceByRegexPair(text, capitalLetterResolvers);
-		
-		// Ersetze alle grogeschriebenen Wrter innerhalb eines Satzes (nicht am Satzbeginn) durch den Platzhalternamen "namedEntity"
-		text = text.replaceAll("(?<!\\.|(\\.[\\w\\s]))[A-Z]\\w+", " namedEntity ");
-		
-		text = text.toLowerCase();
+		text = capitalLetterResolvers.apply(text);
 		
-		// Ersetze alles mit leeren Strings, was nicht einer der folgenden character ist: a-z 0-9 whitespace
-		text = text.replaceAll("[^a-z0-9\\s]", "");
-		
-		// Lateinische Schreibweise vereinheitlichen
-		text = text.replaceAll("v", "u");
-		text = text.replaceAll("j", "i");
-		text = text.replaceAll("(?<=\\w)ae(?!\\w)", "e"); //ae am Ende eines Wortes wird zu e -> latinae -> latine, aber aeternitas -> aeternitas
-		
-		// Durch die Ersetzungen evtl. entstandene doppelte Whitespaces wieder krzen
-		text = text.replaceAll("\\s+", " ");
-		
-		return text;
+		// Grogeschriebene Wrter durch "namedEntity" ersetzen, toLowerCase(), Sonderzeichen entfernen, lateinische Schreibweise 
+		// vereinheitlichen und die dadurch evtl. entstandenen doppelten Whitespaces krzen
+		return LatinTextNormalizer.finishText(text);
 	}
 	
-	private static String replaceByRegexPair(String text, List<String[]> regexPairs) {
-		
-		for(String[] regexPair : regexPairs){
-			String regex = regexPair[0];
-			String replacement = regexPair[1];
-			try{
-				text = text.replaceAll(regex, replacement);
-			} catch(Exception e){
-				System.out.println("Problem applying the regex pair '"+regex+", "+replacement+"'. The pair isn't used. Exception is:");
-				e.printStackTrace();
-			}
-		}
-		
-		return text;
-	}
-
 	/**
 	 * Convenience-Methode: Fhrt fr alle bergebenen Stze die Methode prepareSentence() aus.
 	 * @param sentences Die Sentence-Objekte, die vorbereitet werden sollen.
@@ -512,41 +497,93 @@ public class Preprocessor {
 	 * Dokumenten ein bestimmter Type verkommt.
 	 * @param trainingSentences Die Trainingsstze, die als Berechnungsbasis dienen sollen.
 	 * @param useBigramsInsteadOfTokens Soll mit Bigrammen statt mit Tokens gearbeitet werden?
-	 * @return Eine Map mit allen Types als Keyset und jeweils der Dokumentenhufigkeit eines jeden Types als Value.
+	 * @return Eine Map mit allen Types (als Features, siehe SymbolTable.pack()) in der Reihenfolge ihres ersten Vorkommens als
+	 * Keys und jeweils der Dokumentenhufigkeit eines jeden Types als Value.
 	 */
-	public Map<String, Integer> createTypeFrequenciesMap(List<TrainingSentence> trainingSentences, boolean useBigramsInsteadOfTokens) {
-		Map<String, Integer> totalTypeFrequencies = new HashMap<>();
+	public LongIntHashMap createTypeFrequenciesMap(List<TrainingSentence> trainingSentences, boolean useBigramsInsteadOfTokens) {
+		LongIntHashMap totalTypeFrequencies = new LongIntHashMap();
 
 		for(AbstractSentence sent : trainingSentences){
-			List<String> sentTokens;
-			if(useBigramsInsteadOfTokens) sentTokens = sent.getBigrams();
-			else sentTokens = sent.getLemmatizedTokens();
-			Set<String> sentTypes = new HashSet<String>(sentTokens);
+			long[] sentTypes = featuresOf(sent, useBigramsInsteadOfTokens).clone();
+			Arrays.sort(sentTypes);
 			
-			for (String type : sentTypes) {
-				int freq = 0;
-				if(totalTypeFrequencies.containsKey(type)){
-					freq = totalTypeFrequencies.get(type);
+			for (int i = 0; i < sentTypes.length; i++) {
+				if(i == 0 || sentTypes[i] != sentTypes[i-1]){
+					totalTypeFrequencies.increment(sentTypes[i]);
 				}
-				totalTypeFrequencies.put(type, freq + 1);
 			}	
 		}
 		return totalTypeFrequencies;
 	}
 
-	public List<String[]> getParanthesisAnnotations() {
+	/**
+	 * @return Alle bisher lemmatisierten Wortformen (Key) und ihre Lemmata (Value), z.B. zum Speichern eines trainierten Modells.
+	 */
+	public Map<String, String> getLemmaPairs() {
+		return Collections.unmodifiableMap(lemmaPairs);
+	}
+
+	/**
+	 * Fgt die bergebenen Wortformen und Lemmata den bekannten Paaren hinzu, so dass sie nicht mehr lemmatisiert werden mssen.
+	 * @param lemmaPairs Die Wortformen (Key) und ihre Lemmata (Value), z.B. aus einem gespeicherten Modell.
+	 */
+	public void addLemmaPairs(Map<String, String> lemmaPairs) {
+		this.lemmaPairs.putAll(lemmaPairs);
+	}
+
+	public ReplacementRules getParanthesisAnnotations() {
 		return paranthesisAnnotations;
 	}
 
-	public void setParanthesisAnnotations(List<String[]> paranthesisAnnotations) {
+	public void setParanthesisAnnotations(ReplacementRules paranthesisAnnotations) {
 		this.paranthesisAnnotations = paranthesisAnnotations;
 	}
 
-	public List<String[]> getAbbreviationPairs() {
+	public ReplacementRules getAbbreviationPairs() {
 		return abbreviationPairs;
 	}
 
-	public void setAbbreviationPairs(List<String[]> abbreviationPairs) {
+	public void setAbbreviationPairs(ReplacementRules abbreviationPairs) {
 		this.abbreviationPairs = abbreviationPairs;
 	}
+
+	public LemmatizerConfig getLemmatizerConfig() {
+		return lemmatizerConfig;
+	}
+
+	/**
+	 * Legt fest, ob neu lemmatisierte Wortformen im LemmaCache gespeichert werden. Der ClassificationService schaltet das ab,
+	 * damit die Cache-Datei nicht mit den Wortformen beliebiger Anfragen wchst; die bereits gespeicherten Lemmata werden
+	 * weiterhin genutzt.
+	 * @param persistNewLemmata true (Standard), um neue Lemmata im Cache zu speichern; sonst false.
+	 */
+	public void setPersistNewLemmata(boolean persistNewLemmata) {
+		this.persistNewLemmata = persistNewLemmata;
+	}
+
+	/**
+	 * Setzt die Konfiguration des Lemmatizers. Ein bereits erstellter Lemmatizer wird beendet und bei der nchsten
+	 * Lemmatisierung mit der neuen Konfiguration erstellt. Wird ein LemmaCache genutzt und ndert sich dabei der Lemmatizer,
+	 * werden die bisher bekannten Lemmata verworfen und die des neuen Lemmatizers aus dem Cache geladen.
+	 */
+	public void setLemmatizerConfig(LemmatizerConfig lemmatizerConfig) {
+		boolean lemmatizerChanged = !lemmatizerConfig.getLemmatizerId().equals(this.lemmatizerConfig.getLemmatizerId());
+		this.lemmatizerConfig = lemmatizerConfig;
+		setLemmatizer(null);
+		if(lemmaCache != null && lemmatizerChanged){
+			lemmaPairs.clear();
+			openLemmaCache(lemmaCache.getPath());
+		}
+	}
+
+	/**
+	 * Setzt den Lemmatizer, mit dem unbekannte Wortformen lemmatisiert werden. Ein bereits erstellter Lemmatizer wird beendet.
+	 * Ist der bergebene Lemmatizer null, wird bei der nchsten Lemmatisierung der in der LemmatizerConfig angegebene erstellt.
+	 */
+	public void setLemmatizer(Lemmatizer lemmatizer) {
+		if(this.lemmatizer != null && this.lemmatizer != lemmatizer){
+			this.lemmatizer.shutdown();
+		}
+		this.lemmatizer = lemmatizer;
+	}
 }
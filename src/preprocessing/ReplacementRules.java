@@ -0,0 +1,238 @@
+package preprocessing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Vorkompilierte Fassung einer Liste von Regex-Paaren aus den Konfigurationsdateien (z.B. abbreviations.txt). Die Regexes
+ * werden einmalig beim Einlesen kompiliert statt bei jedem Aufruf von String.replaceAll().<br>
+ * Aufeinanderfolgende Regeln, deren Regex ein reiner String ohne Regex-Syntax ist, werden zu einem gemeinsamen Trie
+ * zusammengefasst, der alle ihre Strings in einem einzigen Durchlauf durch den Text ersetzt. Dies geschieht nur, wenn das
+ * Ergebnis dasselbe ist wie bei der Anwendung der Regeln nacheinander, d.h. wenn sich die Strings nicht berlappen und
+ * keine Ersetzung einen der Strings der nachfolgenden Regeln erzeugen kann.
+ * @author Alina Ostrowski
+ *
+ */
+public class ReplacementRules {
+
+	private final List<String[]> regexPairs;
+	private final List<ReplacementStep> steps = new ArrayList<>();
+
+	// Die gltigen Regex-Paare und die Patterns, die prfen, ob ein String mit dem jeweiligen Regex endet
+	private final List<String[]> validPairs = new ArrayList<>();
+	private final List<Pattern> endPatterns = new ArrayList<>();
+
+	/**
+	 * @param regexPairs Die Regex-Paare, bestehend aus Regex (Index 0), Ersetzungsstring (Index 1) und ggf. weiteren Werten.
+	 */
+	public ReplacementRules(List<String[]> regexPairs) {
+
+		this.regexPairs = regexPairs;
+
+		LiteralStep literalStep = null;
+		for(String[] regexPair : regexPairs){
+			String regex = regexPair[0];
+			String replacement = regexPair[1];
+			Pattern pattern;
+			Pattern endPattern;
+			try{
+				pattern = Pattern.compile(regex);
+				endPattern = Pattern.compile("[\\s\\S]*" + regex);
+			} catch(Exception e){
+				printProblem(regex, replacement, e);
+				continue;
+			}
+			validPairs.add(regexPair);
+			endPatterns.add(endPattern);
+
+			String literal = toLiteral(regex);
+			if(literal == null || !isLiteralReplacement(replacement)){
+				literalStep = null;
+				steps.add(new RegexStep(pattern, replacement));
+				continue;
+			}
+			if(literalStep == null || !literalStep.canAdd(literal)){
+				literalStep = new LiteralStep();
+				steps.add(literalStep);
+			}
+			literalStep.add(literal, replacement);
+			// nach einer Lschung knnen neue Vorkommen beliebiger Strings entstehen
+			if(replacement.isEmpty()) literalStep = null;
+		}
+	}
+
+	/**
+	 * Wendet alle Regeln in ihrer Reihenfolge auf den bergebenen Text an.
+	 * @param text Der Text, in dem ersetzt werden soll.
+	 * @return Der Text nach allen Ersetzungen.
+	 */
+	public String apply(String text){
+		for(ReplacementStep step : steps){
+			text = step.apply(text);
+		}
+		return text;
+	}
+
+	/**
+	 * Sucht das erste Regex-Paar, dessen Regex auf das Ende des bergebenen Strings passt.
+	 * @param text Der zu berprfende String.
+	 * @return Das Regex-Paar oder null, wenn der String mit keinem der Regexes endet.
+	 */
+	public String[] findPairMatchingEnd(String text){
+		for(int i = 0; i < endPatterns.size(); i++){
+			if(endPatterns.get(i).matcher(text).matches()) return validPairs.get(i);
+		}
+		return null;
+	}
+
+	/**
+	 * @return Die Regex-Paare, aus denen die Regeln erstellt wurden.
+	 */
+	public List<String[]> getRegexPairs() {
+		return regexPairs;
+	}
+
+	/**
+	 * Prft, ob der bergebene Regex nur aus Zeichen besteht, die fr sich selbst stehen, und gibt in diesem Fall den
+	 * String zurck, auf den er passt.
+	 * @return Der String, auf den der Regex passt, oder null, wenn der Regex Regex-Syntax enthlt.
+	 */
+	private static String toLiteral(String regex){
+		if(regex.isEmpty()) return null;
+		StringBuilder literal = new StringBuilder(regex.length());
+		for(int i = 0; i < regex.length(); i++){
+			char c = regex.charAt(i);
+			if(c == '\\'){
+				// nur maskierte Sonderzeichen wie "\." sind Literale, "\w", "\1" o.. nicht
+				if(i + 1 == regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) return null;
+				literal.append(regex.charAt(++i));
+			} else if(".^$|?*+()[]{}".indexOf(c) >= 0){
+				return null;
+			} else {
+				literal.append(c);
+			}
+		}
+		return literal.toString();
+	}
+
+	private static void printProblem(String regex, String replacement, Exception e){
+		System.out.println("Problem applying the regex pair '"+regex+", "+replacement+"'. The pair isn't used. Exception is:");
+		e.printStackTrace();
+	}
+
+	private static boolean isLiteralReplacement(String replacement){
+		return replacement.indexOf('$') < 0 && replacement.indexOf('\\') < 0;
+	}
+
+	/**
+	 * @return true, wenn die beiden Strings in irgendeiner Ausrichtung mindestens ein Zeichen gemeinsam berdecken knnen,
+	 * d.h. wenn einer im anderen enthalten ist oder ein Anfang des einen einem Ende des anderen entspricht.
+	 */
+	private static boolean overlaps(String a, String b){
+		for(int offset = 1 - b.length(); offset < a.length(); offset++){
+			int from = Math.max(0, offset);
+			int to = Math.min(a.length(), offset + b.length());
+			boolean equal = true;
+			for(int i = from; i < to && equal; i++){
+				equal = a.charAt(i) == b.charAt(i - offset);
+			}
+			if(equal) return true;
+		}
+		return false;
+	}
+
+	private interface ReplacementStep {
+		String apply(String text);
+	}
+
+	/**
+	 * Eine Regel mit vorkompiliertem Regex
+	 */
+	private static class RegexStep implements ReplacementStep {
+
+		private final Pattern pattern;
+		private final String replacement;
+
+		RegexStep(Pattern pattern, String replacement){
+			this.pattern = pattern;
+			this.replacement = replacement;
+		}
+
+		@Override
+		public String apply(String text){
+			Matcher matcher = pattern.matcher(text);
+			try{
+				return matcher.find() ? matcher.replaceAll(replacement) : text;
+			} catch(Exception e){
+				// ungltige Ersetzungsstrings (z.B. "$2" ohne zweite Gruppe) fallen erst bei der Anwendung auf
+				printProblem(pattern.pattern(), replacement, e);
+				return text;
+			}
+		}
+	}
+
+	/**
+	 * Mehrere zusammengefasste Regeln mit reinen Strings, die in einem Durchlauf mithilfe eines Tries ersetzt werden.
+	 */
+	private static class LiteralStep implements ReplacementStep {
+
+		private final TrieNode root = new TrieNode();
+		private final List<String> literals = new ArrayList<>();
+		private final List<String> replacements = new ArrayList<>();
+
+		/**
+		 * Ein neuer String kann hinzugefgt werden, wenn er sich mit keinem der bisherigen Strings berlappt und durch keine
+		 * der bisherigen Ersetzungen erzeugt werden kann. Bei den bisherigen Regeln wre er sonst schon ersetzt worden bzw.
+		 * wrde nach ihnen noch einmal ersetzt.
+		 */
+		boolean canAdd(String literal){
+			for(int i = 0; i < literals.size(); i++){
+				if(overlaps(literals.get(i), literal) || overlaps(replacements.get(i), literal)) return false;
+			}
+			return true;
+		}
+
+		void add(String literal, String replacement){
+			literals.add(literal);
+			replacements.add(replacement);
+			TrieNode node = root;
+			for(int i = 0; i < literal.length(); i++){
+				node = node.children.computeIfAbsent(literal.charAt(i), c -> new TrieNode());
+			}
+			node.replacement = replacement;
+		}
+
+		@Override
+		public String apply(String text){
+			StringBuilder out = null;
+			int copied = 0;
+			int i = 0;
+			while(i < text.length()){
+				// Da sich die Strings nicht berlappen, kann an jeder Position hchstens einer von ihnen beginnen
+				TrieNode node = root;
+				int j = i;
+				while(node != null && node.replacement == null && j < text.length()){
+					node = node.children.get(text.charAt(j++));
+				}
+				if(node == null || node.replacement == null){
+					i++;
+					continue;
+				}
+				if(out == null) out = new StringBuilder(text.length());
+				out.append(text, copied, i).append(node.replacement);
+				copied = i = j;
+			}
+			if(out == null) return text;
+			return out.append(text, copied, text.length()).toString();
+		}
+	}
+
+	private static class TrieNode {
+		private final Map<Character, TrieNode> children = new HashMap<>();
+		private String replacement;
+	}
+}
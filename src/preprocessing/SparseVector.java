@@ -0,0 +1,75 @@
+package preprocessing;
+
+import java.util.Arrays;
+
+/**
+ * Dnn besetzter Vektor eines Satzes: Es werden nur die Positionen des Vokabulars gespeichert, deren Wert nicht 0 ist,
+ * als aufsteigend sortierte Indexes mit den dazugehrigen Werten. Der Speicherbedarf hngt so von der Lnge des Satzes
+ * und nicht von der Gre des Vokabulars ab.
+ * @author Alina Ostrowski
+ *
+ */
+public final class SparseVector {
+
+	private final int[] indices;
+	private final float[] values;
+	private final int dimension;
+
+	/**
+	 * @param indices Die aufsteigend sortierten Indexes aller Werte ungleich 0.
+	 * @param values Die Werte zu den Indexes.
+	 * @param dimension Die Lnge des Vektors, d.h. die Gre des Vokabulars.
+	 */
+	public SparseVector(int[] indices, float[] values, int dimension) {
+		if(indices.length != values.length){
+			throw new IllegalArgumentException("Indices and values must have the same length.");
+		}
+		this.indices = indices;
+		this.values = values;
+		this.dimension = dimension;
+	}
+
+	/**
+	 * @return Der Wert an der bergebenen Position des Vektors.
+	 */
+	public double get(int index){
+		int position = Arrays.binarySearch(indices, index);
+		return position >= 0 ? values[position] : 0;
+	}
+
+	/**
+	 * @return Die Werte des Vektors als (dicht besetztes) Array der Lnge getDimension().
+	 */
+	public double[] toDense(){
+		double[] dense = new double[dimension];
+		for(int i = 0; i < indices.length; i++){
+			dense[indices[i]] = values[i];
+		}
+		return dense;
+	}
+
+	/**
+	 * @return Die aufsteigend sortierten Indexes aller Werte ungleich 0. Das Array darf nicht verndert werden.
+	 */
+	public int[] getIndices() {
+		return indices;
+	}
+
+	/**
+	 * @return Die Werte zu den Indexes aus getIndices(). Das Array darf nicht verndert werden.
+	 */
+	public float[] getValues() {
+		return values;
+	}
+
+	/**
+	 * @return Die Anzahl der Werte ungleich 0.
+	 */
+	public int size() {
+		return indices.length;
+	}
+
+	public int getDimension() {
+		return dimension;
+	}
+}
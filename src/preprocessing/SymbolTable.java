@@ -0,0 +1,107 @@
+package preprocessing;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Korpusweite Symboltabelle, die jedem Token und Lemma eine eindeutige int-ID zuweist. Die Stze speichern ihre Tokens,
+ * Lemmata und Bigramme nur als IDs, so dass jede Wortform unabhngig von der Anzahl ihrer Vorkommen nur einmal im
+ * Speicher liegt und Hashing, Mengenbildung und Vektorisierung auf primitiven Werten arbeiten.<br>
+ * Ein Feature (ein Lemma oder ein Bigramm aus zwei Lemmata) wird als long kodiert: In den oberen 32 Bit steht die ID
+ * des ersten Lemmas, in den unteren die des zweiten bzw. NONE, wenn das Feature nur aus einem Lemma besteht.<br>
+ * Die Tabelle kann von mehreren Threads gleichzeitig genutzt werden.
+ * @author Alina Ostrowski
+ *
+ */
+public final class SymbolTable {
+
+	/**
+	 * ID fr "kein Symbol", z.B. als zweiter Teil eines Features aus nur einem Lemma
+	 */
+	public static final int NONE = -1;
+
+	private static final SymbolTable SHARED = new SymbolTable();
+
+	private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+	private volatile String[] symbols = new String[1024];
+	private int size;
+
+	private SymbolTable(){
+	}
+
+	/**
+	 * @return Die Symboltabelle, die von allen Stzen des Programms genutzt wird.
+	 */
+	public static SymbolTable getShared(){
+		return SHARED;
+	}
+
+	/**
+	 * Gibt die ID des bergebenen Strings zurck. Ist der String noch nicht bekannt, erhlt er eine neue ID.
+	 * @param symbol Das Token bzw. Lemma.
+	 * @return Die ID des Strings.
+	 */
+	public int intern(String symbol){
+		Integer id = ids.get(symbol);
+		if(id != null) return id;
+		synchronized(this){
+			id = ids.get(symbol);
+			if(id != null) return id;
+			if(size == symbols.length){
+				symbols = Arrays.copyOf(symbols, size * 2);
+			}
+			symbols[size] = symbol;
+			ids.put(symbol, size);
+			return size++;
+		}
+	}
+
+	/**
+	 * @return Die ID des bergebenen Strings oder NONE, wenn er noch nicht bekannt ist.
+	 */
+	public int lookup(String symbol){
+		Integer id = ids.get(symbol);
+		return id == null ? NONE : id;
+	}
+
+	/**
+	 * @return Der String mit der bergebenen ID.
+	 */
+	public String symbol(int id){
+		return symbols[id];
+	}
+
+	/**
+	 * Kodiert ein Feature aus einem oder zwei Lemmata als long.
+	 * @param first Die ID des ersten Lemmas.
+	 * @param second Die ID des zweiten Lemmas oder NONE.
+	 */
+	public static long pack(int first, int second){
+		return ((long) first << 32) | (second & 0xFFFFFFFFL);
+	}
+
+	public static int first(long feature){
+		return (int) (feature >>> 32);
+	}
+
+	public static int second(long feature){
+		return (int) feature;
+	}
+
+	/**
+	 * @return Der Name des Features wie in der bisherigen String-Darstellung, d.h. das Lemma bzw. beide Lemmata durch ein
+	 * Leerzeichen getrennt.
+	 */
+	public String featureName(long feature){
+		String first = symbol(first(feature));
+		int second = second(feature);
+		return second == NONE ? first : first+" "+symbol(second);
+	}
+
+	/**
+	 * @return Die Anzahl der bekannten Strings.
+	 */
+	public synchronized int size(){
+		return size;
+	}
+}
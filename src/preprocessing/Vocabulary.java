@@ -0,0 +1,97 @@
+package preprocessing;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Das Vokabular des Trainingskorpus, auf dessen Basis die Stze vektorisiert werden: Jeder Type (ein Lemma oder Bigramm,
+ * kodiert als long, siehe SymbolTable) erhlt die Position, an der er zum ersten Mal in den Trainingsstzen vorkommt.
+ * Die Position eines Types wird ber eine Hash-Map mit primitiven Keys in konstanter Zeit gefunden. Zustzlich werden
+ * die idf-Gewichte aller Types einmalig berechnet, statt sie fr jeden Satz erneut aus den Dokumentenhufigkeiten zu
+ * bestimmen.
+ * @author Alina Ostrowski
+ *
+ */
+public class Vocabulary implements FeatureIndex {
+
+	private final long[] features;
+	private final LongIntHashMap positions;
+	private final int[] documentFrequencies;
+	private final double[] idfWeights;
+	private final int trainingSentenceCount;
+
+	/**
+	 * @param totalTypeFrequencies Die Anzahl an Dokumenten, in denen ein Type vorkommt (Value), zu jedem Type (Key), wie sie
+	 * von Preprocessor.createTypeFrequenciesMap() erstellt wird. Die Reihenfolge der Types bestimmt ihre Position im Vektor.
+	 * @param trainingSentenceCount Die Gesamtzahl der Trainingsstze (Trainingsdokumente).
+	 */
+	public Vocabulary(LongIntHashMap totalTypeFrequencies, int trainingSentenceCount) {
+		int size = totalTypeFrequencies.size();
+		this.features = new long[size];
+		this.positions = new LongIntHashMap(size);
+		this.documentFrequencies = new int[size];
+		this.idfWeights = new double[size];
+		this.trainingSentenceCount = trainingSentenceCount;
+		for(int i = 0; i < size; i++){
+			long feature = totalTypeFrequencies.keyAt(i);
+			features[i] = feature;
+			positions.put(feature, i);
+			int totalTypeFreq = totalTypeFrequencies.get(feature, 0);
+			documentFrequencies[i] = totalTypeFreq;
+			if(totalTypeFreq > 0){
+				idfWeights[i] = Math.log((double) trainingSentenceCount / totalTypeFreq);
+			}
+		}
+	}
+
+	@Override
+	public int indexOf(long feature){
+		return positions.get(feature, -1);
+	}
+
+	@Override
+	public double getIdfWeight(int index){
+		return idfWeights[index];
+	}
+
+	/**
+	 * @return Der Type an der bergebenen Position (siehe SymbolTable.pack()).
+	 */
+	public long getFeature(int index){
+		return features[index];
+	}
+
+	/**
+	 * @return Die Anzahl der Trainingsstze, in denen der Type an der bergebenen Position vorkommt.
+	 */
+	public int getDocumentFrequency(int index){
+		return documentFrequencies[index];
+	}
+
+	public int getTrainingSentenceCount(){
+		return trainingSentenceCount;
+	}
+
+	/**
+	 * @return Die Namen aller Types in der Reihenfolge ihrer Positionen, z.B. fr die Attribute des Weka-Classifiers.
+	 */
+	public List<String> getTypes() {
+		SymbolTable symbols = SymbolTable.getShared();
+		return new AbstractList<String>() {
+			@Override
+			public String get(int index) {
+				return symbols.featureName(features[index]);
+			}
+
+			@Override
+			public int size() {
+				return features.length;
+			}
+		};
+	}
+
+	@Override
+	public int size(){
+		return features.length;
+	}
+}
@@ -0,0 +1,229 @@
+package preprocessing.lemmatization;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Lemmatizer, der die mglichen Lemmata einer Wortform in einem Vollformen-Lexikon nachschlgt, statt sie bei einem
+ * externen Programm anzufragen. Das Lexikon wird beim Erstellen eingelesen und als kompakter Trie in wenigen Arrays
+ * gespeichert: Die Kinder eines Knotens liegen nebeneinander und sind nach ihrem Zeichen sortiert, so dass sie per
+ * binrer Suche gefunden werden. Jede Lemma-Zeichenkette wird nur einmal gespeichert.<br>
+ * Das Lexikon kann in einem der folgenden Formate (UTF-8) vorliegen:
+ * <ul>
+ * <li> eine Analyse pro Zeile: Wortform und Lemma, getrennt durch einen Tabulator oder Leerzeichen (weitere Spalten werden
+ * ignoriert, Zeilen mit # am Anfang sind Kommentare). Hat eine Wortform mehrere Analysen, steht sie in mehreren Zeilen. </li>
+ * <li> die Ausgabe von LEMLAT 3.0 fr eine Liste von Wortformen (z.B. lemlat.exe &lt; wortformen.txt &gt; lexikon.txt) </li>
+ * </ul>
+ * Wie bei LEMLAT gehen mehrfach vorkommende Lemmata einer Wortform mehrfach in die Auswahl des besten Lemmas ein.
+ * Die Wortformen des Lexikons sollten in der normalisierten Schreibweise des Preprocessors vorliegen (v - u; j - i).
+ * @author Alina Ostrowski
+ *
+ */
+public class DictionaryLemmatizer implements Lemmatizer {
+
+	// Trie: Knoten 0 ist die Wurzel. Die Kinder des Knotens n sind die Knoten childStart[n] bis childStart[n+1]-1,
+	// label[k] ist das Zeichen, das zum Knoten k fhrt
+	private final char[] label;
+	private final int[] childStart;
+
+	// Die Lemmata des Knotens n sind lemmas[lemmaIds[valueStart[n]]] bis lemmas[lemmaIds[valueStart[n+1]-1]]
+	private final int[] valueStart;
+	private final int[] lemmaIds;
+	private final String[] lemmas;
+
+	private final int size;
+
+	/**
+	 * Liest das Lexikon ein und erstellt den Trie.
+	 * @param lexiconPath Pfad zur Lexikon-Datei.
+	 * @throws IOException Wenn das Lexikon nicht gelesen werden kann.
+	 */
+	public DictionaryLemmatizer(String lexiconPath) throws IOException {
+		this(readLexicon(new File(lexiconPath)));
+	}
+
+	/**
+	 * Erstellt den Trie aus den bergebenen Wortformen und ihren mglichen Lemmata.
+	 * @param lexicon Map mit allen mglichen Lemmata (Value) zu jeder Wortform (Key).
+	 */
+	public DictionaryLemmatizer(Map<String, List<String>> lexicon) {
+		BuildNode root = new BuildNode();
+		for(Entry<String, List<String>> entry : lexicon.entrySet()){
+			if(entry.getValue().isEmpty()) continue;
+			BuildNode node = root;
+			for(int i = 0; i < entry.getKey().length(); i++){
+				node = node.children.computeIfAbsent(entry.getKey().charAt(i), c -> new BuildNode());
+			}
+			node.lemmas = entry.getValue();
+		}
+
+		// Knoten in Breitensuche durchnummerieren, damit die Kinder jedes Knotens nebeneinander liegen
+		List<BuildNode> nodes = new ArrayList<>();
+		List<Character> labels = new ArrayList<>();
+		Queue<BuildNode> queue = new ArrayDeque<>();
+		nodes.add(root);
+		labels.add('\0');
+		queue.add(root);
+		while(!queue.isEmpty()){
+			BuildNode node = queue.poll();
+			node.firstChild = nodes.size();
+			for(Entry<Character, BuildNode> child : node.children.entrySet()){
+				nodes.add(child.getValue());
+				labels.add(child.getKey());
+				queue.add(child.getValue());
+			}
+		}
+
+		int nodeCount = nodes.size();
+		label = new char[nodeCount];
+		childStart = new int[nodeCount + 1];
+		valueStart = new int[nodeCount + 1];
+		Map<String, Integer> lemmaIndex = new HashMap<>();
+		List<Integer> ids = new ArrayList<>();
+		int wordforms = 0;
+		for(int n = 0; n < nodeCount; n++){
+			BuildNode node = nodes.get(n);
+			label[n] = labels.get(n);
+			childStart[n] = node.firstChild;
+			valueStart[n] = ids.size();
+			if(node.lemmas != null){
+				wordforms++;
+				for(String lemma : node.lemmas){
+					Integer id = lemmaIndex.get(lemma);
+					if(id == null){
+						id = lemmaIndex.size();
+						lemmaIndex.put(lemma, id);
+					}
+					ids.add(id);
+				}
+			}
+		}
+		childStart[nodeCount] = nodeCount;
+		valueStart[nodeCount] = ids.size();
+
+		lemmaIds = new int[ids.size()];
+		for(int i = 0; i < lemmaIds.length; i++){
+			lemmaIds[i] = ids.get(i);
+		}
+		lemmas = new String[lemmaIndex.size()];
+		for(Entry<String, Integer> lemma : lemmaIndex.entrySet()){
+			lemmas[lemma.getValue()] = lemma.getKey();
+		}
+		size = wordforms;
+	}
+
+	@Override
+	public Map<String, List<String>> lemmatize(Collection<String> wordforms) {
+		Map<String, List<String>> lemmaMap = new HashMap<>();
+		for(String wordform : wordforms){
+			List<String> possibleLemmas = lookup(wordform);
+			if(possibleLemmas != null){
+				lemmaMap.put(wordform, possibleLemmas);
+			}
+		}
+		return lemmaMap;
+	}
+
+	/**
+	 * Schlgt die mglichen Lemmata einer Wortform im Lexikon nach.
+	 * @param wordform Die Wortform.
+	 * @return Die mglichen Lemmata oder null, wenn die Wortform nicht im Lexikon steht.
+	 */
+	public List<String> lookup(String wordform){
+		int node = 0;
+		for(int i = 0; i < wordform.length() && node >= 0; i++){
+			node = findChild(node, wordform.charAt(i));
+		}
+		if(node < 0 || valueStart[node] == valueStart[node + 1]) return null;
+
+		List<String> possibleLemmas = new ArrayList<>(valueStart[node + 1] - valueStart[node]);
+		for(int v = valueStart[node]; v < valueStart[node + 1]; v++){
+			possibleLemmas.add(lemmas[lemmaIds[v]]);
+		}
+		return possibleLemmas;
+	}
+
+	/**
+	 * @return Die Anzahl der Wortformen im Lexikon.
+	 */
+	public int size(){
+		return size;
+	}
+
+	@Override
+	public void shutdown() {
+		// Es werden keine externen Ressourcen belegt
+	}
+
+	/**
+	 * @return Das Kind des Knotens, zu dem das bergebene Zeichen fhrt, oder -1.
+	 */
+	private int findChild(int node, char c){
+		int low = childStart[node];
+		int high = childStart[node + 1] - 1;
+		while(low <= high){
+			int middle = (low + high) >>> 1;
+			if(label[middle] < c){
+				low = middle + 1;
+			} else if(label[middle] > c){
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	private static Map<String, List<String>> readLexicon(File file) throws IOException {
+		Map<String, List<String>> lexicon = new HashMap<>();
+		if(isLemlatOutput(file)){
+			try(BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)){
+				LemlatWorker.readLemmata(reader, lexicon, null);
+			}
+			return lexicon;
+		}
+
+		try(BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)){
+			String line;
+			while((line = reader.readLine()) != null){
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#")) continue;
+				String[] columns = line.contains("\t") ? line.split("\t") : line.split("\\s+");
+				if(columns.length < 2 || columns[1].trim().isEmpty()) continue;
+				lexicon.computeIfAbsent(columns[0].trim().toLowerCase(), w -> new ArrayList<>()).add(columns[1].trim());
+			}
+		}
+		return lexicon;
+	}
+
+	/**
+	 * @return true, wenn eine der ersten Zeilen der Datei eine Wortform im Output-Format von LEMLAT 3.0 enthlt.
+	 */
+	private static boolean isLemlatOutput(File file) throws IOException {
+		try(BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)){
+			String line;
+			for(int i = 0; i < 50 && (line = reader.readLine()) != null; i++){
+				if(line.startsWith(LemlatWorker.WORDFORM_DECLARATOR)) return true;
+			}
+		}
+		return false;
+	}
+
+	private static class BuildNode {
+		private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+		private List<String> lemmas;
+		private int firstChild;
+	}
+}
@@ -0,0 +1,322 @@
+package preprocessing.lemmatization;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import config.LemmatizerConfig;
+
+/**
+ * Ein langlebiger Prozess des Lemmatizers "LEMLAT 3.0", an den nacheinander mehrere Pakete von Wortformen geschickt werden.
+ * Damit der Prozess dafr nicht beendet werden muss, wird hinter jedes Paket eine Markierungs-Wortform geschrieben: Sobald
+ * LEMLAT diese im Output wiederholt, sind alle Wortformen des Pakets beantwortet.<br>
+ * Die Wortformen werden von einem eigenen Thread in den Input des Prozesses geschrieben, whrend der aufrufende Thread
+ * gleichzeitig den Output liest. Da der Output so laufend geleert wird, knnen beliebig groe Pakete gestreamt werden,
+ * ohne dass sich Lemmatizer und Worker gegenseitig ber volle Pipes blockieren.<br>
+ * Puffert der Lemmatizer seinen Output, statt ihn direkt auszugeben, beantwortet er ein Paket erst, wenn sein Input geschlossen
+ * wird, und beendet sich dann. Um das zu erkennen, wird nach dem ersten Start des Prozesses nur die Markierungs-Wortform geschickt
+ * (siehe probeInteractive()): Wird sie nicht innerhalb des kurzen Probe-Timeouts beantwortet, startet der Worker fr jedes Paket
+ * einen neuen Prozess und schliet dessen Input nach dem Schreiben.<br>
+ * Gibt der Prozess whrend eines Pakets innerhalb des konfigurierten Timeouts keine neue Zeile aus, schliet ein Watchdog zunchst
+ * seinen Input. LEMLAT gibt dann (wie beim Aufruf mit einem einzelnen Paket) alle noch ausstehenden Antworten aus und beendet sich.
+ * Antwortet der Prozess auch danach nicht, wird er zwangsweise beendet.
+ * @author Alina Ostrowski
+ *
+ */
+class LemlatWorker {
+
+	//Strings, die im Output von LEMLAT das Auftauchen einer (unlemmatisierten) Wortform bzw. eines Lemmas markieren
+	static final String WORDFORM_DECLARATOR = "Input    wordform :";
+	private static final String LEMMA_DECLARATOR = "	============================LEMMA ";
+
+	/**
+	 * Wortform, die das Ende eines Pakets markiert. Sie darf nicht lemmatisierbar sein.
+	 */
+	static final String END_MARKER = "zzzfinispaketizzz";
+
+	private final LemmatizerConfig config;
+	private final ScheduledExecutorService watchdog;
+	private final ExecutorService writers;
+
+	private volatile Process process;
+	private BufferedReader reader;
+	private BufferedWriter writer;
+
+	/**
+	 * Beantwortet der Prozess Pakete, ohne dass sein Input geschlossen werden muss?
+	 */
+	private boolean interactive = true;
+
+	/**
+	 * Wurde bereits mit probeInteractive() geprft, ob der Prozess interaktiv antwortet?
+	 */
+	private boolean probed;
+
+	// Zeitpunkt der letzten Ausgabe des Prozesses und ob der Watchdog den Input des Prozesses geschlossen hat
+	private volatile long lastOutput;
+	private volatile boolean inputClosedByWatchdog;
+
+	LemlatWorker(LemmatizerConfig config, ScheduledExecutorService watchdog, ExecutorService writers){
+		this.config = config;
+		this.watchdog = watchdog;
+		this.writers = writers;
+	}
+
+	/**
+	 * Schickt die bergebenen Wortformen an den Lemmatizer und liest die mglichen Lemmata aus seinem Output, whrend die
+	 * Wortformen noch geschrieben werden. Luft noch kein Prozess, wird einer gestartet.
+	 * @param wordforms Die zu lemmatisierenden Wortformen.
+	 * @return Eine Map mit allen mglichen Lemmata (Value) zu jeder beantworteten Wortform (Key). Strzt der Prozess ab
+	 * oder wird er durch den Watchdog beendet, fehlen die noch nicht beantworteten Wortformen.
+	 * @throws IOException Wenn der Lemmatizer nicht gestartet werden kann.
+	 */
+	synchronized Map<String, List<String>> lemmatize(Collection<String> wordforms) throws IOException {
+		if(process == null || !process.isAlive()){
+			start();
+			if(!probed){
+				probed = true;
+				if(!probeInteractive()){
+					System.out.println("LEMLAT 3.0 doesn't answer while its input is open. A new process is started for every request.");
+					interactive = false;
+				}
+				if(process == null || !process.isAlive()){
+					start();
+				}
+			}
+		}
+
+		Map<String, List<String>> lemmaMap = new HashMap<>();
+		Process current = process;
+		BufferedWriter currentWriter = writer;
+		boolean closeInput = !interactive;
+		lastOutput = System.nanoTime();
+		inputClosedByWatchdog = false;
+		long checkInterval = Math.max(1, config.getTimeoutMillis() / 4);
+		ScheduledFuture<?> check = watchdog.scheduleWithFixedDelay(() -> checkProgress(current), checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+		Future<?> writing = writers.submit(() -> {
+			writeWordforms(currentWriter, wordforms, closeInput);
+			return null;
+		});
+
+		boolean complete = false;
+		try{
+			complete = readLemmata(reader, lemmaMap, END_MARKER);
+		} catch(IOException e){
+			System.out.println("Problem occurred while communicating with LEMLAT 3.0. Lemmatization results could be bad.");
+			e.printStackTrace();
+		} finally {
+			check.cancel(false);
+		}
+
+		// Ein unvollstndig beantworteter Prozess wird beendet, damit auch ein noch blockierter Writer-Thread abbricht
+		if(!complete){
+			stop();
+		}
+		try{
+			writing.get();
+		} catch(ExecutionException e){
+			if(!complete && !inputClosedByWatchdog){
+				System.out.println("Problem occurred while sending wordforms to LEMLAT 3.0. Lemmatization results could be bad.");
+				e.getCause().printStackTrace();
+			}
+		} catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			stop();
+		}
+
+		if(interactive && inputClosedByWatchdog){
+			System.out.println("LEMLAT 3.0 doesn't answer while its input is open. A new process is started for every request.");
+			interactive = false;
+		}
+		if(!interactive){
+			stop();
+		}
+		return lemmaMap;
+	}
+
+	/**
+	 * Schickt dem neu gestarteten Prozess nur die Markierungs-Wortform und prft, ob er sie innerhalb des Probe-Timeouts
+	 * (LemmatizerConfig.getProbeTimeoutMillis()) beantwortet, whrend sein Input geffnet bleibt. Ist das nicht der Fall, puffert
+	 * der Lemmatizer seinen Output vermutlich; sein Input wird dann geschlossen und der Prozess beendet. So muss nicht das erste
+	 * Paket jedes Workers den vollen Timeout abwarten, bevor der Watchdog den Input schliet.
+	 * @return false, wenn der Prozess nicht rechtzeitig geantwortet hat; sonst true (auch wenn er abgestrzt oder der Test abgeschaltet ist).
+	 */
+	private boolean probeInteractive() {
+		long probeTimeout = config.getProbeTimeoutMillis();
+		if(probeTimeout == 0){
+			return true;
+		}
+		Process current = process;
+		AtomicBoolean timedOut = new AtomicBoolean();
+		ScheduledFuture<?> closeInput = watchdog.schedule(() -> {
+			timedOut.set(true);
+			closeQuietly(current);
+		}, probeTimeout, TimeUnit.MILLISECONDS);
+		ScheduledFuture<?> kill = watchdog.schedule(() -> current.destroyForcibly(), 2 * probeTimeout, TimeUnit.MILLISECONDS);
+		try{
+			// die Markierungs-Wortform passt in jede Pipe, das Schreiben blockiert also nicht
+			writer.write(END_MARKER);
+			writer.newLine();
+			writer.flush();
+			readLemmata(reader, new HashMap<>(), END_MARKER);
+		} catch(IOException e){
+			// Der Prozess ist abgestrzt oder wurde beendet, er wird fr das erste Paket neu gestartet
+		} finally {
+			closeInput.cancel(false);
+			kill.cancel(false);
+		}
+		if(timedOut.get()){
+			stop();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Beendet den laufenden Prozess, falls vorhanden.
+	 */
+	void stop(){
+		Process running = process;
+		if(running != null){
+			closeQuietly(running);
+			running.destroy();
+			process = null;
+		}
+	}
+
+	private void start() throws IOException {
+		String[] command = config.getCommand().clone();
+		// relative Programmpfade auf den Projektordner beziehen, da sie sonst je nach Betriebssystem relativ zum
+		// Arbeitsordner des Lemmatizers aufgelst werden
+		File program = new File(command[0]);
+		if(!program.isAbsolute() && program.exists()){
+			command[0] = program.getAbsolutePath();
+		}
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.directory(config.getWorkingDirectory());
+		builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+		process = builder.start();
+		reader = new ProgressReader(new InputStreamReader(process.getInputStream()));
+		writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+	}
+
+	/**
+	 * Liest den Output des Lemmatizers bis zur Markierungs-Wortform bzw. bis zum Ende des Outputs und filtert alle
+	 * Wortformen sowie ihre mglichen Lemmata heraus. Zur Erkennung, wo im Output sich eine Wortform oder ein Lemma
+	 * befindet, werden die Strings WORDFORM_DECLARATOR und LEMMA_DECLARATOR genutzt.
+	 * @param reader Der Output von LEMLAT, z.B. eines laufenden Prozesses oder eine gespeicherte Ausgabe.
+	 * @param lemmaMap Die Map, der die Wortformen und ihre Lemmata hinzugefgt werden.
+	 * @param endMarker Die Wortform, bei der das Lesen beendet wird, oder null, um bis zum Ende zu lesen.
+	 * @return true, wenn die Markierungs-Wortform gelesen wurde, d.h. alle Wortformen beantwortet wurden.
+	 */
+	static boolean readLemmata(BufferedReader reader, Map<String, List<String>> lemmaMap, String endMarker) throws IOException {
+		String currentWordform = null;
+		List<String> currentLemmas = new ArrayList<>();
+		boolean lineContainsLemma = false;
+
+		String nextLine = reader.readLine();
+		while(nextLine != null){
+			if(lineContainsLemma){
+				String[] lineParts = nextLine.trim().split("\\s+");
+				currentLemmas.add(lineParts[0]);
+				lineContainsLemma = false;
+			} else if(nextLine.startsWith(WORDFORM_DECLARATOR)){
+				if(currentWordform != null){
+					addWordform(lemmaMap, currentWordform, currentLemmas);
+				}
+				currentWordform = nextLine.replace(WORDFORM_DECLARATOR, "").trim().toLowerCase();
+				currentLemmas = new ArrayList<>();
+				if(currentWordform.equals(endMarker)){
+					return true;
+				}
+			} else if(nextLine.startsWith(LEMMA_DECLARATOR)){
+				lineContainsLemma = true;
+			}
+			nextLine = reader.readLine();
+		}
+		if(currentWordform != null){
+			addWordform(lemmaMap, currentWordform, currentLemmas);
+		}
+		return false;
+	}
+
+	/**
+	 * Schreibt die Wortformen und die Markierungs-Wortform in den Input des Prozesses (luft im Writer-Thread).
+	 * @param closeInput Soll der Input danach geschlossen werden, damit der Prozess seine Antworten ausgibt?
+	 */
+	private static void writeWordforms(BufferedWriter writer, Collection<String> wordforms, boolean closeInput) throws IOException {
+		for(String wordform : wordforms){
+			writer.write(wordform);
+			writer.newLine();
+		}
+		writer.write(END_MARKER);
+		writer.newLine();
+		if(closeInput){
+			writer.close();
+		} else {
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Wird regelmig vom Watchdog aufgerufen, solange ein Paket bearbeitet wird: Hat der Prozess lnger als den Timeout
+	 * nichts ausgegeben, wird sein Input geschlossen, nach dem doppelten Timeout wird er zwangsweise beendet.
+	 */
+	private void checkProgress(Process current){
+		long silentMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastOutput);
+		if(silentMillis > 2 * config.getTimeoutMillis()){
+			current.destroyForcibly();
+		} else if(silentMillis > config.getTimeoutMillis() && !inputClosedByWatchdog){
+			inputClosedByWatchdog = true;
+			closeQuietly(current);
+		}
+	}
+
+	private static void addWordform(Map<String, List<String>> lemmaMap, String wordform, List<String> lemmas){
+		// Wenn keine Lemmata gefunden wurden, dann wird das unlemmatisierte Token selbst als Lemma hinzugefgt
+		if(lemmas.isEmpty()){
+			lemmas.add(wordform);
+		}
+		lemmaMap.put(wordform, lemmas);
+	}
+
+	private static void closeQuietly(Process process){
+		try{
+			process.getOutputStream().close();
+		} catch(IOException e){
+			// Der Prozess ist bereits beendet
+		}
+	}
+
+	/**
+	 * Reader fr den Output des Prozesses, der sich den Zeitpunkt der zuletzt gelesenen Zeile merkt
+	 */
+	private class ProgressReader extends BufferedReader {
+
+		ProgressReader(InputStreamReader in){
+			super(in);
+		}
+
+		@Override
+		public String readLine() throws IOException {
+			String line = super.readLine();
+			lastOutput = System.nanoTime();
+			return line;
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package preprocessing.lemmatization;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import config.LemmatizerConfig;
+
+/**
+ * Pool aus langlebigen Prozessen des Lemmatizers "LEMLAT 3.0"
+ * (LEMLAT 3.0: Passarotti, Marco; Budassi, Marco; Litta, Eleonora; Ruffolo, Paolo: The Lemlat 3.0 Package for Morphological Analysis of Latin.
+ * In: Proceedings of the NoDaLiDa 2017 Workshop on Processing Historical Language, Gothenburg, 2017 S. 24-31. Link: http://www.ep.liu.se/ecp/133/006/ecp17133006.pdf).
+ * Die Wortformen werden in Pakete aufgeteilt, die parallel von den Prozessen des Pools lemmatisiert werden. Ohne
+ * konfigurierte Paketgre erhlt jeder Prozess ein Paket, durch das seine Wortformen in einem Stck gestreamt werden. Die Prozesse
+ * werden erst bei Bedarf gestartet und dann fr alle weiteren Pakete weiterverwendet, statt fr jedes Paket einen neuen
+ * Prozess zu starten. Beim Beenden der JVM werden alle Prozesse beendet.
+ * @author Alina Ostrowski
+ *
+ */
+public class LemlatWorkerPool implements Lemmatizer {
+
+	private final LemmatizerConfig config;
+	private final List<LemlatWorker> workers = new ArrayList<>();
+	private final BlockingQueue<LemlatWorker> idleWorkers;
+	private final ExecutorService executor;
+	private final ScheduledExecutorService watchdog;
+	private final ExecutorService writers;
+
+	/**
+	 * Beendet die Prozesse, falls die JVM endet, ohne dass shutdown() aufgerufen wurde. Wird von shutdown() wieder abgemeldet,
+	 * damit beendete Pools nicht bis zum Ende der JVM referenziert bleiben.
+	 */
+	private final Thread shutdownHook = new Thread(this::shutdown, "lemlat-shutdown");
+
+	/**
+	 * @param config Die Konfiguration des Lemmatizers und des Pools.
+	 */
+	public LemlatWorkerPool(LemmatizerConfig config) {
+		this.config = config;
+		int workerCount = config.getWorkerCount();
+		this.executor = Executors.newFixedThreadPool(workerCount, runnable -> {
+			Thread thread = new Thread(runnable, "lemlat-worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "lemlat-watchdog");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.writers = Executors.newFixedThreadPool(workerCount, runnable -> {
+			Thread thread = new Thread(runnable, "lemlat-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.idleWorkers = new ArrayBlockingQueue<>(workerCount);
+		for(int i = 0; i < workerCount; i++){
+			LemlatWorker worker = new LemlatWorker(config, watchdog, writers);
+			workers.add(worker);
+			idleWorkers.add(worker);
+		}
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	/**
+	 * Ermittelt mithilfe der Lemmatizer-Prozesse alle mglichen Lemmata fr die bergebenen Wortformen. Bricht ein Prozess
+	 * whrend eines Pakets ab, werden die unbeantworteten Wortformen einmalig an einen neu gestarteten Prozess geschickt.
+	 * @param wordforms Die zu lemmatisierenden Wortformen.
+	 * @return Eine Map mit allen mglichen Lemmata (Value) zu jeder vom Lemmatizer beantworteten Wortform (Key). Wenn
+	 * LEMLAT fr eine Wortform keine Lemmata kennt, ist die Wortform selbst ihr einziges Lemma. Wortformen, fr die der
+	 * Lemmatizer keine Antwort gegeben hat (z.B. weil er nicht gestartet werden konnte), fehlen in der Map.
+	 */
+	@Override
+	public Map<String, List<String>> lemmatize(Collection<String> wordforms){
+		List<String> allWordforms = new ArrayList<>(wordforms);
+		int total = allWordforms.size();
+		// ohne konfigurierte Paketgre werden die Wortformen gleichmig auf alle Prozesse verteilt
+		int batchSize = config.getBatchSize() > 0 ? config.getBatchSize() : Math.max(1, (total + workers.size() - 1) / workers.size());
+
+		Map<String, List<String>> allLemmaMap = new ConcurrentHashMap<>();
+		AtomicInteger processed = new AtomicInteger();
+		List<Future<?>> results = new ArrayList<>();
+		for(int start = 0; start < total; start += batchSize){
+			List<String> batch = allWordforms.subList(start, Math.min(start + batchSize, total));
+			results.add(executor.submit(() -> {
+				allLemmaMap.putAll(lemmatizeBatch(batch));
+				System.out.println("...fetched possible lemmata for "+processed.addAndGet(batch.size())+" of "+total+" wordforms.");
+				return null;
+			}));
+		}
+
+		for(Future<?> result : results){
+			try{
+				result.get();
+			} catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+				break;
+			} catch(ExecutionException e){
+				System.out.println("Problem occurred while communicating with LEMLAT 3.0. Lemmatization results could be bad.");
+				e.getCause().printStackTrace();
+			}
+		}
+		return new HashMap<>(allLemmaMap);
+	}
+
+	/**
+	 * Beendet alle Lemmatizer-Prozesse und Threads des Pools.
+	 */
+	@Override
+	public void shutdown(){
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch(IllegalStateException e){
+			// die JVM wird bereits beendet, z.B. weil shutdown() vom shutdownHook selbst aufgerufen wird
+		}
+		executor.shutdownNow();
+		writers.shutdownNow();
+		watchdog.shutdownNow();
+		for(LemlatWorker worker : workers){
+			worker.stop();
+		}
+	}
+
+	private Map<String, List<String>> lemmatizeBatch(List<String> batch) throws InterruptedException {
+		LemlatWorker worker = idleWorkers.take();
+		try{
+			Map<String, List<String>> lemmaMap = worker.lemmatize(batch);
+			List<String> missing = new ArrayList<>();
+			for(String wordform : batch){
+				if(!lemmaMap.containsKey(wordform)) missing.add(wordform);
+			}
+			if(!missing.isEmpty()){
+				lemmaMap.putAll(worker.lemmatize(missing));
+			}
+			return lemmaMap;
+		} catch(IOException e){
+			System.out.println("Problem occurred while starting LEMLAT 3.0. Lemmatization results could be bad.");
+			e.printStackTrace();
+			return new HashMap<>();
+		} finally {
+			idleWorkers.add(worker);
+		}
+	}
+}
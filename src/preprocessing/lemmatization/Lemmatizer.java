@@ -0,0 +1,27 @@
+package preprocessing.lemmatization;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schnittstelle fr die Lemmatizer, mit denen der Preprocessor die mglichen Lemmata unbekannter Wortformen ermittelt.
+ * Die Auswahl des besten Lemmas aus den mglichen Lemmata bernimmt der Preprocessor.
+ * @author Alina Ostrowski
+ *
+ */
+public interface Lemmatizer {
+
+	/**
+	 * Ermittelt alle mglichen Lemmata fr die bergebenen Wortformen.
+	 * @param wordforms Die zu lemmatisierenden (normalisierten) Wortformen.
+	 * @return Eine Map mit allen mglichen Lemmata (Value) zu jeder Wortform (Key), die der Lemmatizer beantworten konnte.
+	 * Wortformen ohne Antwort fehlen in der Map.
+	 */
+	Map<String, List<String>> lemmatize(Collection<String> wordforms);
+
+	/**
+	 * Gibt alle vom Lemmatizer belegten Ressourcen (z.B. externe Prozesse) frei.
+	 */
+	void shutdown();
+}